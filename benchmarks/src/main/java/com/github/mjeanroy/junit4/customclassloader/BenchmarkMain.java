@@ -0,0 +1,79 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Entry point of the benchmarks jar: run JMH, and write results as JSON to {@code target/jmh-result.json}
+ * of the benchmarks module (whatever the working directory) unless another result format or file is given
+ * on the command line.
+ *
+ * JSON results can be compared between releases, for example using <a href="https://jmh.morethan.io">JMH Visualizer</a>.
+ */
+public final class BenchmarkMain {
+
+	/**
+	 * The default result file name, in the {@code target} directory of the benchmarks module.
+	 */
+	private static final String RESULT_FILE = "jmh-result.json";
+
+	private BenchmarkMain() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		List<String> arguments = new ArrayList<>(Arrays.asList(args));
+
+		if (!arguments.contains("-rf")) {
+			arguments.add("-rf");
+			arguments.add("json");
+		}
+
+		if (!arguments.contains("-rff")) {
+			arguments.add("-rff");
+			arguments.add(resultFile().getPath());
+		}
+
+		Main.main(arguments.toArray(new String[0]));
+	}
+
+	/**
+	 * Get the default result file: the benchmarks jar (or the compiled classes) is located in the {@code target}
+	 * directory of the module.
+	 *
+	 * @return The result file.
+	 * @throws URISyntaxException If the location of the benchmarks cannot be read.
+	 */
+	private static File resultFile() throws URISyntaxException {
+		File location = new File(BenchmarkMain.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		return new File(location.getParentFile(), RESULT_FILE);
+	}
+}
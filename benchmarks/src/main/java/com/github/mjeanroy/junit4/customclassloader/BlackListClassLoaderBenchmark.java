@@ -0,0 +1,113 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure {@link BlackListClassLoader#loadClass(String)} throughput, for allowed classes (hits, delegated
+ * to the parent classloader) and blacklisted classes (misses), with one thread and with several threads
+ * sharing the same classloader.
+ *
+ * Misses are also measured with full stack traces ({@code junit.customclassloader.fullStackTraces}), to
+ * compare with the default stackless exception.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlackListClassLoaderBenchmark {
+
+	private static final String ALLOWED = "java.util.ArrayList";
+	private static final String BLACKLISTED = "com.fasterxml.jackson.databind.ObjectMapper";
+
+	private BlackListClassLoader classLoader;
+
+	private BlackListClassLoader fullStackTracesClassLoader;
+
+	@Setup
+	public void setUp() {
+		classLoader = newClassLoader(false);
+		fullStackTracesClassLoader = newClassLoader(true);
+	}
+
+	@Benchmark
+	public Class<?> hit() throws ClassNotFoundException {
+		return classLoader.loadClass(ALLOWED);
+	}
+
+	@Benchmark
+	public Object miss() {
+		return loadBlacklisted(classLoader);
+	}
+
+	@Benchmark
+	public Object miss_full_stack_trace() {
+		return loadBlacklisted(fullStackTracesClassLoader);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Class<?> hit_contended() throws ClassNotFoundException {
+		return classLoader.loadClass(ALLOWED);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Object miss_contended() {
+		return loadBlacklisted(classLoader);
+	}
+
+	private BlackListClassLoader newClassLoader(boolean fullStackTraces) {
+		BlackListClassLoader classLoader = new BlackListClassLoader(getClass().getClassLoader(), fullStackTraces);
+		classLoader.add(BLACKLISTED);
+		classLoader.add("com.google.gson.**");
+		classLoader.add("io.netty.*.Epoll*");
+		return classLoader;
+	}
+
+	private static Object loadBlacklisted(BlackListClassLoader classLoader) {
+		try {
+			return classLoader.loadClass(BLACKLISTED);
+		}
+		catch (ClassNotFoundException ex) {
+			return ex;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare {@link ClassNameMatcher} with a simple exact-match set of class names, and a frozen matcher
+ * (with a Bloom filter in front of exact class names) with a mutable one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassNameMatcherBenchmark {
+
+	@Param({"10000"})
+	private int rules;
+
+	private Set<String> set;
+	private ClassNameMatcher exactMatcher;
+	private ClassNameMatcher frozenMatcher;
+	private ClassNameMatcher packageMatcher;
+
+	private String hit;
+	private String miss;
+
+	@Setup
+	public void setUp() {
+		set = new HashSet<>();
+		exactMatcher = new ClassNameMatcher();
+		frozenMatcher = new ClassNameMatcher();
+		packageMatcher = new ClassNameMatcher();
+
+		List<String> classNames = new ArrayList<>(rules);
+		for (int i = 0; i < rules; i++) {
+			String className = className(i);
+			classNames.add(className);
+			set.add(className);
+			exactMatcher.add(className);
+			packageMatcher.add(packageName(i) + ".**");
+		}
+
+		frozenMatcher.addAll(classNames);
+		frozenMatcher.freeze();
+
+		hit = className(rules / 2);
+		miss = "com.github.mjeanroy.junit4.customclassloader.fixtures.NotBlacklisted";
+	}
+
+	@Benchmark
+	public boolean set_hit() {
+		return set.contains(hit);
+	}
+
+	@Benchmark
+	public boolean set_miss() {
+		return set.contains(miss);
+	}
+
+	@Benchmark
+	public boolean matcher_exact_hit() {
+		return exactMatcher.matches(hit);
+	}
+
+	@Benchmark
+	public boolean matcher_exact_miss() {
+		return exactMatcher.matches(miss);
+	}
+
+	@Benchmark
+	public boolean matcher_frozen_hit() {
+		return frozenMatcher.matches(hit);
+	}
+
+	@Benchmark
+	public boolean matcher_frozen_miss() {
+		return frozenMatcher.matches(miss);
+	}
+
+	@Benchmark
+	public boolean matcher_package_hit() {
+		return packageMatcher.matches(hit);
+	}
+
+	@Benchmark
+	public boolean matcher_package_miss() {
+		return packageMatcher.matches(miss);
+	}
+
+	private static String packageName(int i) {
+		return "com.github.mjeanroy.dependency" + (i % 100) + ".pkg" + i;
+	}
+
+	private static String className(int i) {
+		return packageName(i) + ".GeneratedClass" + i;
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare the {@link FieldInjector} with the previous injection path, that toggled
+ * the accessible flag of the field on each write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldInjectorBenchmark {
+
+	private Field field;
+	private FieldInjector injector;
+	private Fixture target;
+	private ClassLoader value;
+
+	@Setup
+	public void setUp() throws Exception {
+		field = Fixture.class.getDeclaredField("classLoader");
+		injector = FieldInjector.of(field);
+		target = new Fixture();
+		value = getClass().getClassLoader();
+	}
+
+	@Benchmark
+	public Object toggle_accessible() throws Exception {
+		@SuppressWarnings("deprecation")
+		boolean wasAccessible = field.isAccessible();
+
+		try {
+			if (!wasAccessible) {
+				field.setAccessible(true);
+			}
+
+			field.set(target, value);
+		}
+		finally {
+			if (!wasAccessible) {
+				field.setAccessible(false);
+			}
+		}
+
+		return target;
+	}
+
+	@Benchmark
+	public Object method_handle() {
+		injector.inject(target, value);
+		return target;
+	}
+
+	private static class Fixture {
+		@TestClassLoader
+		private ClassLoader classLoader;
+	}
+}
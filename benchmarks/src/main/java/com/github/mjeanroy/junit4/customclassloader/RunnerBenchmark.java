@@ -0,0 +1,93 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.Runner;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure the per-test overhead of {@link CustomClassLoaderRunner} compared to the default
+ * JUnit runner ({@link BlockJUnit4ClassRunner}): each invocation runs a test class containing
+ * a single empty test method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RunnerBenchmark {
+
+	private Runner defaultRunner;
+	private Runner customRunner;
+	private RunNotifier notifier;
+
+	@Setup
+	public void setUp() throws Exception {
+		defaultRunner = new BlockJUnit4ClassRunner(EmptyTest.class);
+		customRunner = new CustomClassLoaderRunner(EmptyTestWithClassLoader.class);
+		notifier = new RunNotifier();
+	}
+
+	@Benchmark
+	public void block_junit4_runner() {
+		defaultRunner.run(notifier);
+	}
+
+	@Benchmark
+	public void custom_classloader_runner() {
+		customRunner.run(notifier);
+	}
+
+	public static class EmptyTest {
+		@Test
+		public void it_should_do_nothing() {
+		}
+	}
+
+	@RunWithClassLoader(BlackListClassLoaderHolder.class)
+	public static class EmptyTestWithClassLoader {
+		@TestClassLoader
+		private ClassLoader classLoader;
+
+		@Test
+		public void it_should_do_nothing() {
+		}
+	}
+}
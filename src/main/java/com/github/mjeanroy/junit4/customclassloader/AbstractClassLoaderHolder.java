@@ -26,8 +26,14 @@ package com.github.mjeanroy.junit4.customclassloader;
 
 /**
  * Template implementation of {@link ClassLoaderHolder}.
- * The only method to implement is {@link ClassLoaderHolder#get()}.
+ * The only method to implement is {@link #createClassLoader()} (or {@link ClassLoaderHolder#get()}).
  * Note that the parent classloader can be obtained using the {@link #getParentClassLoader()} method.
+ *
+ * A holder can be created with a pool size: in this case, classloaders are created in the background,
+ * ahead of time, while tests are running, and classloaders are given back to the pool when a test ends,
+ * provided that {@link #resetClassLoader(ClassLoader)} is able to reset them.
+ * Note that subclasses overriding {@link #afterTest()} must call {@code super.afterTest()} to give
+ * classloaders back to the pool.
  */
 public abstract class AbstractClassLoaderHolder implements ClassLoaderHolder {
 	/**
@@ -35,11 +41,32 @@ public abstract class AbstractClassLoaderHolder implements ClassLoaderHolder {
 	 */
 	private final ClassLoader parentClassLoader;
 
+	/**
+	 * The classloader pool, {@code null} if classloaders are not pooled.
+	 */
+	private final ClassLoaderPool pool;
+
 	/**
 	 * Create the holder.
 	 */
 	protected AbstractClassLoaderHolder() {
+		this(0);
+	}
+
+	/**
+	 * Create the holder, with a classloader pool.
+	 *
+	 * @param poolSize The maximum number of idle classloaders, classloaders are not pooled if it is negative or zero.
+	 * @throws IllegalStateException If the holder does not override {@link #createClassLoader()} (nor {@link #get()} without pool).
+	 */
+	protected AbstractClassLoaderHolder(int poolSize) {
+		// Fail fast: with a pool, classloaders are created by a background thread.
+		if (!overrides(getClass(), "createClassLoader") && (poolSize > 0 || !overrides(getClass(), "get"))) {
+			throw new IllegalStateException("Class " + getClass().getName() + " must override createClassLoader()" + (poolSize > 0 ? " to use a classloader pool" : " or get()"));
+		}
+
 		this.parentClassLoader = Thread.currentThread().getContextClassLoader();
+		this.pool = poolSize > 0 ? new ClassLoaderPool(this, poolSize) : null;
 	}
 
 	@Override
@@ -48,6 +75,94 @@ public abstract class AbstractClassLoaderHolder implements ClassLoaderHolder {
 
 	@Override
 	public void afterTest() {
+		// Tests run with their classloader as the context classloader.
+		if (pool != null) {
+			pool.release(Thread.currentThread().getContextClassLoader());
+		}
+	}
+
+	@Override
+	public ClassLoader get() {
+		return pool == null ? createClassLoader() : pool.acquire();
+	}
+
+	/**
+	 * Get a brand-new classloader, never used by another test, bypassing the pool.
+	 * The classloader is not given back to the pool when the test ends: it is never reused.
+	 *
+	 * @return The new classloader.
+	 */
+	ClassLoader getNew() {
+		return pool == null ? get() : createClassLoader();
+	}
+
+	/**
+	 * Create a new classloader.
+	 * This method may be called from a background thread when classloaders are pooled.
+	 *
+	 * Holders overriding {@link #get()} without a pool do not need to implement this method: this is checked when
+	 * the holder is created.
+	 *
+	 * @return The new classloader.
+	 * @throws UnsupportedOperationException If the holder does not override this method.
+	 */
+	protected ClassLoader createClassLoader() {
+		throw new UnsupportedOperationException("Class " + getClass().getName() + " must override createClassLoader() or get()");
+	}
+
+	/**
+	 * Reset a classloader used by a test, so that it can be used by another test.
+	 * The default implementation does not reset anything, so classloaders are never reused.
+	 *
+	 * @param classLoader The classloader, created by {@link #createClassLoader()}.
+	 * @return {@code true} if the classloader has been reset and can be reused, {@code false} otherwise.
+	 */
+	protected boolean resetClassLoader(ClassLoader classLoader) {
+		return false;
+	}
+
+	/**
+	 * Ensure that the classloader will never be given back to the pool, because it is shared by several tests.
+	 *
+	 * @param classLoader The classloader.
+	 */
+	void retain(ClassLoader classLoader) {
+		if (pool != null) {
+			pool.retain(classLoader);
+		}
+	}
+
+	/**
+	 * Check if given classloader is kept by the pool, waiting to be used by a next test.
+	 *
+	 * @param classLoader The classloader.
+	 * @return {@code true} if the classloader is kept by the pool, {@code false} otherwise.
+	 */
+	boolean isPooled(ClassLoader classLoader) {
+		return pool != null && pool.isIdle(classLoader);
+	}
+
+	/**
+	 * Get the classloader pool.
+	 *
+	 * @return The pool, {@code null} if classloaders are not pooled.
+	 */
+	ClassLoaderPool getPool() {
+		return pool;
+	}
+
+	private static boolean overrides(Class<?> klass, String methodName) {
+		for (Class<?> current = klass; current != AbstractClassLoaderHolder.class; current = current.getSuperclass()) {
+			try {
+				current.getDeclaredMethod(methodName);
+				return true;
+			}
+			catch (NoSuchMethodException ex) {
+				// Look in the superclass.
+			}
+		}
+
+		return false;
 	}
 
 	/**
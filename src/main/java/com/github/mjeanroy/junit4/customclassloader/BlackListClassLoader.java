@@ -24,44 +24,160 @@
 
 package com.github.mjeanroy.junit4.customclassloader;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
 
 /**
  * A {@link ClassLoader} implementation that will explicitly fail when blacklisted class are loaded.
  * This is especially useful when implementing tests where tested methods relies on classpath detection.
+ *
+ * Blacklisted classes can be given using their fully qualified names, or using rules matching several
+ * classes at once:
+ * <ul>
+ *   <li>{@code com.fasterxml.jackson.databind.*} blacklists all classes of the {@code com.fasterxml.jackson.databind} package.</li>
+ *   <li>{@code com.fasterxml.jackson.**} blacklists all classes of the {@code com.fasterxml.jackson} package and its sub-packages.</li>
+ *   <li>{@code io.netty.*.Epoll*} blacklists all classes starting with {@code Epoll} in any direct sub-package of {@code io.netty}.</li>
+ * </ul>
+ *
+ * Resources are hidden too: class files of blacklisted classes, resources of blacklisted packages (for example,
+ * {@code com/fasterxml/jackson/databind/cfg/PackageVersion.properties} is hidden by {@code com.fasterxml.jackson.**}),
+ * and blacklisted service providers, so that {@link java.util.ServiceLoader} does not find them.
  */
-public class BlackListClassLoader extends ClassLoader {
+public class BlackListClassLoader extends ClassLoader implements InstrumentedClassLoader {
+
+	/**
+	 * The system property that can be used to throw {@link ClassNotFoundException} with a full stack trace,
+	 * instead of {@link BlacklistedClassException}, when a blacklisted class is loaded.
+	 */
+	static final String FULL_STACK_TRACES_PROPERTY = "junit.customclassloader.fullStackTraces";
+
+	// Class loading may be triggered by several threads at the same time (for example, when a
+	// test spawns its own worker threads): we do not want to serialize these on the whole loader.
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
 	/**
-	 * The blacklist set of classes.
+	 * The blacklist rules.
+	 * Reading these rules never blocks.
 	 */
-	private final Set<String> blacklist;
+	private final ClassNameMatcher blacklist;
 
 	/**
 	 * The parent classloader, everything will be delegated to this classloader, except for blacklisted classes.
 	 */
 	private final ClassLoader parent;
 
+	/**
+	 * The class loading metrics.
+	 */
+	private final ClassLoadingMetrics metrics;
+
+	/**
+	 * The index of the service provider configuration files of the parent classloader.
+	 */
+	private final ServiceIndex serviceIndex;
+
+	/**
+	 * Flag to throw exceptions with a full stack trace when a blacklisted class is loaded.
+	 */
+	private final boolean fullStackTraces;
+
 	/**
 	 * Create the classloader.
 	 *
 	 * @param parent The parent classloader.
 	 */
 	BlackListClassLoader(ClassLoader parent) {
+		this(parent, SystemProperties.getBoolean(FULL_STACK_TRACES_PROPERTY, false));
+	}
+
+	/**
+	 * Create the classloader.
+	 *
+	 * @param parent The parent classloader.
+	 * @param fullStackTraces Flag to throw exceptions with a full stack trace when a blacklisted class is loaded.
+	 */
+	BlackListClassLoader(ClassLoader parent, boolean fullStackTraces) {
 		this.parent = parent;
-		this.blacklist = new HashSet<>();
+		this.fullStackTraces = fullStackTraces;
+		this.blacklist = new ClassNameMatcher();
+		this.metrics = new ClassLoadingMetrics();
+		this.serviceIndex = ServiceIndex.of(parent);
 	}
 
+	// No lock is needed here: this classloader never defines any class (everything is delegated
+	// to the parent classloader that is responsible for its own locking).
 	@Override
-	public synchronized Class<?> loadClass(String name) throws ClassNotFoundException {
-		// Only use custom classloader for classes from these packages
-		if (blacklist.contains(name)) {
-			// The `findClass` method will throw ClassNotFoundException.
-			super.findClass(name);
+	public Class<?> loadClass(String name) throws ClassNotFoundException {
+		long start = metrics.start();
+		try {
+			// Only use custom classloader for classes from these packages
+			if (blacklist.matches(name)) {
+				metrics.denied();
+
+				// Filling the stack trace is the most expensive part of the failure, and it is useless when
+				// optional dependencies are probed.
+				throw fullStackTraces ? new ClassNotFoundException(name) : new BlacklistedClassException(name);
+			}
+
+			// Otherwise load from the parent classloader
+			metrics.delegated();
+			Class<?> klass = parent.loadClass(name);
+			metrics.loaded(name);
+			return klass;
+		}
+		finally {
+			metrics.end(start);
 		}
+	}
 
-		// Otherwise load from the parent classloader
-		return parent.loadClass(name);
+	@Override
+	public URL getResource(String name) {
+		if (name.startsWith(ServiceIndex.PREFIX)) {
+			try {
+				Enumeration<URL> resources = getResources(name);
+				return resources.hasMoreElements() ? resources.nextElement() : null;
+			}
+			catch (IOException ex) {
+				return null;
+			}
+		}
+
+		return isHidden(name) ? null : parent.getResource(name);
+	}
+
+	@Override
+	public Enumeration<URL> getResources(String name) throws IOException {
+		if (name.startsWith(ServiceIndex.PREFIX)) {
+			String service = name.substring(ServiceIndex.PREFIX.length());
+			return blacklist.matches(service) ? Collections.<URL>emptyEnumeration() : serviceIndex.getResources(parent, service, blacklist);
+		}
+
+		return isHidden(name) ? Collections.<URL>emptyEnumeration() : parent.getResources(name);
+	}
+
+	/**
+	 * Check if given resource is hidden: a resource is hidden if the blacklist matches its name (without
+	 * extension) as a class name, for example {@code com/foo/Bar.class} is hidden if the {@code com.foo.Bar}
+	 * class is blacklisted.
+	 * Resources of the root directory and of the {@code META-INF} directory are never hidden.
+	 *
+	 * @param name The resource name.
+	 * @return {@code true} if the resource is hidden, {@code false} otherwise.
+	 */
+	private boolean isHidden(String name) {
+		int slash = name.lastIndexOf('/');
+		if (slash <= 0 || name.startsWith("META-INF/")) {
+			return false;
+		}
+
+		int dot = name.indexOf('.', slash);
+		String className = (dot < 0 ? name : name.substring(0, dot)).replace('/', '.');
+		return blacklist.matches(className);
 	}
 
 	/**
@@ -72,11 +188,37 @@ public class BlackListClassLoader extends ClassLoader {
 	}
 
 	/**
-	 * Add blacklisted class.
+	 * Add blacklisted class, or blacklist rule.
 	 *
-	 * @param name Class name (fully qualified name).
+	 * @param name Class name (fully qualified name), package or glob rule.
+	 * @throws IllegalStateException If the blacklist is frozen.
 	 */
 	public void add(String name) {
 		this.blacklist.add(name);
 	}
+
+	/**
+	 * Add blacklisted classes, or blacklist rules, at once: this is much faster than adding rules one by one
+	 * for very large blacklists (for example, generated from a dependency tree).
+	 *
+	 * @param names Class names (fully qualified names), packages or glob rules.
+	 * @throws IllegalStateException If the blacklist is frozen.
+	 */
+	public void addAll(Collection<String> names) {
+		this.blacklist.addAll(names);
+	}
+
+	/**
+	 * Freeze the blacklist: rules cannot be added anymore (until {@link #clear()} is called), and blacklisted
+	 * class names are indexed by a Bloom filter, so that loading a class that is not blacklisted only costs
+	 * a couple of hash probes, whatever the size of the blacklist.
+	 */
+	public void freeze() {
+		this.blacklist.freeze();
+	}
+
+	@Override
+	public ClassLoadingMetrics getMetrics() {
+		return metrics;
+	}
 }
@@ -26,17 +26,28 @@ package com.github.mjeanroy.junit4.customclassloader;
 
 /**
  * Implementation of {@link ClassLoaderHolder} that will load {@link BlackListClassLoader} instance.
+ *
+ * Classloaders are created ahead of time, but never reused: the JVM records a classloader as the initiating
+ * loader of every class loaded through it, so {@code Class.forName(name, initialize, classLoader)} would still
+ * return the classes loaded by a previous test, whatever the blacklist of the next test.
  */
 public class BlackListClassLoaderHolder extends AbstractClassLoaderHolder implements ClassLoaderHolder {
+	/**
+	 * The number of classloaders created ahead of time.
+	 */
+	private static final int POOL_SIZE = 2;
+
 	/**
 	 * Create the holder.
+	 * This holder can be extended, for example to blacklist classes in {@link #beforeTest()} (each holder of a
+	 * {@link RunWithClassLoader} annotation declaring several holders being a classpath configuration).
 	 */
-	BlackListClassLoaderHolder() {
-		super();
+	public BlackListClassLoaderHolder() {
+		super(POOL_SIZE);
 	}
 
 	@Override
-	public ClassLoader get() {
+	protected ClassLoader createClassLoader() {
 		return new BlackListClassLoader(getParentClassLoader());
 	}
 }
@@ -0,0 +1,54 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+/**
+ * The exception thrown by {@link BlackListClassLoader} when a blacklisted class is loaded (and by
+ * {@link WhiteListClassLoader} when a class that is not whitelisted is loaded, or by
+ * {@link ClasspathExclusionClassLoader} when a class of an excluded classpath entry is loaded).
+ *
+ * Code detecting optional dependencies often probes many classes, so this exception does not capture
+ * the stack trace (which is by far the most expensive part of throwing an exception): set the
+ * {@code junit.customclassloader.fullStackTraces} system property to {@code true} to get a regular
+ * {@link ClassNotFoundException} instead, with the full stack trace, when debugging.
+ */
+public final class BlacklistedClassException extends ClassNotFoundException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Create the exception.
+	 *
+	 * @param className The class name (fully qualified name).
+	 */
+	BlacklistedClassException(String className) {
+		super(className);
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+}
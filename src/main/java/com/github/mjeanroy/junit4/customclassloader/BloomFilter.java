@@ -0,0 +1,108 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.Collection;
+
+/**
+ * An immutable Bloom filter of strings: {@link #mightContain(String)} never returns {@code false} for a
+ * string of the filter, and returns {@code true} for about 1% of other strings.
+ *
+ * Positions are derived from {@link String#hashCode()} (cached by the string itself) using double hashing,
+ * so a negative lookup usually costs one or two bit probes, without reading the string content.
+ */
+final class BloomFilter {
+
+	/**
+	 * The number of bits per element: with {@link #HASHES} hash functions, the false positive rate is about 1%.
+	 */
+	private static final int BITS_PER_ELEMENT = 10;
+
+	/**
+	 * The number of hash functions.
+	 */
+	private static final int HASHES = 7;
+
+	/**
+	 * The bits, the number of bits is a power of two.
+	 */
+	private final long[] bits;
+
+	/**
+	 * The mask applied to a hash to get a bit index.
+	 */
+	private final int mask;
+
+	/**
+	 * Create the filter.
+	 *
+	 * @param values The values of the filter.
+	 */
+	BloomFilter(Collection<String> values) {
+		long expectedBits = Math.max(64L, (long) values.size() * BITS_PER_ELEMENT);
+		int size = (int) Math.min(1L << 30, Long.highestOneBit(expectedBits - 1) << 1);
+
+		this.bits = new long[size >>> 6];
+		this.mask = size - 1;
+
+		for (String value : values) {
+			int h1 = mix(value.hashCode());
+			int h2 = mix(h1) | 1;
+			for (int i = 0; i < HASHES; i++) {
+				int index = (h1 + i * h2) & mask;
+				bits[index >>> 6] |= 1L << index;
+			}
+		}
+	}
+
+	/**
+	 * Check if given value may be part of the filter.
+	 *
+	 * @param value The value.
+	 * @return {@code false} if the value is not part of the filter, {@code true} if it may be part of the filter.
+	 */
+	boolean mightContain(String value) {
+		int h1 = mix(value.hashCode());
+		int h2 = mix(h1) | 1;
+		for (int i = 0; i < HASHES; i++) {
+			int index = (h1 + i * h2) & mask;
+			if ((bits[index >>> 6] & (1L << index)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// The finalization step of MurmurHash3, to spread the bits of the hash code.
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+}
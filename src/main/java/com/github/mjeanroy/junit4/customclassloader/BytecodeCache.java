@@ -0,0 +1,360 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.CodeSource;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.Manifest;
+
+/**
+ * A cache of class files, shared by all classloaders of the JVM.
+ *
+ * The class file of a class is resolved through the parent classloader of the classloader that defines it (so
+ * the defined class is the one the parent would have loaded), read once (using the {@link ClasspathIndex} when
+ * the class is found in an indexed classpath entry, or from the resource URL otherwise) and kept in memory:
+ * classloaders with the same parent that need to define the same class again (for example, a fresh classloader
+ * created for each test) do not need to resolve and read it again.
+ *
+ * Note that classes are identified by their names: this cache assumes that the same class name
+ * always resolves to the same class file through a given classloader.
+ */
+final class BytecodeCache {
+	/**
+	 * The shared instance.
+	 */
+	private static final BytecodeCache INSTANCE = new BytecodeCache();
+
+	/**
+	 * The value stored when the class file of a class cannot be found, so that
+	 * missing classes are not looked up again.
+	 */
+	private static final ClassFile NOT_FOUND = new ClassFile(new byte[0], null, null);
+
+	/**
+	 * The value stored when a classpath entry does not have a manifest.
+	 */
+	private static final Manifest NO_MANIFEST = new Manifest();
+
+	/**
+	 * Get the shared cache instance.
+	 *
+	 * @return The cache.
+	 */
+	static BytecodeCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * The class files, indexed by the classloader used to resolve them, then by class name.
+	 * Classloaders are weakly referenced, so that the cache does not prevent them from being garbage collected.
+	 */
+	private final Map<ClassLoader, ConcurrentMap<String, ClassFile>> cache;
+
+	/**
+	 * The code sources, indexed by location.
+	 */
+	private final ConcurrentMap<String, CodeSource> codeSources;
+
+	/**
+	 * The manifests of the classpath entries, indexed by location.
+	 */
+	private final ConcurrentMap<String, Manifest> manifests;
+
+	/**
+	 * The locations of the indexed classpath entries.
+	 */
+	private final ConcurrentMap<File, String> entryLocations;
+
+	/**
+	 * The classpath index, used to read class files.
+	 */
+	private final ClasspathIndex classpathIndex;
+
+	private BytecodeCache() {
+		this(ClasspathIndex.getInstance());
+	}
+
+	// Package private for testing purpose.
+	BytecodeCache(ClasspathIndex classpathIndex) {
+		this.cache = Collections.synchronizedMap(new WeakHashMap<ClassLoader, ConcurrentMap<String, ClassFile>>());
+		this.codeSources = new ConcurrentHashMap<>();
+		this.manifests = new ConcurrentHashMap<>();
+		this.entryLocations = new ConcurrentHashMap<>();
+		this.classpathIndex = classpathIndex;
+	}
+
+	/**
+	 * Get the bytecode of given class.
+	 * Note that the returned array is shared and must not be modified.
+	 *
+	 * @param classLoader The classloader used to resolve the class file.
+	 * @param className The class name (fully qualified name).
+	 * @return The bytecode, {@code null} if the class cannot be found.
+	 * @throws IllegalStateException If the bytecode cannot be read.
+	 */
+	byte[] get(ClassLoader classLoader, String className) {
+		ClassFile classFile = getClassFile(classLoader, className);
+		return classFile == null ? null : classFile.getBytecode();
+	}
+
+	/**
+	 * Get the class file of given class.
+	 *
+	 * @param classLoader The classloader used to resolve the class file, {@code null} to not resolve any class.
+	 * @param className The class name (fully qualified name).
+	 * @return The class file, {@code null} if the class cannot be found.
+	 * @throws IllegalStateException If the class file cannot be read.
+	 */
+	ClassFile getClassFile(ClassLoader classLoader, String className) {
+		if (classLoader == null) {
+			return null;
+		}
+
+		ConcurrentMap<String, ClassFile> classFiles = classFiles(classLoader);
+		ClassFile classFile = classFiles.get(className);
+		if (classFile == null) {
+			classFile = read(classLoader, className);
+			ClassFile previous = classFiles.putIfAbsent(className, classFile);
+			if (previous != null) {
+				classFile = previous;
+			}
+		}
+
+		return classFile == NOT_FOUND ? null : classFile;
+	}
+
+	/**
+	 * Get the number of entries in the cache.
+	 *
+	 * @return The number of entries.
+	 */
+	int size() {
+		synchronized (cache) {
+			int size = 0;
+			for (ConcurrentMap<String, ClassFile> classFiles : cache.values()) {
+				size += classFiles.size();
+			}
+
+			return size;
+		}
+	}
+
+	private ConcurrentMap<String, ClassFile> classFiles(ClassLoader classLoader) {
+		synchronized (cache) {
+			ConcurrentMap<String, ClassFile> classFiles = cache.get(classLoader);
+			if (classFiles == null) {
+				classFiles = new ConcurrentHashMap<>();
+				cache.put(classLoader, classFiles);
+			}
+
+			return classFiles;
+		}
+	}
+
+	private ClassFile read(ClassLoader classLoader, String className) {
+		String resourceName = className.replace('.', '/') + ".class";
+
+		try {
+			URL url = classLoader.getResource(resourceName);
+			if (url == null) {
+				return NOT_FOUND;
+			}
+
+			String location = locationOf(url, resourceName);
+			File entry = classpathIndex.findEntry(resourceName);
+			boolean indexed = entry != null && location != null && location.equals(entryLocation(entry));
+
+			InputStream stream = indexed ? classpathIndex.getResourceAsStream(entry, resourceName) : null;
+			if (stream == null) {
+				stream = url.openStream();
+			}
+
+			byte[] bytecode = readFully(stream);
+			Manifest manifest = location == null ? null : manifest(location, url, indexed ? entry : null);
+			return new ClassFile(bytecode, codeSource(location), manifest);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Cannot read bytecode of class " + className, ex);
+		}
+	}
+
+	private String entryLocation(File entry) {
+		String location = entryLocations.get(entry);
+		if (location == null) {
+			location = entry.toURI().toString();
+			entryLocations.putIfAbsent(entry, location);
+		}
+
+		return location;
+	}
+
+	private CodeSource codeSource(String location) throws MalformedURLException {
+		if (location == null) {
+			return new CodeSource(null, (Certificate[]) null);
+		}
+
+		CodeSource codeSource = codeSources.get(location);
+		if (codeSource == null) {
+			codeSource = new CodeSource(new URL(location), (Certificate[]) null);
+			CodeSource previous = codeSources.putIfAbsent(location, codeSource);
+			if (previous != null) {
+				codeSource = previous;
+			}
+		}
+
+		return codeSource;
+	}
+
+	private Manifest manifest(String location, URL url, File entry) throws IOException {
+		Manifest manifest = manifests.get(location);
+		if (manifest == null) {
+			if (entry != null) {
+				manifest = classpathIndex.getManifest(entry);
+			}
+			else {
+				URLConnection connection = url.openConnection();
+				manifest = connection instanceof JarURLConnection ? ((JarURLConnection) connection).getManifest() : null;
+			}
+
+			manifests.putIfAbsent(location, manifest == null ? NO_MANIFEST : manifest);
+		}
+
+		return manifest == NO_MANIFEST ? null : manifest;
+	}
+
+	/**
+	 * Get the location of the classpath entry containing a resource: the jar file for resources
+	 * read from a jar, the root directory otherwise.
+	 *
+	 * @param url The resource URL.
+	 * @param resourceName The resource name.
+	 * @return The location, {@code null} if it cannot be computed.
+	 */
+	private static String locationOf(URL url, String resourceName) {
+		String path = url.toExternalForm();
+		if (!path.endsWith(resourceName)) {
+			return null;
+		}
+
+		String location = path.substring(0, path.length() - resourceName.length());
+		if (location.startsWith("jar:") && location.endsWith("!/")) {
+			location = location.substring(4, location.length() - 2);
+		}
+
+		return location;
+	}
+
+	private static byte[] readFully(InputStream stream) throws IOException {
+		try {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				output.write(buffer, 0, read);
+			}
+
+			return output.toByteArray();
+		}
+		finally {
+			closeQuietly(stream);
+		}
+	}
+
+	private static void closeQuietly(InputStream stream) {
+		try {
+			stream.close();
+		}
+		catch (IOException ex) {
+			// Nothing to do.
+		}
+	}
+
+	/**
+	 * A class file: the bytecode of a class and the classpath entry it has been read from.
+	 */
+	static final class ClassFile {
+		/**
+		 * The bytecode.
+		 */
+		private final byte[] bytecode;
+
+		/**
+		 * The code source of the classpath entry.
+		 */
+		private final CodeSource codeSource;
+
+		/**
+		 * The manifest of the classpath entry, {@code null} if the entry does not have a manifest.
+		 */
+		private final Manifest manifest;
+
+		private ClassFile(byte[] bytecode, CodeSource codeSource, Manifest manifest) {
+			this.bytecode = bytecode;
+			this.codeSource = codeSource;
+			this.manifest = manifest;
+		}
+
+		/**
+		 * Get the bytecode.
+		 * Note that the returned array is shared and must not be modified.
+		 *
+		 * @return The bytecode.
+		 */
+		byte[] getBytecode() {
+			return bytecode;
+		}
+
+		/**
+		 * Get the code source of the classpath entry containing the class.
+		 *
+		 * @return The code source.
+		 */
+		CodeSource getCodeSource() {
+			return codeSource;
+		}
+
+		/**
+		 * Get the manifest of the classpath entry containing the class.
+		 *
+		 * @return The manifest, {@code null} if the entry does not have a manifest (for example, a directory).
+		 */
+		Manifest getManifest() {
+			return manifest;
+		}
+	}
+}
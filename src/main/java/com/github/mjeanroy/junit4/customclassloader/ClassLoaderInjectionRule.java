@@ -24,7 +24,6 @@
 
 package com.github.mjeanroy.junit4.customclassloader;
 
-import java.lang.reflect.Field;
 import java.util.List;
 
 import org.junit.rules.ExternalResource;
@@ -71,9 +70,9 @@ class ClassLoaderInjectionRule extends ExternalResource implements TestRule {
 	 * with {@link TestClassLoader} annotation.
 	 */
 	private void injectClassLoader() {
-		List<Field> fields = Reflections.findFieldsAnnotatedWith(target.getClass(), TestClassLoader.class);
-		for (Field field : fields) {
-			injectClassLoaderField(field);
+		List<FieldInjector> injectors = TestClassMetadata.of(target.getClass()).getInjectors();
+		for (FieldInjector injector : injectors) {
+			injectClassLoaderField(injector);
 		}
 	}
 
@@ -85,17 +84,17 @@ class ClassLoaderInjectionRule extends ExternalResource implements TestRule {
 	 *
 	 * @throws IllegalStateException If injection cannot be done.
 	 */
-	private void injectClassLoaderField(Field field) {
-		Class<?> type = field.getType();
+	private void injectClassLoaderField(FieldInjector injector) {
+		Class<?> type = injector.getType();
 
 		if (ClassLoader.class.isAssignableFrom(type)) {
-			Reflections.setter(target, field, Thread.currentThread().getContextClassLoader());
+			injector.inject(target, Thread.currentThread().getContextClassLoader());
 		}
 		else if (ClassLoaderHolder.class.isAssignableFrom(type)) {
-			Reflections.setter(target, field, classLoaderHolder);
+			injector.inject(target, classLoaderHolder);
 		}
 		else {
-			throw new IllegalStateException("Cannot set field '" + field.getName() + "', it should be an instance of '" + ClassLoader.class.getName() + "' or '" + ClassLoaderHolder.class.getName() + "'.");
+			throw new IllegalStateException("Cannot set field '" + injector.getName() + "', it should be an instance of '" + ClassLoader.class.getName() + "' or '" + ClassLoaderHolder.class.getName() + "'.");
 		}
 	}
 
@@ -103,9 +102,9 @@ class ClassLoaderInjectionRule extends ExternalResource implements TestRule {
 	 * Set fields value annotated with {@link TestClassLoader} to {@code null}.
 	 */
 	private void cleanUpClassLoaderInjection() {
-		List<Field> fields = Reflections.findFieldsAnnotatedWith(target.getClass(), TestClassLoader.class);
-		for (Field field : fields) {
-			Reflections.setter(target, field, null);
+		List<FieldInjector> injectors = TestClassMetadata.of(target.getClass()).getInjectors();
+		for (FieldInjector injector : injectors) {
+			injector.inject(target, null);
 		}
 	}
 }
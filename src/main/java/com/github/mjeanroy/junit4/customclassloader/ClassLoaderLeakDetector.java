@@ -0,0 +1,235 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runner.Description;
+
+/**
+ * Detect classloaders that are never garbage collected once the test using them has ended: such a
+ * classloader (and all the classes it loaded) is usually retained by a static reference from a class
+ * of a parent classloader, or by a thread that is still running, and leaks memory (especially metaspace)
+ * for each test.
+ *
+ * Classloaders are weakly referenced while tests are running, and checked in a single batch (triggering
+ * a garbage collection, and waiting a bounded amount of time for references to be cleared) when
+ * {@link #check(ClassLoaderHolder)} is called: this keeps the overhead low enough to run on each build.
+ */
+final class ClassLoaderLeakDetector {
+
+	/**
+	 * The delay between two garbage collections, while waiting for references to be cleared.
+	 */
+	private static final long POLL_INTERVAL_MILLIS = 50;
+
+	/**
+	 * The queue receiving references to collected classloaders.
+	 */
+	private final ReferenceQueue<ClassLoader> queue;
+
+	/**
+	 * The references to classloaders that have not been collected yet.
+	 */
+	private final Set<TrackedClassLoader> tracked;
+
+	/**
+	 * The maximum time to wait for classloaders to be collected, in milliseconds.
+	 */
+	private final long timeoutMillis;
+
+	/**
+	 * Create the detector.
+	 *
+	 * @param timeoutMillis The maximum time to wait for classloaders to be collected, in milliseconds.
+	 */
+	ClassLoaderLeakDetector(long timeoutMillis) {
+		this.queue = new ReferenceQueue<>();
+		this.tracked = Collections.synchronizedSet(new LinkedHashSet<TrackedClassLoader>());
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Track the classloader used by a test: the classloader should be garbage collected once the test has ended.
+	 *
+	 * @param description The test description.
+	 * @param classLoader The classloader.
+	 */
+	void track(Description description, ClassLoader classLoader) {
+		tracked.add(new TrackedClassLoader(description, classLoader, queue));
+	}
+
+	/**
+	 * Get the number of classloaders that are tracked, and that have not been collected yet.
+	 *
+	 * @return The number of classloaders.
+	 */
+	int getTrackedCount() {
+		drain();
+		return tracked.size();
+	}
+
+	/**
+	 * Wait for tracked classloaders to be garbage collected, and returns the leaks: tests whose classloader is
+	 * still reachable after the timeout.
+	 * Classloaders kept on purpose by the holder (i.e idle classloaders of a pool) are not reported.
+	 *
+	 * @param holder The classloader holder.
+	 * @return The leaks, empty if all classloaders have been collected.
+	 * @throws InterruptedException If the current thread is interrupted while waiting.
+	 */
+	List<Leak> check(ClassLoaderHolder holder) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+		while (getTrackedCount() > 0 && System.nanoTime() < deadline) {
+			System.gc();
+
+			Reference<? extends ClassLoader> reference = queue.remove(POLL_INTERVAL_MILLIS);
+			if (reference != null) {
+				tracked.remove(reference);
+			}
+		}
+
+		List<TrackedClassLoader> remaining;
+		synchronized (tracked) {
+			remaining = new ArrayList<>(tracked);
+			tracked.clear();
+		}
+
+		List<Leak> leaks = new ArrayList<>();
+		for (TrackedClassLoader reference : remaining) {
+			ClassLoader classLoader = reference.get();
+			if (classLoader != null && !isPooled(holder, classLoader)) {
+				leaks.add(new Leak(reference.description, hint(classLoader)));
+			}
+		}
+
+		return leaks;
+	}
+
+	/**
+	 * Remove references to collected classloaders.
+	 */
+	private void drain() {
+		Reference<? extends ClassLoader> reference;
+		while ((reference = queue.poll()) != null) {
+			tracked.remove(reference);
+		}
+	}
+
+	private static boolean isPooled(ClassLoaderHolder holder, ClassLoader classLoader) {
+		ClassLoaderHolder delegate = holder instanceof ScopedClassLoaderHolder ? ((ScopedClassLoaderHolder) holder).getDelegate() : holder;
+		return delegate instanceof AbstractClassLoaderHolder && ((AbstractClassLoaderHolder) delegate).isPooled(classLoader);
+	}
+
+	/**
+	 * Find a hint explaining why a classloader is still reachable.
+	 * A heap dump is needed to find the exact path to the classloader: only the most common cause, threads
+	 * still running with (or started from) the classloader, can be detected here.
+	 *
+	 * @param classLoader The classloader.
+	 * @return The hint.
+	 */
+	private static String hint(ClassLoader classLoader) {
+		List<String> threads = new ArrayList<>();
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getContextClassLoader() == classLoader || thread.getClass().getClassLoader() == classLoader) {
+				threads.add(thread.getName());
+			}
+		}
+
+		if (!threads.isEmpty()) {
+			return "classloader is still used by thread(s) " + threads;
+		}
+
+		return "classloader is probably referenced by a static field, a cache or a registry of a class loaded by a parent classloader (take a heap dump to find the path to the classloader)";
+	}
+
+	/**
+	 * A test whose classloader has not been garbage collected.
+	 */
+	static final class Leak {
+		/**
+		 * The test description.
+		 */
+		private final Description description;
+
+		/**
+		 * A hint explaining why the classloader is still reachable.
+		 */
+		private final String hint;
+
+		private Leak(Description description, String hint) {
+			this.description = description;
+			this.hint = hint;
+		}
+
+		/**
+		 * Get the test description.
+		 *
+		 * @return The test description.
+		 */
+		Description getDescription() {
+			return description;
+		}
+
+		/**
+		 * Get the hint explaining why the classloader is still reachable.
+		 *
+		 * @return The hint.
+		 */
+		String getHint() {
+			return hint;
+		}
+
+		@Override
+		public String toString() {
+			return "Classloader of test " + description.getDisplayName() + " has not been garbage collected: " + hint;
+		}
+	}
+
+	/**
+	 * A weak reference to the classloader of a test.
+	 */
+	private static final class TrackedClassLoader extends WeakReference<ClassLoader> {
+		/**
+		 * The test description.
+		 */
+		private final Description description;
+
+		private TrackedClassLoader(Description description, ClassLoader classLoader, ReferenceQueue<ClassLoader> queue) {
+			super(classLoader, queue);
+			this.description = description;
+		}
+	}
+}
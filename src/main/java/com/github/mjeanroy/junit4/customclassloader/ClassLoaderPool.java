@@ -0,0 +1,189 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of classloaders created by a {@link AbstractClassLoaderHolder}.
+ *
+ * Idle classloaders are created ahead of time by a background thread, so that creating the classloader
+ * of the next test overlaps with the execution of the current test. Classloaders given back to the pool
+ * are reused only if the holder is able to reset them.
+ */
+final class ClassLoaderPool {
+
+	/**
+	 * The executor creating classloaders in the background, shared by all pools.
+	 * Its single thread is a daemon thread, stopped when idle.
+	 */
+	private static final ExecutorService FACTORY = newFactory();
+
+	/**
+	 * The holder creating (and resetting) classloaders.
+	 */
+	private final AbstractClassLoaderHolder holder;
+
+	/**
+	 * The idle classloaders.
+	 */
+	private final BlockingQueue<ClassLoader> idle;
+
+	/**
+	 * The classloaders currently used by a test, and that may be returned to the pool.
+	 * Classloaders are weakly referenced, so a classloader that is never given back can still be garbage collected.
+	 */
+	private final Set<ClassLoader> leased;
+
+	/**
+	 * Flag to indicate that a background task is currently filling the pool.
+	 */
+	private final AtomicBoolean filling;
+
+	/**
+	 * Create the pool.
+	 *
+	 * @param holder The holder creating the classloaders.
+	 * @param size The maximum number of idle classloaders.
+	 */
+	ClassLoaderPool(AbstractClassLoaderHolder holder, int size) {
+		this.holder = holder;
+		this.idle = new LinkedBlockingQueue<>(size);
+		this.leased = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<ClassLoader, Boolean>()));
+		this.filling = new AtomicBoolean(false);
+	}
+
+	/**
+	 * Take a classloader from the pool, or create a new one if the pool is empty.
+	 * The pool is filled again in the background.
+	 *
+	 * @return The classloader.
+	 */
+	ClassLoader acquire() {
+		ClassLoader classLoader = idle.poll();
+		if (classLoader == null) {
+			classLoader = holder.createClassLoader();
+		}
+
+		leased.add(classLoader);
+		fill();
+		return classLoader;
+	}
+
+	/**
+	 * Give back a classloader to the pool: it is reset and kept for a next test if possible, otherwise it is
+	 * discarded.
+	 * Classloaders that have not been returned by {@link #acquire()}, or that are retained, are ignored.
+	 *
+	 * @param classLoader The classloader.
+	 * @return {@code true} if the classloader has been reset and returned to the pool, {@code false} otherwise.
+	 */
+	boolean release(ClassLoader classLoader) {
+		if (classLoader == null || !leased.remove(classLoader)) {
+			return false;
+		}
+
+		return holder.resetClassLoader(classLoader) && idle.offer(classLoader);
+	}
+
+	/**
+	 * Retain a classloader: it will never be given back to the pool (for example because it is shared by
+	 * several tests).
+	 *
+	 * @param classLoader The classloader.
+	 */
+	void retain(ClassLoader classLoader) {
+		leased.remove(classLoader);
+	}
+
+	/**
+	 * Check if given classloader is an idle classloader of the pool.
+	 *
+	 * @param classLoader The classloader.
+	 * @return {@code true} if the classloader is idle, {@code false} otherwise.
+	 */
+	boolean isIdle(ClassLoader classLoader) {
+		return idle.contains(classLoader);
+	}
+
+	/**
+	 * Get the number of idle classloaders.
+	 *
+	 * @return The number of idle classloaders.
+	 */
+	int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * Create classloaders in the background until the pool is full.
+	 * Nothing is done if the pool is full, or if it is already being filled.
+	 */
+	void fill() {
+		if (idle.remainingCapacity() == 0 || !filling.compareAndSet(false, true)) {
+			return;
+		}
+
+		FACTORY.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (idle.remainingCapacity() > 0) {
+						if (!idle.offer(holder.createClassLoader())) {
+							break;
+						}
+					}
+				} finally {
+					filling.set(false);
+				}
+			}
+		});
+	}
+
+	private static ExecutorService newFactory() {
+		final AtomicInteger counter = new AtomicInteger(0);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "JUnit-classloader-factory-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
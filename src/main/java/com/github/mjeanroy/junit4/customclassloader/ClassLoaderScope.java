@@ -0,0 +1,52 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+/**
+ * How often the {@link CustomClassLoaderRunner} asks the {@link ClassLoaderHolder} for a new classloader.
+ *
+ * Reusing a classloader avoids loading (and defining, with an isolating classloader) the same classes
+ * again for each unit test method, at the cost of isolation: static state of classes loaded by a shared
+ * classloader, and changes made to the classloader itself (such as blacklist rules), are visible to the
+ * following tests.
+ */
+public enum ClassLoaderScope {
+
+	/**
+	 * A new classloader is created for each unit test method.
+	 */
+	METHOD,
+
+	/**
+	 * A classloader is created once per test class, and shared by all its unit test methods.
+	 */
+	CLASS,
+
+	/**
+	 * A classloader is created once per {@link ClassLoaderHolder} class, and shared by all test classes
+	 * using this holder, for the lifetime of the JVM.
+	 */
+	SUITE
+}
@@ -0,0 +1,173 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class loading metrics of a classloader: number of requested, loaded (distinct), delegated, denied and defined classes,
+ * time spent loading classes, size of the bytecode of defined classes and, when static initializers
+ * are profiled, number of initialized classes and time spent in static initializers.
+ *
+ * Metrics are cumulative for the lifetime of the classloader, use {@link #snapshot()} to get the metrics
+ * of a given period of time (for example, a single test).
+ */
+final class ClassLoadingMetrics {
+
+	private static final int REQUESTED = 0;
+	private static final int DELEGATED = 1;
+	private static final int DENIED = 2;
+	private static final int DEFINED = 3;
+	private static final int DEFINED_BYTES = 4;
+	private static final int LOAD_TIME = 5;
+	private static final int INITIALIZED = 6;
+	private static final int INIT_TIME = 7;
+
+	/**
+	 * The nesting level of class loading calls in the current thread: loading a class may trigger the loading
+	 * of other classes (such as its super class), only the outermost call is timed.
+	 */
+	private static final ThreadLocal<int[]> DEPTH = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+
+	/**
+	 * Get the metrics of given classloader.
+	 *
+	 * @param classLoader The classloader.
+	 * @return The metrics, {@code null} if the classloader does not record any metrics.
+	 */
+	static ClassLoadingMetrics of(ClassLoader classLoader) {
+		return classLoader instanceof InstrumentedClassLoader ? ((InstrumentedClassLoader) classLoader).getMetrics() : null;
+	}
+
+	/**
+	 * The counters.
+	 */
+	private final StripedCounters counters;
+
+	/**
+	 * The names of the classes loaded through the classloader (its size is the number of loaded classes).
+	 */
+	private final Set<String> loadedClasses;
+
+	/**
+	 * Create empty metrics.
+	 */
+	ClassLoadingMetrics() {
+		this.counters = new StripedCounters(8);
+		this.loadedClasses = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	}
+
+	/**
+	 * Record the start of a {@code loadClass} call.
+	 *
+	 * @return The start time, to give to {@link #end(long)}.
+	 */
+	long start() {
+		counters.add(REQUESTED, 1);
+		return DEPTH.get()[0]++ == 0 ? System.nanoTime() : -1;
+	}
+
+	/**
+	 * Record the end of a {@code loadClass} call.
+	 *
+	 * @param start The value returned by {@link #start()}.
+	 */
+	void end(long start) {
+		DEPTH.get()[0]--;
+		if (start >= 0) {
+			counters.add(LOAD_TIME, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Record a class delegated to the parent classloader.
+	 */
+	void delegated() {
+		counters.add(DELEGATED, 1);
+	}
+
+	/**
+	 * Record a class successfully loaded through the classloader (delegated or defined): a class is only
+	 * counted the first time it is loaded.
+	 *
+	 * @param name The class name.
+	 */
+	void loaded(String name) {
+		loadedClasses.add(name);
+	}
+
+	/**
+	 * Record a class denied by the classloader.
+	 */
+	void denied() {
+		counters.add(DENIED, 1);
+	}
+
+	/**
+	 * Record a class defined by the classloader.
+	 *
+	 * @param bytes The size of the class bytecode.
+	 */
+	void defined(int bytes) {
+		counters.add(DEFINED, 1);
+		counters.add(DEFINED_BYTES, bytes);
+	}
+
+	/**
+	 * Record a class initialized by the classloader.
+	 *
+	 * @param initTimeNanos The time spent in the static initializer of the class (excluding static initializers of other classes).
+	 */
+	void initialized(long initTimeNanos) {
+		counters.add(INITIALIZED, 1);
+		counters.add(INIT_TIME, initTimeNanos);
+	}
+
+	/**
+	 * Get the current values.
+	 *
+	 * @return The current values.
+	 */
+	ClassLoadingStats snapshot() {
+		return new ClassLoadingStats(
+				counters.get(REQUESTED),
+				loadedClasses.size(),
+				counters.get(DELEGATED),
+				counters.get(DENIED),
+				counters.get(DEFINED),
+				counters.get(DEFINED_BYTES),
+				counters.get(LOAD_TIME),
+				counters.get(INITIALIZED),
+				counters.get(INIT_TIME)
+		);
+	}
+}
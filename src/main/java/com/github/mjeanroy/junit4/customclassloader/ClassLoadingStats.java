@@ -0,0 +1,223 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+/**
+ * Class loading metrics values, at a given point in time or for a given period of time.
+ */
+final class ClassLoadingStats {
+
+	/**
+	 * Empty values.
+	 */
+	static final ClassLoadingStats EMPTY = new ClassLoadingStats(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+	/**
+	 * The number of classes requested to the classloader.
+	 */
+	private final long requested;
+
+	/**
+	 * The number of distinct classes loaded through the classloader (delegated or defined) for the first time.
+	 */
+	private final long loaded;
+
+	/**
+	 * The number of classes delegated to the parent classloader.
+	 */
+	private final long delegated;
+
+	/**
+	 * The number of classes denied by the classloader.
+	 */
+	private final long denied;
+
+	/**
+	 * The number of classes defined by the classloader.
+	 */
+	private final long defined;
+
+	/**
+	 * The size of the bytecode of defined classes, in bytes.
+	 */
+	private final long definedBytes;
+
+	/**
+	 * The time spent loading classes, in nanoseconds.
+	 */
+	private final long loadTimeNanos;
+
+	/**
+	 * The number of classes initialized by the classloader (only when static initializers are profiled).
+	 */
+	private final long initialized;
+
+	/**
+	 * The time spent in static initializers, in nanoseconds (only when static initializers are profiled).
+	 */
+	private final long initTimeNanos;
+
+	/**
+	 * Create the values.
+	 *
+	 * @param requested The number of requested classes.
+	 * @param loaded The number of distinct classes loaded for the first time.
+	 * @param delegated The number of delegated classes.
+	 * @param denied The number of denied classes.
+	 * @param defined The number of defined classes.
+	 * @param definedBytes The size of the bytecode of defined classes, in bytes.
+	 * @param loadTimeNanos The time spent loading classes, in nanoseconds.
+	 * @param initialized The number of initialized classes.
+	 * @param initTimeNanos The time spent in static initializers, in nanoseconds.
+	 */
+	ClassLoadingStats(long requested, long loaded, long delegated, long denied, long defined, long definedBytes, long loadTimeNanos, long initialized, long initTimeNanos) {
+		this.requested = requested;
+		this.loaded = loaded;
+		this.delegated = delegated;
+		this.denied = denied;
+		this.defined = defined;
+		this.definedBytes = definedBytes;
+		this.loadTimeNanos = loadTimeNanos;
+		this.initialized = initialized;
+		this.initTimeNanos = initTimeNanos;
+	}
+
+	/**
+	 * Get the number of classes requested to the classloader.
+	 *
+	 * @return The number of requested classes.
+	 */
+	long getRequested() {
+		return requested;
+	}
+
+	/**
+	 * Get the number of distinct classes loaded through the classloader for the first time: unlike the number of
+	 * requested classes, a class requested several times is only counted once.
+	 *
+	 * @return The number of loaded classes.
+	 */
+	long getLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Get the number of classes delegated to the parent classloader.
+	 *
+	 * @return The number of delegated classes.
+	 */
+	long getDelegated() {
+		return delegated;
+	}
+
+	/**
+	 * Get the number of classes denied by the classloader.
+	 *
+	 * @return The number of denied classes.
+	 */
+	long getDenied() {
+		return denied;
+	}
+
+	/**
+	 * Get the number of classes defined by the classloader.
+	 *
+	 * @return The number of defined classes.
+	 */
+	long getDefined() {
+		return defined;
+	}
+
+	/**
+	 * Get the size of the bytecode of defined classes.
+	 *
+	 * @return The size, in bytes.
+	 */
+	long getDefinedBytes() {
+		return definedBytes;
+	}
+
+	/**
+	 * Get the time spent loading classes.
+	 *
+	 * @return The time, in nanoseconds.
+	 */
+	long getLoadTimeNanos() {
+		return loadTimeNanos;
+	}
+
+	/**
+	 * Get the number of classes initialized by the classloader.
+	 *
+	 * @return The number of initialized classes.
+	 */
+	long getInitialized() {
+		return initialized;
+	}
+
+	/**
+	 * Get the time spent in static initializers.
+	 *
+	 * @return The time, in nanoseconds.
+	 */
+	long getInitTimeNanos() {
+		return initTimeNanos;
+	}
+
+	/**
+	 * Compute the difference between these values and previous values.
+	 *
+	 * @param previous The previous values.
+	 * @return The difference.
+	 */
+	ClassLoadingStats minus(ClassLoadingStats previous) {
+		return new ClassLoadingStats(
+				requested - previous.requested,
+				loaded - previous.loaded,
+				delegated - previous.delegated,
+				denied - previous.denied,
+				defined - previous.defined,
+				definedBytes - previous.definedBytes,
+				loadTimeNanos - previous.loadTimeNanos,
+				initialized - previous.initialized,
+				initTimeNanos - previous.initTimeNanos
+		);
+	}
+
+	@Override
+	public String toString() {
+		return "ClassLoadingStats{" +
+				"requested=" + requested +
+				", loaded=" + loaded +
+				", delegated=" + delegated +
+				", denied=" + denied +
+				", defined=" + defined +
+				", definedBytes=" + definedBytes +
+				", loadTimeNanos=" + loadTimeNanos +
+				", initialized=" + initialized +
+				", initTimeNanos=" + initTimeNanos +
+				"}";
+	}
+}
@@ -0,0 +1,449 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A set of class name rules.
+ *
+ * Supported rules are:
+ * <ul>
+ *   <li>Exact class names, such as {@code com.fasterxml.jackson.databind.ObjectMapper}.</li>
+ *   <li>Package rules, such as {@code com.fasterxml.jackson.databind.*}: matches all classes of a package (but not classes of sub-packages).</li>
+ *   <li>Prefix rules, such as {@code com.fasterxml.jackson.**}: matches all classes of a package and all its sub-packages.</li>
+ *   <li>Glob rules, where {@code *} matches any sequence of characters except a dot, {@code **} matches any sequence of characters and {@code ?} matches a single character except a dot.</li>
+ * </ul>
+ *
+ * Exact class names are stored in a hash set, and the literal part of other rules (i.e everything before
+ * the first wildcard) is compiled into a radix tree: a lookup is proportional to the length of the class name,
+ * whatever the number of rules.
+ *
+ * The radix tree is immutable and replaced each time a rule is added, so reading rules never blocks, even
+ * when rules are added concurrently.
+ *
+ * Very large rule sets (such as blacklists generated from a dependency tree) should be added at once, using
+ * {@link #addAll(Collection)}, and then frozen: exact class names are then copied to a compact immutable set,
+ * behind a {@link BloomFilter}, so that looking up a name that is not matched (by far the most common case)
+ * usually costs a couple of bit probes.
+ */
+final class ClassNameMatcher {
+	/**
+	 * The exact class names.
+	 */
+	private volatile Set<String> names;
+
+	/**
+	 * The root of the radix tree.
+	 */
+	private volatile Node root;
+
+	/**
+	 * The Bloom filter of exact class names, {@code null} until the matcher is frozen.
+	 */
+	private volatile BloomFilter bloomFilter;
+
+	/**
+	 * Create an empty matcher.
+	 */
+	ClassNameMatcher() {
+		this.names = newConcurrentSet();
+		this.root = Node.EMPTY;
+	}
+
+	/**
+	 * Add new rule.
+	 *
+	 * @param rule The rule.
+	 * @throws NullPointerException If {@code rule} is {@code null}.
+	 * @throws IllegalArgumentException If {@code rule} is empty.
+	 * @throws IllegalStateException If the matcher is frozen.
+	 */
+	synchronized void add(String rule) {
+		addAll(Collections.singletonList(rule));
+	}
+
+	/**
+	 * Add new rules: the radix tree is rebuilt once, whatever the number of rules.
+	 *
+	 * @param rules The rules.
+	 * @throws NullPointerException If one of the rules is {@code null}.
+	 * @throws IllegalArgumentException If one of the rules is empty.
+	 * @throws IllegalStateException If the matcher is frozen.
+	 */
+	synchronized void addAll(Collection<String> rules) {
+		if (bloomFilter != null) {
+			throw new IllegalStateException("Cannot add rules to a frozen matcher");
+		}
+
+		for (String rule : rules) {
+			if (rule == null) {
+				throw new NullPointerException("Rule must not be null");
+			}
+
+			if (rule.isEmpty()) {
+				throw new IllegalArgumentException("Rule must not be empty");
+			}
+		}
+
+		Node newRoot = root;
+		for (String rule : rules) {
+			int wildcard = indexOfWildcard(rule);
+			if (wildcard < 0) {
+				names.add(rule);
+			}
+			else {
+				newRoot = Node.insert(newRoot, rule.substring(0, wildcard), 0, rule.substring(wildcard));
+			}
+		}
+
+		this.root = newRoot;
+	}
+
+	/**
+	 * Freeze the matcher: rules cannot be added anymore (until {@link #clear()} is called), and exact class names
+	 * are indexed by a Bloom filter.
+	 */
+	synchronized void freeze() {
+		if (bloomFilter != null) {
+			return;
+		}
+
+		// Never modified once frozen: a plain hash set is safe to read concurrently.
+		Set<String> frozenNames = new HashSet<>(names);
+		this.names = frozenNames;
+		this.bloomFilter = new BloomFilter(frozenNames);
+	}
+
+	/**
+	 * Check if the matcher is frozen.
+	 *
+	 * @return {@code true} if the matcher is frozen, {@code false} otherwise.
+	 */
+	boolean isFrozen() {
+		return bloomFilter != null;
+	}
+
+	/**
+	 * Remove all rules (a frozen matcher is not frozen anymore).
+	 */
+	synchronized void clear() {
+		this.bloomFilter = null;
+		this.names = newConcurrentSet();
+		this.root = Node.EMPTY;
+	}
+
+	/**
+	 * Check if given class name is matched by at least one of the rules.
+	 *
+	 * @param name The class name.
+	 * @return {@code true} if the class name is matched, {@code false} otherwise.
+	 */
+	boolean matches(String name) {
+		BloomFilter bloomFilter = this.bloomFilter;
+		if ((bloomFilter == null || bloomFilter.mightContain(name)) && names.contains(name)) {
+			return true;
+		}
+
+		int length = name.length();
+		int offset = 0;
+		Node node = root;
+
+		while (true) {
+			if ((node.prefix && offset < length) || node.matchesGlob(name, offset)) {
+				return true;
+			}
+
+			if (offset == length) {
+				return false;
+			}
+
+			node = node.child(name.charAt(offset));
+			if (node == null || !name.regionMatches(offset, node.edge, 0, node.edge.length())) {
+				return false;
+			}
+
+			offset += node.edge.length();
+		}
+	}
+
+	private static Set<String> newConcurrentSet() {
+		return Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	}
+
+	/**
+	 * Find the index of the first wildcard character in given rule.
+	 *
+	 * @param rule The rule.
+	 * @return The index of the first wildcard, {@code -1} if rule does not contain any wildcard.
+	 */
+	private static int indexOfWildcard(String rule) {
+		for (int i = 0; i < rule.length(); i++) {
+			char c = rule.charAt(i);
+			if (c == '*' || c == '?') {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Check if the glob pattern, starting at {@code p}, matches the name, starting at {@code n}.
+	 *
+	 * @param pattern The glob pattern.
+	 * @param p The current index in the pattern.
+	 * @param name The class name.
+	 * @param n The current index in the class name.
+	 * @return {@code true} if the rest of the name matches the rest of the pattern, {@code false} otherwise.
+	 */
+	private static boolean matchesGlob(String pattern, int p, String name, int n) {
+		int patternLength = pattern.length();
+		int nameLength = name.length();
+
+		while (p < patternLength) {
+			char c = pattern.charAt(p);
+
+			if (c == '*') {
+				boolean doubleStar = p + 1 < patternLength && pattern.charAt(p + 1) == '*';
+				int next = doubleStar ? p + 2 : p + 1;
+
+				for (int i = n; i <= nameLength; i++) {
+					if (matchesGlob(pattern, next, name, i)) {
+						return true;
+					}
+
+					// A single star cannot go over a package separator.
+					if (!doubleStar && i < nameLength && name.charAt(i) == '.') {
+						return false;
+					}
+				}
+
+				return false;
+			}
+
+			if (n >= nameLength) {
+				return false;
+			}
+
+			char current = name.charAt(n);
+			if (c == '?' ? current == '.' : current != c) {
+				return false;
+			}
+
+			p++;
+			n++;
+		}
+
+		return n == nameLength;
+	}
+
+	/**
+	 * An immutable node of the radix tree.
+	 */
+	private static final class Node {
+		private static final char[] NO_KEYS = new char[0];
+		private static final Node[] NO_CHILDREN = new Node[0];
+		private static final String[] NO_GLOBS = new String[0];
+
+		/**
+		 * The empty tree.
+		 */
+		private static final Node EMPTY = new Node("", NO_KEYS, NO_CHILDREN, false, NO_GLOBS);
+
+		/**
+		 * The label of the edge leading to this node.
+		 */
+		private final String edge;
+
+		/**
+		 * The first character of each child edge, sorted.
+		 */
+		private final char[] keys;
+
+		/**
+		 * The children nodes, in the same order as {@link #keys}.
+		 */
+		private final Node[] children;
+
+		/**
+		 * Flag to indicate that any name going through this node is matched.
+		 */
+		private final boolean prefix;
+
+		/**
+		 * The glob patterns that must match the rest of the name, once this node is reached.
+		 */
+		private final String[] globs;
+
+		private Node(String edge, char[] keys, Node[] children, boolean prefix, String[] globs) {
+			this.edge = edge;
+			this.keys = keys;
+			this.children = children;
+			this.prefix = prefix;
+			this.globs = globs;
+		}
+
+		/**
+		 * Get the child node whose edge starts with given character.
+		 *
+		 * @param c The character.
+		 * @return The child node, {@code null} if it does not exist.
+		 */
+		private Node child(char c) {
+			int index = Arrays.binarySearch(keys, c);
+			return index < 0 ? null : children[index];
+		}
+
+		/**
+		 * Check if one of the glob patterns attached to this node matches the rest of the name.
+		 *
+		 * @param name The class name.
+		 * @param offset The index of the rest of the name.
+		 * @return {@code true} if one of the glob pattern matches, {@code false} otherwise.
+		 */
+		private boolean matchesGlob(String name, int offset) {
+			for (String glob : globs) {
+				if (ClassNameMatcher.matchesGlob(glob, 0, name, offset)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * Returns a copy of this node with the given pattern attached to it.
+		 *
+		 * @param pattern The pattern.
+		 * @return The new node.
+		 */
+		private Node withPattern(String pattern) {
+			if (pattern.equals("**")) {
+				return new Node(edge, keys, children, true, globs);
+			}
+
+			String[] newGlobs = Arrays.copyOf(globs, globs.length + 1);
+			newGlobs[globs.length] = pattern;
+			return new Node(edge, keys, children, prefix, newGlobs);
+		}
+
+		/**
+		 * Returns a copy of this node with a new edge label.
+		 *
+		 * @param newEdge The new edge label.
+		 * @return The new node.
+		 */
+		private Node withEdge(String newEdge) {
+			return new Node(newEdge, keys, children, prefix, globs);
+		}
+
+		/**
+		 * Returns a copy of this node where the child at given index is replaced.
+		 *
+		 * @param index The child index.
+		 * @param child The new child.
+		 * @return The new node.
+		 */
+		private Node withChild(int index, Node child) {
+			Node[] newChildren = children.clone();
+			newChildren[index] = child;
+			return new Node(edge, keys, newChildren, prefix, globs);
+		}
+
+		/**
+		 * Returns a copy of this node with a new child inserted at given index.
+		 *
+		 * @param index The insertion index.
+		 * @param child The new child.
+		 * @return The new node.
+		 */
+		private Node withNewChild(int index, Node child) {
+			int size = keys.length;
+
+			char[] newKeys = new char[size + 1];
+			System.arraycopy(keys, 0, newKeys, 0, index);
+			System.arraycopy(keys, index, newKeys, index + 1, size - index);
+			newKeys[index] = child.edge.charAt(0);
+
+			Node[] newChildren = new Node[size + 1];
+			System.arraycopy(children, 0, newChildren, 0, index);
+			System.arraycopy(children, index, newChildren, index + 1, size - index);
+			newChildren[index] = child;
+
+			return new Node(edge, newKeys, newChildren, prefix, globs);
+		}
+
+		/**
+		 * Insert a pattern in the tree: nodes along the insertion path are copied, other nodes are shared
+		 * with the original tree.
+		 *
+		 * @param node The root of the (sub-)tree.
+		 * @param path The literal part of the rule.
+		 * @param offset The index of the rest of the path, below this node.
+		 * @param pattern The pattern to attach.
+		 * @return The root of the new (sub-)tree.
+		 */
+		private static Node insert(Node node, String path, int offset, String pattern) {
+			if (offset == path.length()) {
+				return node.withPattern(pattern);
+			}
+
+			int index = Arrays.binarySearch(node.keys, path.charAt(offset));
+			if (index < 0) {
+				Node leaf = new Node(path.substring(offset), NO_KEYS, NO_CHILDREN, false, NO_GLOBS);
+				return node.withNewChild(-index - 1, leaf.withPattern(pattern));
+			}
+
+			Node child = node.children[index];
+			String edge = child.edge;
+			int common = commonPrefixLength(edge, path, offset);
+
+			if (common == edge.length()) {
+				return node.withChild(index, insert(child, path, offset + common, pattern));
+			}
+
+			// Split the edge: the new intermediate node becomes the parent of the existing child.
+			Node lower = child.withEdge(edge.substring(common));
+			Node middle = new Node(edge.substring(0, common), new char[] { lower.edge.charAt(0) }, new Node[] { lower }, false, NO_GLOBS);
+			return node.withChild(index, insert(middle, path, offset + common, pattern));
+		}
+
+		private static int commonPrefixLength(String edge, String path, int offset) {
+			int max = Math.min(edge.length(), path.length() - offset);
+			int i = 0;
+			while (i < max && edge.charAt(i) == path.charAt(offset + i)) {
+				i++;
+			}
+
+			return i;
+		}
+	}
+}
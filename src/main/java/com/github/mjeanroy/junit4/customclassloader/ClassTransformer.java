@@ -0,0 +1,55 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+/**
+ * A transformation applied to the bytecode of classes defined by a {@link TransformingClassLoader}, for example
+ * to inject faults, add tracing or stub methods (similar to {@link java.lang.instrument.ClassFileTransformer}).
+ *
+ * Transformed bytecode is cached (see {@link TransformingClassLoaderHolder}), so a transformer must always
+ * return the same output for the same input: the output must only depend on the class name, on the given
+ * bytecode and on the {@link #cacheKey() cache key} of the transformer.
+ */
+public interface ClassTransformer {
+
+	/**
+	 * Transform the bytecode of a class.
+	 *
+	 * @param className The class name (fully qualified name).
+	 * @param bytecode The bytecode, that must not be modified.
+	 * @return The transformed bytecode, {@code null} if the class is not transformed.
+	 * @throws Exception If the class cannot be transformed.
+	 */
+	byte[] transform(String className, byte[] bytecode) throws Exception;
+
+	/**
+	 * Get the key identifying the output of this transformer in the disk cache: it must change whenever the
+	 * transformer (or its configuration, or a library it uses) changes the output for the same input, for
+	 * example a version number followed by the configuration values.
+	 *
+	 * @return The cache key, {@code null} to never cache the output of this transformer on disk.
+	 */
+	String cacheKey();
+}
@@ -0,0 +1,280 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * The view of the JVM classpath without some of its entries (jar files or directories).
+ *
+ * Entries are given by their file name, such as {@code guava-*.jar} ({@code *} matches any sequence of characters),
+ * or by their Maven coordinates, such as {@code com.google.guava:guava} or {@code com.google.guava:guava:20.0}.
+ * A Maven coordinate matches a jar stored in a Maven repository layout, or an entry containing the
+ * {@code META-INF/maven/groupId/artifactId} directory (a version is only matched using the repository layout).
+ *
+ * Excluded entries are resolved with the {@link ClasspathIndex} once per JVM for each list of entries:
+ * <ul>
+ *   <li>Packages that can only be found in excluded entries are hidden: checking a class of such a package is a single hash lookup.</li>
+ *   <li>Packages that can be found in both excluded and visible entries (i.e split packages) are checked class per class, using the index.</li>
+ *   <li>Other packages are visible.</li>
+ * </ul>
+ *
+ * JDK classes are never hidden, even if an excluded entry ships the same package (for example, {@code org.w3c.dom}
+ * in xml-apis): a class that would be hidden is checked once with the platform classloader.
+ */
+final class ClasspathExclusion {
+
+	/**
+	 * The exclusions, created once per JVM for each list of entries.
+	 */
+	private static final ConcurrentMap<List<String>, ClasspathExclusion> INSTANCES = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the exclusion of given entries in the JVM classpath.
+	 *
+	 * @param entries The excluded entries: file names or Maven coordinates.
+	 * @return The exclusion.
+	 * @throws IllegalArgumentException If an entry cannot be found in the classpath.
+	 */
+	static ClasspathExclusion of(String... entries) {
+		List<String> key = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(entries)));
+		ClasspathExclusion exclusion = INSTANCES.get(key);
+		if (exclusion == null) {
+			ClasspathExclusion newExclusion = new ClasspathExclusion(ClasspathIndex.getInstance(), key);
+			exclusion = INSTANCES.putIfAbsent(key, newExclusion);
+			if (exclusion == null) {
+				exclusion = newExclusion;
+			}
+		}
+
+		return exclusion;
+	}
+
+	/**
+	 * The classpath index.
+	 */
+	private final ClasspathIndex index;
+
+	/**
+	 * The excluded classpath entries.
+	 */
+	private final Set<File> excluded;
+
+	/**
+	 * The packages that can only be found in excluded entries.
+	 */
+	private final Set<String> hiddenPackages;
+
+	/**
+	 * The packages that can be found in both excluded and visible entries.
+	 */
+	private final Set<String> splitPackages;
+
+	/**
+	 * The resource directories that can only be found in excluded entries.
+	 */
+	private final Set<String> hiddenDirectories;
+
+	/**
+	 * The resource directories that can be found in both excluded and visible entries.
+	 */
+	private final Set<String> splitDirectories;
+
+	/**
+	 * The URL prefix of resources of excluded entries.
+	 */
+	private final List<String> urlPrefixes;
+
+	/**
+	 * Create the exclusion.
+	 *
+	 * @param index The classpath index.
+	 * @param entries The excluded entries: file names or Maven coordinates.
+	 * @throws IllegalArgumentException If an entry cannot be found in the classpath.
+	 */
+	ClasspathExclusion(ClasspathIndex index, List<String> entries) {
+		this.index = index;
+		this.excluded = resolve(index, entries);
+		this.hiddenPackages = new HashSet<>();
+		this.splitPackages = new HashSet<>();
+		this.hiddenDirectories = new HashSet<>();
+		this.splitDirectories = new HashSet<>();
+		this.urlPrefixes = new ArrayList<>(excluded.size());
+
+		for (File file : excluded) {
+			urlPrefixes.add(urlPrefix(file));
+
+			for (String directory : index.getDirectories(file)) {
+				if (hiddenDirectories.contains(directory) || splitDirectories.contains(directory)) {
+					continue;
+				}
+
+				boolean split = !excluded.containsAll(index.getEntries(directory));
+				String packageName = directory.replace('/', '.');
+				if (split) {
+					splitDirectories.add(directory);
+					splitPackages.add(packageName);
+				}
+				else {
+					hiddenDirectories.add(directory);
+					hiddenPackages.add(packageName);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the excluded classpath entries.
+	 *
+	 * @return The excluded entries.
+	 */
+	Set<File> getExcludedEntries() {
+		return Collections.unmodifiableSet(excluded);
+	}
+
+	/**
+	 * Check if a class can only be found in excluded entries.
+	 *
+	 * @param className The class name.
+	 * @return {@code true} if the class is hidden, {@code false} otherwise.
+	 */
+	boolean isHiddenClass(String className) {
+		int dot = className.lastIndexOf('.');
+		String packageName = dot < 0 ? "" : className.substring(0, dot);
+		boolean hidden = hiddenPackages.contains(packageName) || (splitPackages.contains(packageName) && index.findEntry(className.replace('.', '/') + ".class", excluded) == null);
+		return hidden && !PlatformClasses.contains(className);
+	}
+
+	/**
+	 * Check if a resource can only be found in excluded entries.
+	 *
+	 * @param name The resource name.
+	 * @return {@code true} if the resource is hidden, {@code false} otherwise.
+	 */
+	boolean isHiddenResource(String name) {
+		String directory = ClasspathIndex.directoryOf(name);
+		if (hiddenDirectories.contains(directory)) {
+			return true;
+		}
+
+		return splitDirectories.contains(directory) && index.findEntry(name, excluded) == null;
+	}
+
+	/**
+	 * Check if a resource URL belongs to an excluded entry.
+	 *
+	 * @param url The resource URL.
+	 * @return {@code true} if the URL is excluded, {@code false} otherwise.
+	 */
+	boolean isExcluded(URL url) {
+		String value = url.toString();
+		for (String urlPrefix : urlPrefixes) {
+			if (value.startsWith(urlPrefix)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static Set<File> resolve(ClasspathIndex index, List<String> entries) {
+		List<File> classpath = index.getClasspath();
+		Set<File> excluded = new LinkedHashSet<>();
+		for (String entry : entries) {
+			boolean found = false;
+			for (File file : classpath) {
+				if (matches(index, entry, file)) {
+					excluded.add(file);
+					found = true;
+				}
+			}
+
+			if (!found) {
+				throw new IllegalArgumentException("Cannot find classpath entry matching: " + entry);
+			}
+		}
+
+		return excluded;
+	}
+
+	private static boolean matches(ClasspathIndex index, String entry, File file) {
+		String[] coordinates = entry.split(":");
+		if (coordinates.length == 1) {
+			return toPattern(entry).matcher(file.getName()).matches();
+		}
+
+		if (coordinates.length > 3) {
+			throw new IllegalArgumentException("Classpath entry must be a file name or Maven coordinates (such as 'groupId:artifactId' or 'groupId:artifactId:version'): " + entry);
+		}
+
+		String groupId = coordinates[0];
+		String artifactId = coordinates[1];
+		String path = groupId.replace('.', '/') + "/" + artifactId + "/";
+		if (coordinates.length == 3) {
+			path += coordinates[2] + "/";
+		}
+
+		String filePath = file.getAbsolutePath().replace(File.separatorChar, '/');
+		if (filePath.contains("/" + path)) {
+			return true;
+		}
+
+		return coordinates.length == 2 && index.getDirectories(file).contains("META-INF/maven/" + groupId + "/" + artifactId);
+	}
+
+	private static Pattern toPattern(String glob) {
+		StringBuilder regex = new StringBuilder();
+		int start = 0;
+		int wildcard;
+		while ((wildcard = glob.indexOf('*', start)) >= 0) {
+			regex.append(Pattern.quote(glob.substring(start, wildcard))).append(".*");
+			start = wildcard + 1;
+		}
+
+		return Pattern.compile(regex.append(Pattern.quote(glob.substring(start))).toString());
+	}
+
+	private static String urlPrefix(File file) {
+		try {
+			String url = file.getAbsoluteFile().toURI().toURL().toString();
+			return file.isDirectory() ? url : "jar:" + url + "!/";
+		}
+		catch (MalformedURLException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
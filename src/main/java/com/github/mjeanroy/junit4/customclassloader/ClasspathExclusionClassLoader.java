@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * A {@link ClassLoader} implementation that removes some entries (jar files or directories) from the classpath:
+ * classes and resources that can only be found in these entries cannot be loaded, as if the entries were
+ * not part of the classpath. This is especially useful to test the behavior of a library when an optional
+ * dependency is missing.
+ *
+ * Excluded entries are resolved once per JVM using the classpath index (see {@link ClasspathExclusion}),
+ * so a class of a package that only exists in excluded entries is denied with a single hash lookup, without
+ * any per-class rule.
+ *
+ * Note that only the JVM classpath is indexed: classes that are not part of the JVM classpath are never hidden.
+ */
+public class ClasspathExclusionClassLoader extends ClassLoader implements InstrumentedClassLoader {
+
+	// Class loading may be triggered by several threads at the same time (for example, when a
+	// test spawns its own worker threads): we do not want to serialize these on the whole loader.
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	/**
+	 * The excluded classpath entries.
+	 */
+	private final ClasspathExclusion exclusion;
+
+	/**
+	 * The parent classloader, everything will be delegated to this classloader, except for hidden classes.
+	 */
+	private final ClassLoader parent;
+
+	/**
+	 * The class loading metrics.
+	 */
+	private final ClassLoadingMetrics metrics;
+
+	/**
+	 * Flag to throw exceptions with a full stack trace when a hidden class is loaded.
+	 */
+	private final boolean fullStackTraces;
+
+	/**
+	 * Create the classloader.
+	 *
+	 * @param parent The parent classloader.
+	 * @param exclusion The excluded classpath entries.
+	 */
+	ClasspathExclusionClassLoader(ClassLoader parent, ClasspathExclusion exclusion) {
+		this.parent = parent;
+		this.exclusion = exclusion;
+		this.metrics = new ClassLoadingMetrics();
+		this.fullStackTraces = SystemProperties.getBoolean(BlackListClassLoader.FULL_STACK_TRACES_PROPERTY, false);
+	}
+
+	// No lock is needed here: this classloader never defines any class (everything is delegated
+	// to the parent classloader that is responsible for its own locking).
+	@Override
+	public Class<?> loadClass(String name) throws ClassNotFoundException {
+		long start = metrics.start();
+		try {
+			if (exclusion.isHiddenClass(name)) {
+				metrics.denied();
+				throw fullStackTraces ? new ClassNotFoundException(name) : new BlacklistedClassException(name);
+			}
+
+			metrics.delegated();
+			Class<?> klass = parent.loadClass(name);
+			metrics.loaded(name);
+			return klass;
+		}
+		finally {
+			metrics.end(start);
+		}
+	}
+
+	@Override
+	public URL getResource(String name) {
+		if (exclusion.isHiddenResource(name)) {
+			return null;
+		}
+
+		URL url = parent.getResource(name);
+		if (url == null || !exclusion.isExcluded(url)) {
+			return url;
+		}
+
+		// The first resource comes from an excluded entry, but another entry may contain the same resource.
+		try {
+			Enumeration<URL> resources = getResources(name);
+			return resources.hasMoreElements() ? resources.nextElement() : null;
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	@Override
+	public Enumeration<URL> getResources(String name) throws IOException {
+		if (exclusion.isHiddenResource(name)) {
+			return Collections.emptyEnumeration();
+		}
+
+		List<URL> urls = new ArrayList<>();
+		Enumeration<URL> resources = parent.getResources(name);
+		while (resources.hasMoreElements()) {
+			URL url = resources.nextElement();
+			if (!exclusion.isExcluded(url)) {
+				urls.add(url);
+			}
+		}
+
+		return Collections.enumeration(urls);
+	}
+
+	@Override
+	public ClassLoadingMetrics getMetrics() {
+		return metrics;
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+/**
+ * Implementation of {@link ClassLoaderHolder} that will load {@link ClasspathExclusionClassLoader} instance.
+ *
+ * Excluded entries are given by their file name or by their Maven coordinates, for example:
+ *
+ * <pre><code>
+ *   public class WithoutGuavaClassLoaderHolder extends ClasspathExclusionClassLoaderHolder {
+ *     public WithoutGuavaClassLoaderHolder() {
+ *       super("com.google.guava:guava", "jsr305-*.jar");
+ *     }
+ *   }
+ * </code></pre>
+ *
+ * Classloaders are pooled: they do not hold any state of their own, so they are always reused by a next test.
+ */
+public class ClasspathExclusionClassLoaderHolder extends AbstractClassLoaderHolder implements ClassLoaderHolder {
+	/**
+	 * The number of idle classloaders.
+	 */
+	private static final int POOL_SIZE = 2;
+
+	/**
+	 * The excluded entries.
+	 */
+	private final String[] entries;
+
+	/**
+	 * Create the holder.
+	 *
+	 * @param entries The excluded entries: file names (such as {@code guava-*.jar}) or Maven coordinates (such as {@code com.google.guava:guava}).
+	 */
+	protected ClasspathExclusionClassLoaderHolder(String... entries) {
+		super(POOL_SIZE);
+		this.entries = entries.clone();
+	}
+
+	@Override
+	protected ClassLoader createClassLoader() {
+		return new ClasspathExclusionClassLoader(getParentClassLoader(), ClasspathExclusion.of(entries));
+	}
+
+	@Override
+	protected boolean resetClassLoader(ClassLoader classLoader) {
+		return true;
+	}
+}
@@ -0,0 +1,687 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * An index of the JVM classpath, mapping each resource directory (i.e each package) to the classpath
+ * entries containing it: finding the entry containing a class or a resource is a single hash lookup,
+ * instead of a scan of all the jars and directories of the classpath.
+ *
+ * Scanning jar files is expensive, so the content of each jar is saved to an index file (by default,
+ * {@code target/junit-customclassloader/classpath.idx}, see {@link #INDEX_FILE_PROPERTY}) and reused
+ * by the next JVM as long as the modification date and the size of the jar do not change. This file
+ * is memory-mapped when it is read. Directories are always scanned, since their content may change
+ * without changing the directory itself.
+ *
+ * Note that {@code Class-Path} manifest entries are followed, so the index also works with a
+ * "manifest-only" jar, such as the one used by surefire.
+ */
+final class ClasspathIndex implements Closeable {
+
+	/**
+	 * The system property that can be used to specify the location of the index file.
+	 */
+	static final String INDEX_FILE_PROPERTY = "junit.customclassloader.classpath.index";
+
+	/**
+	 * The default location of the index file.
+	 * Note that the file is written only if the {@code target} directory exists.
+	 */
+	private static final String DEFAULT_INDEX_FILE = "target/junit-customclassloader/classpath.idx";
+
+	/**
+	 * The magic number at the beginning of the index file.
+	 */
+	private static final int MAGIC = 0x4A43434C;
+
+	/**
+	 * The version of the index file format.
+	 */
+	private static final int VERSION = 1;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Get the index of the JVM classpath, built (or loaded from the index file) the first time it is needed.
+	 *
+	 * @return The classpath index.
+	 */
+	static ClasspathIndex getInstance() {
+		return Singleton.INSTANCE;
+	}
+
+	/**
+	 * Build the index of given classpath.
+	 *
+	 * @param classpath The classpath entries.
+	 * @param indexFile The index file, may be {@code null}.
+	 * @return The classpath index.
+	 */
+	static ClasspathIndex build(List<File> classpath, File indexFile) {
+		Map<String, Entry> previous = indexFile != null && indexFile.isFile() ? read(indexFile) : Collections.<String, Entry>emptyMap();
+		Map<File, Entry> entries = new LinkedHashMap<>();
+		int scanned = 0;
+
+		List<File> queue = new ArrayList<>(classpath);
+		for (int i = 0; i < queue.size(); i++) {
+			File file = queue.get(i);
+			if (entries.containsKey(file) || !file.exists()) {
+				continue;
+			}
+
+			Entry entry = previous.get(file.getPath());
+			if (entry == null || !entry.isUpToDate(file)) {
+				entry = Entry.scan(file);
+				scanned++;
+			}
+
+			entries.put(file, entry);
+
+			// Entries of the manifest Class-Path are searched after the jar itself.
+			List<File> manifestClasspath = new ArrayList<>(entry.classpath.size());
+			for (String path : entry.classpath) {
+				manifestClasspath.add(new File(path));
+			}
+
+			queue.addAll(i + 1, manifestClasspath);
+		}
+
+		if (indexFile != null && (scanned > countDirectories(entries.values()) || previous.size() != countJars(entries.values()))) {
+			write(indexFile, entries.values());
+		}
+
+		return new ClasspathIndex(new ArrayList<>(entries.values()), scanned);
+	}
+
+	/**
+	 * The classpath entries, in search order.
+	 */
+	private final List<Entry> entries;
+
+	/**
+	 * The classpath entries, indexed by resource directory.
+	 */
+	private final Map<String, Entry[]> directories;
+
+	/**
+	 * The opened jar files, used to read resources (see {@link #close()}, called on shutdown for the JVM classpath index).
+	 */
+	private final ConcurrentMap<File, JarFile> jarFiles;
+
+	/**
+	 * The number of classpath entries that has been scanned to build this index (other entries
+	 * were read from the index file).
+	 */
+	private final int scanned;
+
+	private ClasspathIndex(List<Entry> entries, int scanned) {
+		this.entries = entries;
+		this.scanned = scanned;
+		this.jarFiles = new ConcurrentHashMap<>();
+
+		Map<String, List<Entry>> directories = new HashMap<>();
+		for (Entry entry : entries) {
+			for (String directory : entry.directories) {
+				List<Entry> directoryEntries = directories.get(directory);
+				if (directoryEntries == null) {
+					directoryEntries = new ArrayList<>(1);
+					directories.put(directory, directoryEntries);
+				}
+
+				directoryEntries.add(entry);
+			}
+		}
+
+		this.directories = new HashMap<>(directories.size() * 4 / 3 + 1);
+		for (Map.Entry<String, List<Entry>> directory : directories.entrySet()) {
+			List<Entry> directoryEntries = directory.getValue();
+			this.directories.put(directory.getKey(), directoryEntries.toArray(new Entry[directoryEntries.size()]));
+		}
+	}
+
+	/**
+	 * Get all the classpath entries, in search order.
+	 *
+	 * @return The classpath entries.
+	 */
+	List<File> getClasspath() {
+		List<File> files = new ArrayList<>(entries.size());
+		for (Entry entry : entries) {
+			files.add(entry.file);
+		}
+
+		return files;
+	}
+
+	/**
+	 * Get the classpath entries containing at least one resource in given directory.
+	 *
+	 * @param directory The directory, using {@code /} as separator (for example: {@code com/github/mjeanroy}).
+	 * @return The classpath entries, in search order.
+	 */
+	List<File> getEntries(String directory) {
+		Entry[] directoryEntries = directories.get(directory);
+		if (directoryEntries == null) {
+			return Collections.emptyList();
+		}
+
+		List<File> files = new ArrayList<>(directoryEntries.length);
+		for (Entry entry : directoryEntries) {
+			files.add(entry.file);
+		}
+
+		return files;
+	}
+
+	/**
+	 * Get the classpath entry containing given resource.
+	 *
+	 * @param name The resource name (for example: {@code com/github/mjeanroy/Foo.class}).
+	 * @return The classpath entry, {@code null} if the resource cannot be found.
+	 */
+	File findEntry(String name) {
+		return findEntry(name, Collections.<File>emptySet());
+	}
+
+	/**
+	 * Get the classpath entry containing given resource, ignoring some entries.
+	 *
+	 * @param name The resource name (for example: {@code com/github/mjeanroy/Foo.class}).
+	 * @param excluded The ignored entries.
+	 * @return The classpath entry, {@code null} if the resource cannot be found in other entries.
+	 */
+	File findEntry(String name, Set<File> excluded) {
+		Entry[] directoryEntries = directories.get(directoryOf(name));
+		if (directoryEntries == null) {
+			return null;
+		}
+
+		for (Entry entry : directoryEntries) {
+			if (excluded.contains(entry.file)) {
+				continue;
+			}
+
+			if (entry.directory ? new File(entry.file, name).isFile() : getJarEntry(entry.file, name) != null) {
+				return entry.file;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get the resource directories of a classpath entry.
+	 *
+	 * @param file The classpath entry.
+	 * @return The resource directories, using {@code /} as separator, empty if the file is not part of the classpath.
+	 */
+	List<String> getDirectories(File file) {
+		for (Entry entry : entries) {
+			if (entry.file.equals(file)) {
+				return Collections.unmodifiableList(entry.directories);
+			}
+		}
+
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Open given resource.
+	 *
+	 * @param name The resource name (for example: {@code com/github/mjeanroy/Foo.class}).
+	 * @return The resource stream, {@code null} if the resource cannot be found.
+	 * @throws IOException If the resource cannot be opened.
+	 */
+	InputStream getResourceAsStream(String name) throws IOException {
+		File entry = findEntry(name);
+		return entry == null ? null : getResourceAsStream(entry, name);
+	}
+
+	/**
+	 * Open given resource of a classpath entry.
+	 *
+	 * @param entry The classpath entry (see {@link #findEntry(String)}).
+	 * @param name The resource name (for example: {@code com/github/mjeanroy/Foo.class}).
+	 * @return The resource stream, {@code null} if the entry does not contain the resource.
+	 * @throws IOException If the resource cannot be opened.
+	 */
+	InputStream getResourceAsStream(File entry, String name) throws IOException {
+		if (entry.isDirectory()) {
+			File file = new File(entry, name);
+			return file.isFile() ? Files.newInputStream(file.toPath()) : null;
+		}
+
+		JarFile jarFile = getJarFile(entry);
+		JarEntry jarEntry = jarFile.getJarEntry(name);
+		return jarEntry == null ? null : jarFile.getInputStream(jarEntry);
+	}
+
+	/**
+	 * Get the manifest of a classpath entry.
+	 *
+	 * @param entry The classpath entry (see {@link #findEntry(String)}).
+	 * @return The manifest, {@code null} if the entry is a directory or if the jar does not have a manifest.
+	 * @throws IOException If the manifest cannot be read.
+	 */
+	Manifest getManifest(File entry) throws IOException {
+		return entry.isDirectory() ? null : getJarFile(entry).getManifest();
+	}
+
+	/**
+	 * Get the number of classpath entries that were scanned to build this index.
+	 *
+	 * @return The number of scanned entries.
+	 */
+	int getScannedEntries() {
+		return scanned;
+	}
+
+	/**
+	 * Close the jar files opened to read resources.
+	 * The index can still be used: jar files are opened again when needed.
+	 */
+	@Override
+	public void close() {
+		for (File file : jarFiles.keySet()) {
+			JarFile jarFile = jarFiles.remove(file);
+			if (jarFile != null) {
+				try {
+					jarFile.close();
+				}
+				catch (IOException ex) {
+					// Nothing to do.
+				}
+			}
+		}
+	}
+
+	private JarEntry getJarEntry(File file, String name) {
+		try {
+			return getJarFile(file).getJarEntry(name);
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	private JarFile getJarFile(File file) throws IOException {
+		JarFile jarFile = jarFiles.get(file);
+		if (jarFile == null) {
+			JarFile newJarFile = new JarFile(file);
+			jarFile = jarFiles.putIfAbsent(file, newJarFile);
+			if (jarFile == null) {
+				jarFile = newJarFile;
+			}
+			else {
+				newJarFile.close();
+			}
+		}
+
+		return jarFile;
+	}
+
+	/**
+	 * Get the directory of given resource name.
+	 *
+	 * @param name The resource name.
+	 * @return The resource directory, an empty string for resources at the root of the classpath.
+	 */
+	static String directoryOf(String name) {
+		int index = name.lastIndexOf('/');
+		return index < 0 ? "" : name.substring(0, index);
+	}
+
+	private static int countDirectories(Iterable<Entry> entries) {
+		int count = 0;
+		for (Entry entry : entries) {
+			if (entry.directory) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private static int countJars(Iterable<Entry> entries) {
+		int count = 0;
+		for (Entry entry : entries) {
+			if (!entry.directory) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Read the index file: this file is memory-mapped, and any error (missing file, corrupted file, etc.) is
+	 * ignored, since it only means that all entries will be scanned again.
+	 *
+	 * @param indexFile The index file.
+	 * @return The jar entries read from the index file, indexed by path.
+	 */
+	private static Map<String, Entry> read(File indexFile) {
+		try (RandomAccessFile file = new RandomAccessFile(indexFile, "r"); FileChannel channel = file.getChannel()) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return Collections.emptyMap();
+			}
+
+			// Each entry is at least a path, two longs and two lists.
+			int size = readSize(buffer, 28);
+			Map<String, Entry> entries = new HashMap<>(size * 4 / 3 + 1);
+			for (int i = 0; i < size; i++) {
+				String path = readString(buffer);
+				long lastModified = buffer.getLong();
+				long length = buffer.getLong();
+				List<String> directories = readStrings(buffer);
+				List<String> classpath = readStrings(buffer);
+				entries.put(path, new Entry(new File(path), false, lastModified, length, directories, classpath));
+			}
+
+			return entries;
+		}
+		catch (IOException | RuntimeException ex) {
+			return Collections.emptyMap();
+		}
+	}
+
+	/**
+	 * Write the jar entries to the index file.
+	 * The file is written to a temporary file first and then moved, so that concurrent JVM never read a partial file.
+	 * Any error is ignored, since it only means that the index will be built again by the next JVM.
+	 *
+	 * @param indexFile The index file.
+	 * @param entries The classpath entries.
+	 */
+	private static void write(File indexFile, Iterable<Entry> entries) {
+		File directory = indexFile.getAbsoluteFile().getParentFile();
+		if (directory == null || (!directory.isDirectory() && !directory.mkdirs())) {
+			return;
+		}
+
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream output = new DataOutputStream(bytes);
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(countJars(entries));
+
+			for (Entry entry : entries) {
+				if (!entry.directory) {
+					writeString(output, entry.file.getPath());
+					output.writeLong(entry.lastModified);
+					output.writeLong(entry.length);
+					writeStrings(output, entry.directories);
+					writeStrings(output, entry.classpath);
+				}
+			}
+
+			output.flush();
+
+			File tmp = File.createTempFile(indexFile.getName(), ".tmp", directory);
+			Files.write(tmp.toPath(), bytes.toByteArray());
+			Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException | RuntimeException ex) {
+			// The index will be built again.
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) throws IOException {
+		byte[] bytes = new byte[readSize(buffer, 1)];
+		buffer.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	private static List<String> readStrings(ByteBuffer buffer) throws IOException {
+		int size = readSize(buffer, 4);
+		List<String> values = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(readString(buffer));
+		}
+
+		return values;
+	}
+
+	/**
+	 * Read a size (a number of bytes, or a number of values) from the index file, and check that the remaining
+	 * bytes can hold it: a corrupted or truncated file must never trigger a huge allocation.
+	 *
+	 * @param buffer The index file content.
+	 * @param minBytes The minimum number of bytes of each element.
+	 * @return The size.
+	 * @throws IOException If the size is not valid.
+	 */
+	private static int readSize(ByteBuffer buffer, int minBytes) throws IOException {
+		int size = buffer.getInt();
+		if (size < 0 || size > buffer.remaining() / minBytes) {
+			throw new IOException("Corrupted classpath index file");
+		}
+
+		return size;
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		byte[] bytes = value.getBytes(UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static void writeStrings(DataOutputStream output, List<String> values) throws IOException {
+		output.writeInt(values.size());
+		for (String value : values) {
+			writeString(output, value);
+		}
+	}
+
+	/**
+	 * A classpath entry: a jar file or a directory.
+	 */
+	private static final class Entry {
+		/**
+		 * The jar file, or the directory.
+		 */
+		private final File file;
+
+		/**
+		 * Flag indicating if this entry is a directory.
+		 */
+		private final boolean directory;
+
+		/**
+		 * The modification date of the jar file, when it was indexed.
+		 */
+		private final long lastModified;
+
+		/**
+		 * The size of the jar file, when it was indexed.
+		 */
+		private final long length;
+
+		/**
+		 * The resource directories of this entry.
+		 */
+		private final List<String> directories;
+
+		/**
+		 * The entries of the manifest {@code Class-Path} attribute.
+		 */
+		private final List<String> classpath;
+
+		private Entry(File file, boolean directory, long lastModified, long length, List<String> directories, List<String> classpath) {
+			this.file = file;
+			this.directory = directory;
+			this.lastModified = lastModified;
+			this.length = length;
+			this.directories = directories;
+			this.classpath = classpath;
+		}
+
+		/**
+		 * Check if this entry, read from the index file, is still valid.
+		 *
+		 * @param file The classpath entry.
+		 * @return {@code true} if the entry does not have to be scanned again, {@code false} otherwise.
+		 */
+		private boolean isUpToDate(File file) {
+			return !directory && file.isFile() && file.lastModified() == lastModified && file.length() == length;
+		}
+
+		private static Entry scan(File file) {
+			if (file.isDirectory()) {
+				Set<String> directories = new LinkedHashSet<>();
+				scanDirectory(file, "", directories);
+				return new Entry(file, true, file.lastModified(), 0, new ArrayList<>(directories), Collections.<String>emptyList());
+			}
+
+			Set<String> directories = new LinkedHashSet<>();
+			List<String> classpath = new ArrayList<>();
+
+			try (JarFile jarFile = new JarFile(file)) {
+				Enumeration<JarEntry> jarEntries = jarFile.entries();
+				while (jarEntries.hasMoreElements()) {
+					JarEntry jarEntry = jarEntries.nextElement();
+					if (!jarEntry.isDirectory()) {
+						directories.add(directoryOf(jarEntry.getName()));
+					}
+				}
+
+				Manifest manifest = jarFile.getManifest();
+				String manifestClasspath = manifest == null ? null : manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+				if (manifestClasspath != null) {
+					for (String path : manifestClasspath.trim().split("\\s+")) {
+						File classpathEntry = resolve(file, path);
+						if (classpathEntry != null) {
+							classpath.add(classpathEntry.getPath());
+						}
+					}
+				}
+			}
+			catch (IOException ex) {
+				// Not a valid jar file, ignore it.
+			}
+
+			return new Entry(file, false, file.lastModified(), file.length(), new ArrayList<>(directories), classpath);
+		}
+
+		private static void scanDirectory(File directory, String path, Set<String> directories) {
+			File[] files = directory.listFiles();
+			if (files == null) {
+				return;
+			}
+
+			for (File file : files) {
+				if (file.isDirectory()) {
+					scanDirectory(file, path.isEmpty() ? file.getName() : path + "/" + file.getName(), directories);
+				}
+				else {
+					directories.add(path);
+				}
+			}
+		}
+
+		private static File resolve(File jarFile, String path) {
+			try {
+				URI uri = jarFile.getAbsoluteFile().getParentFile().toURI().resolve(path);
+				return "file".equals(uri.getScheme()) ? new File(uri) : null;
+			}
+			catch (IllegalArgumentException ex) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * The lazy holder of the JVM classpath index.
+	 */
+	private static final class Singleton {
+		private static final ClasspathIndex INSTANCE = newInstance();
+
+		private static ClasspathIndex newInstance() {
+			final ClasspathIndex index = build(javaClasspath(), indexFile());
+			Runtime.getRuntime().addShutdownHook(new Thread("JUnit-classpath-index") {
+				@Override
+				public void run() {
+					index.close();
+				}
+			});
+
+			return index;
+		}
+
+		private static List<File> javaClasspath() {
+			String classpath = System.getProperty("java.class.path", "");
+			List<File> files = new ArrayList<>();
+			for (String path : classpath.split(File.pathSeparator)) {
+				if (!path.isEmpty()) {
+					files.add(new File(path));
+				}
+			}
+
+			return files;
+		}
+
+		private static File indexFile() {
+			String path = System.getProperty(INDEX_FILE_PROPERTY);
+			if (path != null) {
+				return new File(path);
+			}
+
+			File indexFile = new File(DEFAULT_INDEX_FILE);
+			return new File("target").isDirectory() ? indexFile : null;
+		}
+	}
+}
@@ -0,0 +1,467 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Profiler of static initializers ({@code <clinit>}) of the classes defined by an {@link IsolatingClassLoader}.
+ *
+ * Without bytecode instrumentation, the only way to time a static initializer is to trigger it: when profiling
+ * is enabled, each class defined by the classloader is initialized once it is loaded (instead of on first use),
+ * and the time spent in its static initializer is recorded. Static initializers of other classes triggered by a
+ * static initializer are timed separately: the recorded time is the exclusive time of each initializer.
+ *
+ * A class is not initialized while another class is being loaded by the same thread: defining a class loads its
+ * super types, and initializing a super type that references the subclass being defined (for example, a
+ * {@code static final Base DEFAULT = new Impl()} field) would fail with a {@link ClassCircularityError}. Classes
+ * are queued instead, and initialized in definition order once the outermost class loading request returns.
+ *
+ * Note that initializing classes eagerly may change the order of static initializers, so profiling is disabled
+ * by default (see {@link #PROPERTY}).
+ *
+ * Initializers are recorded per classloader (i.e per test, with the {@link ClassLoaderScope#METHOD} scope), and
+ * aggregated for the whole JVM: the suite ranking is written when the JVM exits, to {@code clinit-suite.csv} in the
+ * report directory if the class loading report is enabled, to the standard error otherwise.
+ */
+final class ClinitProfiler {
+
+	/**
+	 * The system property that can be used to enable static initializers profiling.
+	 */
+	static final String PROPERTY = "junit.customclassloader.clinitProfiling";
+
+	/**
+	 * The time spent in static initializers of other classes, triggered by the static initializer being
+	 * executed in the current thread.
+	 */
+	private static final ThreadLocal<long[]> NESTED_TIME = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+
+	/**
+	 * The classes being loaded by the current thread, and the classes waiting to be initialized.
+	 */
+	private static final ThreadLocal<Pending> PENDING = new ThreadLocal<Pending>() {
+		@Override
+		protected Pending initialValue() {
+			return new Pending();
+		}
+	};
+
+	/**
+	 * The initializers recorded in this JVM, indexed by class name.
+	 */
+	private static final Map<String, Total> SUITE = new LinkedHashMap<>();
+
+	/**
+	 * The number of initializers printed in the suite ranking, when it is written to the standard error.
+	 */
+	private static final int SUITE_TOP = 20;
+
+	/**
+	 * Flag set once the hook writing the suite ranking has been registered.
+	 */
+	private static final AtomicBoolean SHUTDOWN_HOOK = new AtomicBoolean(false);
+
+	/**
+	 * Check if static initializers profiling is enabled.
+	 *
+	 * @return {@code true} if profiling is enabled, {@code false} otherwise.
+	 */
+	static boolean isEnabled() {
+		return SystemProperties.getBoolean(PROPERTY, false);
+	}
+
+	/**
+	 * Get the profiler of given classloader.
+	 *
+	 * @param classLoader The classloader.
+	 * @return The profiler, {@code null} if static initializers of this classloader are not profiled.
+	 */
+	static ClinitProfiler of(ClassLoader classLoader) {
+		return classLoader instanceof IsolatingClassLoader ? ((IsolatingClassLoader) classLoader).getClinitProfiler() : null;
+	}
+
+	/**
+	 * The metrics of the classloader.
+	 */
+	private final ClassLoadingMetrics metrics;
+
+	/**
+	 * The recorded initializers, in initialization order.
+	 */
+	private final List<Entry> entries;
+
+	/**
+	 * Create the profiler.
+	 *
+	 * @param metrics The metrics of the classloader.
+	 */
+	ClinitProfiler(ClassLoadingMetrics metrics) {
+		this.metrics = metrics;
+		this.entries = new ArrayList<>();
+
+		if (SHUTDOWN_HOOK.compareAndSet(false, true)) {
+			Runtime.getRuntime().addShutdownHook(new Thread("JUnit-clinit-report") {
+				@Override
+				public void run() {
+					writeSuiteRanking();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Notify the start of a class loading request, in the current thread.
+	 * Must be followed by a call to {@link #exit(boolean)}.
+	 */
+	static void enter() {
+		PENDING.get().depth++;
+	}
+
+	/**
+	 * Notify the end of a class loading request, in the current thread: if it is the outermost request, the
+	 * classes queued (see {@link #defer(Class)}) since it started are initialized.
+	 *
+	 * @param initialize Flag to initialize the queued classes, {@code false} to discard them (if the request failed).
+	 * @throws ExceptionInInitializerError If a static initializer fails (as it would on first use of the class).
+	 */
+	static void exit(boolean initialize) {
+		Pending pending = PENDING.get();
+		if (--pending.depth > 0 || pending.initializations.isEmpty()) {
+			return;
+		}
+
+		// Static initializers may load other classes: they are queued in a new list, and initialized
+		// as soon as their own outermost class loading request returns.
+		List<Initialization> initializations = pending.initializations;
+		pending.initializations = new ArrayList<>();
+
+		if (initialize) {
+			for (Initialization initialization : initializations) {
+				initialization.profiler.initialize(initialization.klass);
+			}
+		}
+	}
+
+	/**
+	 * Queue given class, defined by the classloader in the current class loading request: it will be
+	 * initialized once the outermost request returns.
+	 *
+	 * @param klass The class.
+	 */
+	void defer(Class<?> klass) {
+		PENDING.get().initializations.add(new Initialization(this, klass));
+	}
+
+	/**
+	 * Initialize given class, and record the time spent in its static initializer.
+	 *
+	 * @param klass The class.
+	 * @throws ExceptionInInitializerError If the static initializer fails (as it would on first use of the class).
+	 */
+	void initialize(Class<?> klass) {
+		long[] nested = NESTED_TIME.get();
+		long outerNested = nested[0];
+		nested[0] = 0;
+
+		long start = System.nanoTime();
+		try {
+			Class.forName(klass.getName(), true, klass.getClassLoader());
+		}
+		catch (ClassNotFoundException ex) {
+			// Cannot happen, the class has just been defined.
+			throw new IllegalStateException(ex);
+		}
+		finally {
+			long total = System.nanoTime() - start;
+			long exclusive = total - nested[0];
+			nested[0] = outerNested + total;
+			record(klass.getName(), exclusive);
+		}
+	}
+
+	/**
+	 * Get the number of recorded initializers.
+	 *
+	 * @return The number of recorded initializers.
+	 */
+	synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Get the initializers recorded since a given point, ranked from the most expensive to the least expensive.
+	 *
+	 * @param from The number of recorded initializers at that point (see {@link #size()}).
+	 * @return The initializers.
+	 */
+	synchronized List<Entry> getRanking(int from) {
+		List<Entry> ranking = new ArrayList<>(entries.subList(from, entries.size()));
+		Collections.sort(ranking, Entry.MOST_EXPENSIVE_FIRST);
+		return ranking;
+	}
+
+	/**
+	 * Get the initializers recorded in this JVM, ranked from the most expensive to the least expensive (the
+	 * time of a class initialized by several classloaders is summed).
+	 *
+	 * @return The initializers.
+	 */
+	static List<Total> getSuiteRanking() {
+		List<Total> ranking;
+		synchronized (SUITE) {
+			ranking = new ArrayList<>(SUITE.size());
+			for (Total total : SUITE.values()) {
+				ranking.add(new Total(total.className, total.count, total.totalNanos));
+			}
+		}
+
+		Collections.sort(ranking, Total.MOST_EXPENSIVE_FIRST);
+		return ranking;
+	}
+
+	/**
+	 * Write the suite ranking as CSV: one line per class, from the most expensive initializer to the least expensive.
+	 *
+	 * @param writer The writer.
+	 * @param limit The maximum number of lines.
+	 * @throws IOException If an error occurs while writing.
+	 */
+	static void writeSuiteRanking(Writer writer, int limit) throws IOException {
+		writer.write("class,count,totalNanos\n");
+
+		List<Total> ranking = getSuiteRanking();
+		for (Total total : ranking.subList(0, Math.min(limit, ranking.size()))) {
+			writer.write(total.className + "," + total.count + "," + total.totalNanos + "\n");
+		}
+	}
+
+	private static void writeSuiteRanking() {
+		List<Total> ranking = getSuiteRanking();
+		if (ranking.isEmpty()) {
+			return;
+		}
+
+		String reportDirectory = System.getProperty(CustomClassLoaderRunner.REPORT_DIR_PROPERTY);
+		if (reportDirectory != null && !reportDirectory.isEmpty()) {
+			File directory = new File(reportDirectory);
+			if (directory.isDirectory() || directory.mkdirs()) {
+				try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, "clinit-suite.csv")), StandardCharsets.UTF_8)) {
+					writeSuiteRanking(writer, Integer.MAX_VALUE);
+					return;
+				}
+				catch (IOException ex) {
+					// Fallback to the standard error.
+				}
+			}
+		}
+
+		PrintWriter writer = new PrintWriter(System.err);
+		writer.println("Most expensive static initializers:");
+		for (Total total : ranking.subList(0, Math.min(SUITE_TOP, ranking.size()))) {
+			writer.println("  " + total.className + ": " + TimeUnit.NANOSECONDS.toMicros(total.totalNanos) + " us (" + total.count + " initializations)");
+		}
+
+		writer.flush();
+	}
+
+	private void record(String className, long exclusiveNanos) {
+		synchronized (this) {
+			entries.add(new Entry(className, exclusiveNanos));
+		}
+
+		metrics.initialized(exclusiveNanos);
+
+		synchronized (SUITE) {
+			Total total = SUITE.get(className);
+			if (total == null) {
+				total = new Total(className, 0, 0);
+				SUITE.put(className, total);
+			}
+
+			total.count++;
+			total.totalNanos += exclusiveNanos;
+		}
+	}
+
+	/**
+	 * The class loading state of a thread.
+	 */
+	private static final class Pending {
+		/**
+		 * The number of nested class loading requests.
+		 */
+		private int depth;
+
+		/**
+		 * The classes to initialize once the outermost class loading request returns.
+		 */
+		private List<Initialization> initializations = new ArrayList<>();
+	}
+
+	/**
+	 * A class waiting to be initialized.
+	 */
+	private static final class Initialization {
+		/**
+		 * The profiler of the classloader that defined the class.
+		 */
+		private final ClinitProfiler profiler;
+
+		/**
+		 * The class.
+		 */
+		private final Class<?> klass;
+
+		private Initialization(ClinitProfiler profiler, Class<?> klass) {
+			this.profiler = profiler;
+			this.klass = klass;
+		}
+	}
+
+	/**
+	 * A static initializer, executed once.
+	 */
+	static final class Entry {
+		private static final Comparator<Entry> MOST_EXPENSIVE_FIRST = new Comparator<Entry>() {
+			@Override
+			public int compare(Entry e1, Entry e2) {
+				return Long.compare(e2.nanos, e1.nanos);
+			}
+		};
+
+		/**
+		 * The class name.
+		 */
+		private final String className;
+
+		/**
+		 * The exclusive time spent in the initializer, in nanoseconds.
+		 */
+		private final long nanos;
+
+		Entry(String className, long nanos) {
+			this.className = className;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * Get the class name.
+		 *
+		 * @return The class name.
+		 */
+		String getClassName() {
+			return className;
+		}
+
+		/**
+		 * Get the exclusive time spent in the initializer.
+		 *
+		 * @return The time, in nanoseconds.
+		 */
+		long getNanos() {
+			return nanos;
+		}
+	}
+
+	/**
+	 * The static initializer of a class, executed by one or several classloaders.
+	 */
+	static final class Total {
+		private static final Comparator<Total> MOST_EXPENSIVE_FIRST = new Comparator<Total>() {
+			@Override
+			public int compare(Total t1, Total t2) {
+				return Long.compare(t2.totalNanos, t1.totalNanos);
+			}
+		};
+
+		/**
+		 * The class name.
+		 */
+		private final String className;
+
+		/**
+		 * The number of executions.
+		 */
+		private long count;
+
+		/**
+		 * The total exclusive time spent in the initializer, in nanoseconds.
+		 */
+		private long totalNanos;
+
+		private Total(String className, long count, long totalNanos) {
+			this.className = className;
+			this.count = count;
+			this.totalNanos = totalNanos;
+		}
+
+		/**
+		 * Get the class name.
+		 *
+		 * @return The class name.
+		 */
+		String getClassName() {
+			return className;
+		}
+
+		/**
+		 * Get the number of executions.
+		 *
+		 * @return The number of executions.
+		 */
+		long getCount() {
+			return count;
+		}
+
+		/**
+		 * Get the total exclusive time spent in the initializer.
+		 *
+		 * @return The time, in nanoseconds.
+		 */
+		long getTotalNanos() {
+			return totalNanos;
+		}
+	}
+}
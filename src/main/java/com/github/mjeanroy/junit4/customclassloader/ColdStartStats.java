@@ -0,0 +1,199 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runner.Description;
+
+/**
+ * Statistics of the runs of a unit test method annotated with {@link RepeatInFreshClassLoader}: min, median
+ * and 99th percentile of the duration, of the class loading time and, when static initializers are profiled
+ * (see {@link ClinitProfiler}), of the class initialization time.
+ */
+final class ColdStartStats {
+
+	/**
+	 * The duration of each run, in nanoseconds.
+	 */
+	private final long[] durations;
+
+	/**
+	 * The class loading time of each run, in nanoseconds ({@code -1} if not available).
+	 */
+	private final long[] classLoadingTimes;
+
+	/**
+	 * The class initialization time of each run, in nanoseconds ({@code -1} if not available).
+	 */
+	private final long[] classInitTimes;
+
+	/**
+	 * The number of runs.
+	 */
+	private int size;
+
+	/**
+	 * Create empty statistics.
+	 *
+	 * @param iterations The number of runs.
+	 */
+	ColdStartStats(int iterations) {
+		this.durations = new long[iterations];
+		this.classLoadingTimes = new long[iterations];
+		this.classInitTimes = new long[iterations];
+		this.size = 0;
+	}
+
+	/**
+	 * Add a run.
+	 *
+	 * @param durationNanos The duration of the run, in nanoseconds.
+	 * @param classLoadingNanos The class loading time of the run, in nanoseconds, {@code -1} if not available.
+	 * @param classInitNanos The class initialization time of the run, in nanoseconds, {@code -1} if not available.
+	 */
+	void add(long durationNanos, long classLoadingNanos, long classInitNanos) {
+		durations[size] = durationNanos;
+		classLoadingTimes[size] = classLoadingNanos;
+		classInitTimes[size] = classInitNanos;
+		size++;
+	}
+
+	/**
+	 * Get the number of runs.
+	 *
+	 * @return The number of runs.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Get a percentile of the durations.
+	 *
+	 * @param percentile The percentile (between 0 and 100).
+	 * @return The duration, in nanoseconds.
+	 */
+	long getDuration(double percentile) {
+		return percentile(durations, percentile);
+	}
+
+	/**
+	 * Get a percentile of the class loading times.
+	 *
+	 * @param percentile The percentile (between 0 and 100).
+	 * @return The class loading time, in nanoseconds, {@code -1} if not available.
+	 */
+	long getClassLoadingTime(double percentile) {
+		return percentile(classLoadingTimes, percentile);
+	}
+
+	/**
+	 * Get a percentile of the class initialization times.
+	 *
+	 * @param percentile The percentile (between 0 and 100).
+	 * @return The class initialization time, in nanoseconds, {@code -1} if not available.
+	 */
+	long getClassInitTime(double percentile) {
+		return percentile(classInitTimes, percentile);
+	}
+
+	/**
+	 * Record the statistics in the report.
+	 *
+	 * @param report The report.
+	 * @param description The test description.
+	 */
+	void record(TestReport report, Description description) {
+		report.record(description, "coldStartRuns", size);
+		report.record(description, "coldStartDurationMinNanos", getDuration(0));
+		report.record(description, "coldStartDurationMedianNanos", getDuration(50));
+		report.record(description, "coldStartDurationP99Nanos", getDuration(99));
+
+		if (getClassLoadingTime(0) >= 0) {
+			report.record(description, "coldStartClassLoadingMinNanos", getClassLoadingTime(0));
+			report.record(description, "coldStartClassLoadingMedianNanos", getClassLoadingTime(50));
+			report.record(description, "coldStartClassLoadingP99Nanos", getClassLoadingTime(99));
+		}
+
+		if (getClassInitTime(0) >= 0) {
+			report.record(description, "coldStartClassInitMinNanos", getClassInitTime(0));
+			report.record(description, "coldStartClassInitMedianNanos", getClassInitTime(50));
+			report.record(description, "coldStartClassInitP99Nanos", getClassInitTime(99));
+		}
+	}
+
+	/**
+	 * Format the statistics.
+	 *
+	 * @param description The test description.
+	 * @return The statistics, as a human readable message.
+	 */
+	String format(Description description) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Cold start of ").append(description.getDisplayName()).append(" (").append(size).append(" runs):");
+		sb.append(" duration min=").append(micros(getDuration(0)));
+		sb.append(", median=").append(micros(getDuration(50)));
+		sb.append(", p99=").append(micros(getDuration(99)));
+
+		if (getClassLoadingTime(0) >= 0) {
+			sb.append(" / class loading min=").append(micros(getClassLoadingTime(0)));
+			sb.append(", median=").append(micros(getClassLoadingTime(50)));
+			sb.append(", p99=").append(micros(getClassLoadingTime(99)));
+		}
+
+		if (getClassInitTime(0) >= 0) {
+			sb.append(" / class init min=").append(micros(getClassInitTime(0)));
+			sb.append(", median=").append(micros(getClassInitTime(50)));
+			sb.append(", p99=").append(micros(getClassInitTime(99)));
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Compute a percentile, using the nearest-rank method.
+	 *
+	 * @param values The values.
+	 * @param percentile The percentile (between 0 and 100).
+	 * @return The percentile, {@code -1} if there is no values.
+	 */
+	private long percentile(long[] values, double percentile) {
+		if (size == 0) {
+			return -1;
+		}
+
+		long[] sorted = Arrays.copyOf(values, size);
+		Arrays.sort(sorted);
+
+		int rank = (int) Math.ceil(percentile / 100 * size);
+		return sorted[Math.max(rank - 1, 0)];
+	}
+
+	private static String micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos) + " us";
+	}
+}
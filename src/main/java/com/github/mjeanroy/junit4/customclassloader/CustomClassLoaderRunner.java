@@ -24,11 +24,23 @@
 
 package com.github.mjeanroy.junit4.customclassloader;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.junit.rules.TestRule;
+import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.Statement;
 
 /**
  * The runner that will load a custom classloader for unit tests.
@@ -36,9 +48,84 @@ import org.junit.runners.model.InitializationError;
 public class CustomClassLoaderRunner extends BlockJUnit4ClassRunner {
 
 	/**
-	 * The classloader holder that will be able to load a custom classloader.
+	 * The system property that can be used to override {@link RunWithClassLoader#threadMode()}.
+	 */
+	static final String THREAD_MODE_PROPERTY = "junit.customclassloader.threadMode";
+
+	/**
+	 * The system property that can be used to override {@link RunWithClassLoader#poolSize()}.
+	 */
+	static final String POOL_SIZE_PROPERTY = "junit.customclassloader.poolSize";
+
+	/**
+	 * The system property that can be used to override {@link RunWithClassLoader#parallelism()}.
+	 */
+	static final String PARALLELISM_PROPERTY = "junit.customclassloader.parallelism";
+
+	/**
+	 * The system property that can be used to override {@link RunWithClassLoader#scope()}.
+	 */
+	static final String SCOPE_PROPERTY = "junit.customclassloader.scope";
+
+	/**
+	 * The system property that can be used to write a report (with class loading metrics of each unit test method)
+	 * in given directory.
+	 */
+	static final String REPORT_DIR_PROPERTY = "junit.customclassloader.report.dir";
+
+	/**
+	 * The system property that can be used to detect classloaders that are not garbage collected once
+	 * tests have ended (only with {@link ClassLoaderScope#METHOD} scope).
+	 */
+	static final String LEAK_DETECTION_PROPERTY = "junit.customclassloader.leakDetection";
+
+	/**
+	 * The system property that can be used to set the maximum time (in milliseconds) to wait for classloaders
+	 * to be garbage collected when leak detection is enabled.
+	 */
+	static final String LEAK_DETECTION_TIMEOUT_PROPERTY = "junit.customclassloader.leakDetection.timeout";
+
+	/**
+	 * The logger, used to report classloader leaks.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(CustomClassLoaderRunner.class.getName());
+
+	/**
+	 * The configuration of the unit test method being created, used to create the rules of this test (see
+	 * {@link #methodBlock(FrameworkMethod)}).
+	 */
+	private static final ThreadLocal<Configuration> CURRENT_CONFIGURATION = new ThreadLocal<>();
+
+	/**
+	 * The classloader configurations: each unit test method runs once per configuration.
+	 */
+	private final List<Configuration> configurations;
+
+	/**
+	 * The executor that will run each unit test method in a dedicated thread.
+	 */
+	private final TestExecutor executor;
+
+	/**
+	 * The directory where the report is written, {@code null} if the report is disabled.
+	 */
+	private final File reportDirectory;
+
+	/**
+	 * The report of the test class, {@code null} if the report is disabled.
+	 */
+	private final TestReport report;
+
+	/**
+	 * Flag set if classloader leak detection is enabled.
+	 */
+	private final boolean leakDetection;
+
+	/**
+	 * The gate letting only variants of the same unit test method run at the same time, {@code null} if
+	 * unit test methods themselves may run at the same time (or if they run one after another).
 	 */
-	private final ClassLoaderHolder classLoaderHolder;
+	private final VariantGate variantGate;
 
 	/**
 	 * Create the JUnit runner.
@@ -48,26 +135,282 @@ public class CustomClassLoaderRunner extends BlockJUnit4ClassRunner {
 	 */
 	public CustomClassLoaderRunner(Class<?> testClass) throws InitializationError {
 		super(testClass);
-		this.classLoaderHolder = Reflections.newInstance(findAnnotation(testClass).value());
+
+		RunWithClassLoader annotation = findAnnotation(testClass);
+		ThreadMode threadMode = SystemProperties.getEnum(THREAD_MODE_PROPERTY, ThreadMode.class, annotation.threadMode());
+		int poolSize = SystemProperties.getInt(POOL_SIZE_PROPERTY, annotation.poolSize());
+		ClassLoaderScope scope = SystemProperties.getEnum(SCOPE_PROPERTY, ClassLoaderScope.class, annotation.scope());
+
+		// Shared classloaders are expected to outlive tests.
+		this.leakDetection = scope == ClassLoaderScope.METHOD && SystemProperties.getBoolean(LEAK_DETECTION_PROPERTY, false);
+		int leakDetectionTimeout = SystemProperties.getInt(LEAK_DETECTION_TIMEOUT_PROPERTY, 1000);
+
+		List<Configuration> configurations = new ArrayList<>(annotation.value().length);
+		for (Class<? extends ClassLoaderHolder> holderClass : annotation.value()) {
+			configurations.add(new Configuration(holderClass, scope, leakDetection ? new ClassLoaderLeakDetector(leakDetectionTimeout) : null));
+		}
+
+		this.configurations = unmodifiableList(configurations);
+		this.executor = TestExecutors.get(threadMode, poolSize);
+
+		String reportDirectory = System.getProperty(REPORT_DIR_PROPERTY);
+		this.reportDirectory = reportDirectory == null || reportDirectory.trim().isEmpty() ? null : new File(reportDirectory.trim());
+		this.report = this.reportDirectory == null ? null : new TestReport(testClass.getName());
+
+		// Unless the parallelism is set, variants of a test run at the same time, but tests run one after another.
+		int parallelism = SystemProperties.getInt(PARALLELISM_PROPERTY, annotation.parallelism());
+		boolean variantsOnly = parallelism == 1 && configurations.size() > 1 && System.getProperty(PARALLELISM_PROPERTY) == null;
+		this.variantGate = variantsOnly ? new VariantGate() : null;
+		if (variantsOnly) {
+			setScheduler(new ParallelRunnerScheduler(configurations.size()));
+		}
+		else if (parallelism > 1) {
+			setScheduler(new ParallelRunnerScheduler(parallelism));
+		}
+	}
+
+	@Override
+	protected void runChild(FrameworkMethod method, RunNotifier notifier) {
+		if (variantGate == null) {
+			super.runChild(method, notifier);
+			return;
+		}
+
+		try {
+			variantGate.enter(method.getMethod());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ex);
+		}
+
+		try {
+			super.runChild(method, notifier);
+		}
+		finally {
+			variantGate.exit();
+		}
+	}
+
+	@Override
+	protected List<FrameworkMethod> getChildren() {
+		List<FrameworkMethod> methods = super.getChildren();
+		if (configurations.size() == 1) {
+			return methods;
+		}
+
+		// Variants of a test are scheduled one after another, so that they run at the same time.
+		List<FrameworkMethod> children = new ArrayList<>(methods.size() * configurations.size());
+		for (FrameworkMethod method : methods) {
+			for (Configuration configuration : configurations) {
+				children.add(new ConfiguredFrameworkMethod(method, configuration));
+			}
+		}
+
+		return children;
+	}
+
+	@Override
+	protected String testName(FrameworkMethod method) {
+		String testName = super.testName(method);
+		return method instanceof ConfiguredFrameworkMethod ? testName + "[" + ((ConfiguredFrameworkMethod) method).configuration.name + "]" : testName;
+	}
+
+	@Override
+	protected Statement methodBlock(FrameworkMethod method) {
+		// Test rules are created by this method, in this thread: the configuration is given to getTestRules this way.
+		Configuration configuration = method instanceof ConfiguredFrameworkMethod ? ((ConfiguredFrameworkMethod) method).configuration : configurations.get(0);
+		CURRENT_CONFIGURATION.set(configuration);
+		try {
+			return super.methodBlock(method);
+		}
+		finally {
+			CURRENT_CONFIGURATION.remove();
+		}
 	}
 
 	@Override
 	protected List<TestRule> getTestRules(Object target) {
+		Configuration configuration = CURRENT_CONFIGURATION.get();
+		if (configuration == null) {
+			configuration = configurations.get(0);
+		}
+
 		List<TestRule> testRules = super.getTestRules(target);
-		testRules.add(new ClassLoaderInjectionRule(target, classLoaderHolder));
-		testRules.add(new ClassLoaderRule(classLoaderHolder));
-		testRules.add(new RunInNewThreadRule(classLoaderHolder));
+		testRules.add(new ClassLoaderInjectionRule(target, configuration.classLoaderHolder));
+		testRules.add(new ClassLoaderRule(configuration.classLoaderHolder));
+		testRules.add(new RunInNewThreadRule(configuration.scopedClassLoaderHolder, executor, report, configuration.leakDetector));
 		return testRules;
 	}
 
+	@Override
+	protected Statement classBlock(RunNotifier notifier) {
+		final Statement statement = super.classBlock(notifier);
+		if (report == null && !leakDetection) {
+			return statement;
+		}
+
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				try {
+					statement.evaluate();
+				}
+				finally {
+					afterClass();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Check for classloader leaks, and write the report, once all unit test methods have been executed.
+	 *
+	 * @throws Exception If the report cannot be written.
+	 */
+	private void afterClass() throws Exception {
+		for (Configuration configuration : configurations) {
+			if (configuration.leakDetector == null) {
+				continue;
+			}
+
+			for (ClassLoaderLeakDetector.Leak leak : configuration.leakDetector.check(configuration.scopedClassLoaderHolder)) {
+				LOGGER.log(Level.WARNING, leak.toString());
+				if (report != null) {
+					report.record(leak.getDescription(), "leakedClassLoader", 1);
+				}
+			}
+		}
+
+		if (report != null) {
+			report.write(reportDirectory);
+		}
+	}
+
 	/**
 	 * Find the {@link RunWithClassLoader} annotation, that will be used to create the choose the custom classloader holder
 	 * to use for the test suite.
 	 *
 	 * @param testClass The tested class.
 	 * @return The annotation instance.
+	 * @throws IllegalStateException If the annotation cannot be found in the class hierarchy.
 	 */
 	private static RunWithClassLoader findAnnotation(Class<?> testClass) {
-		return Reflections.findAnnotation(testClass, RunWithClassLoader.class, "Try to instantiate custom classloader, but cannot find @RunWithClassLoader annotation, please specify it.");
+		RunWithClassLoader annotation = TestClassMetadata.of(testClass).getRunWithClassLoader();
+		if (annotation == null) {
+			throw new IllegalStateException("Try to instantiate custom classloader, but cannot find @RunWithClassLoader annotation, please specify it.");
+		}
+
+		if (annotation.value().length == 0) {
+			throw new IllegalStateException("@RunWithClassLoader annotation must specify at least one classloader holder.");
+		}
+
+		if (new HashSet<>(asList(annotation.value())).size() != annotation.value().length) {
+			throw new IllegalStateException("@RunWithClassLoader annotation must not specify the same classloader holder twice.");
+		}
+
+		return annotation;
+	}
+
+	/**
+	 * A classloader configuration: the holders created for a {@link ClassLoaderHolder} class given by
+	 * {@link RunWithClassLoader#value()}.
+	 */
+	private static final class Configuration {
+		/**
+		 * The configuration name, appended to test names when several configurations are given.
+		 */
+		private final String name;
+
+		/**
+		 * The classloader holder that will be able to load a custom classloader.
+		 */
+		private final ClassLoaderHolder classLoaderHolder;
+
+		/**
+		 * The holder returning the classloader of each unit test method, according to the classloader scope.
+		 */
+		private final ScopedClassLoaderHolder scopedClassLoaderHolder;
+
+		/**
+		 * The classloader leak detector, {@code null} if leak detection is disabled.
+		 */
+		private final ClassLoaderLeakDetector leakDetector;
+
+		private Configuration(Class<? extends ClassLoaderHolder> holderClass, ClassLoaderScope scope, ClassLoaderLeakDetector leakDetector) {
+			this.name = holderClass.getSimpleName();
+			this.scopedClassLoaderHolder = ScopedClassLoaderHolder.of(holderClass, scope);
+			this.classLoaderHolder = scopedClassLoaderHolder.getDelegate();
+			this.leakDetector = leakDetector;
+		}
+	}
+
+	/**
+	 * A gate letting the variants of a unit test method run at the same time, but never variants of two
+	 * different methods: variants of a method are scheduled one after another (see {@link CustomClassLoaderRunner#getChildren()}),
+	 * so the variants of the next method wait until all variants of the current method are done.
+	 */
+	private static final class VariantGate {
+		/**
+		 * The unit test method whose variants are running, {@code null} if no variant is running.
+		 */
+		private Method running;
+
+		/**
+		 * The number of running variants.
+		 */
+		private int count;
+
+		/**
+		 * Wait until no variant of another unit test method is running.
+		 *
+		 * @param method The unit test method.
+		 * @throws InterruptedException If the thread is interrupted while waiting.
+		 */
+		synchronized void enter(Method method) throws InterruptedException {
+			while (count > 0 && !running.equals(method)) {
+				wait();
+			}
+
+			running = method;
+			count++;
+		}
+
+		/**
+		 * Notify the end of a variant.
+		 */
+		synchronized void exit() {
+			count--;
+			if (count == 0) {
+				running = null;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * A unit test method, run with a given classloader configuration.
+	 */
+	private static final class ConfiguredFrameworkMethod extends FrameworkMethod {
+		/**
+		 * The classloader configuration.
+		 */
+		private final Configuration configuration;
+
+		private ConfiguredFrameworkMethod(FrameworkMethod method, Configuration configuration) {
+			super(method.getMethod());
+			this.configuration = configuration;
+		}
+
+		// Descriptions are cached by JUnit, using framework methods as keys: the configuration must be part of equality.
+		@Override
+		public boolean equals(Object o) {
+			return super.equals(o) && o instanceof ConfiguredFrameworkMethod && ((ConfiguredFrameworkMethod) o).configuration == configuration;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * super.hashCode() + configuration.hashCode();
+		}
 	}
 }
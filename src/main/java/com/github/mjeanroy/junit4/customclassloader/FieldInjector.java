@@ -0,0 +1,155 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Write the value of a field, using a {@link MethodHandle} resolved once.
+ *
+ * The field is made accessible when the injector is created, and never changed afterwards:
+ * the same injector can be safely used by several threads at the same time.
+ */
+final class FieldInjector {
+
+	/**
+	 * The generic setter type: {@code (Object target, Object value) -> void}.
+	 */
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * Create the injector of given field.
+	 *
+	 * @param field The field.
+	 * @return The injector.
+	 */
+	static FieldInjector of(Field field) {
+		// Work on a private copy, so that the accessible flag of the given field is never changed.
+		Field copy = copyOf(field);
+		copy.setAccessible(true);
+		return new FieldInjector(copy, unreflectSetter(copy));
+	}
+
+	/**
+	 * The field.
+	 */
+	private final Field field;
+
+	/**
+	 * The setter, {@code null} if the field cannot be written with a method handle (such as final fields
+	 * on older JVM): in this case, the value is written using reflection.
+	 */
+	private final MethodHandle setter;
+
+	private FieldInjector(Field field, MethodHandle setter) {
+		this.field = field;
+		this.setter = setter;
+	}
+
+	/**
+	 * Get the field name.
+	 *
+	 * @return The field name.
+	 */
+	String getName() {
+		return field.getName();
+	}
+
+	/**
+	 * Get the field type.
+	 *
+	 * @return The field type.
+	 */
+	Class<?> getType() {
+		return field.getType();
+	}
+
+	/**
+	 * Get the field declaring class.
+	 *
+	 * @return The declaring class.
+	 */
+	Class<?> getDeclaringClass() {
+		return field.getDeclaringClass();
+	}
+
+	/**
+	 * Update value of the field on given class instance.
+	 *
+	 * @param target The target instance.
+	 * @param value The value to set.
+	 */
+	void inject(Object target, Object value) {
+		if (setter == null) {
+			try {
+				field.set(target, value);
+			}
+			catch (IllegalAccessException ex) {
+				throw new RuntimeException(ex);
+			}
+
+			return;
+		}
+
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch (RuntimeException | Error ex) {
+			throw ex;
+		}
+		catch (Throwable ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	private static Field copyOf(Field field) {
+		try {
+			return field.getDeclaringClass().getDeclaredField(field.getName());
+		}
+		catch (NoSuchFieldException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static MethodHandle unreflectSetter(Field field) {
+		try {
+			MethodHandle setter = MethodHandles.lookup().unreflectSetter(field);
+
+			// The setter of a static field has no target parameter: the target given to inject is ignored.
+			if (Modifier.isStatic(field.getModifiers())) {
+				setter = MethodHandles.dropArguments(setter, 0, Object.class);
+			}
+
+			return setter.asType(SETTER_TYPE);
+		}
+		catch (IllegalAccessException ex) {
+			return null;
+		}
+	}
+}
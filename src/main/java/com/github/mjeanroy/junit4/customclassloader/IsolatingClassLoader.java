@@ -0,0 +1,267 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.SecureClassLoader;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * A child-first {@link ClassLoader} implementation that defines classes itself, instead of delegating
+ * to the parent classloader, for a configured set of classes (typically, the application packages).
+ *
+ * Since each instance defines its own version of these classes, static state, singletons and static
+ * initializers are never shared between two instances: this is especially useful to isolate tests
+ * from each other without forking a new JVM.
+ *
+ * Note that only classes loaded through this classloader are isolated (for example, using the
+ * thread context classloader): classes directly referenced by the test class are still loaded
+ * by the classloader of the test class.
+ *
+ * The bytecode of isolated classes is resolved through the parent classloader, read once per JVM and shared
+ * by all instances with the same parent, so creating a fresh classloader only costs the class definitions.
+ * Defined classes get the code source (and packages get the manifest attributes) of the classpath entry
+ * they are read from, as if they were loaded by the parent classloader.
+ */
+public class IsolatingClassLoader extends SecureClassLoader implements InstrumentedClassLoader {
+
+	// Classes are defined by this classloader: use per-class locks instead of
+	// locking the whole classloader.
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	/**
+	 * The rules matching classes to define in this classloader.
+	 */
+	private final ClassNameMatcher isolated;
+
+	/**
+	 * The bytecode cache.
+	 */
+	private final BytecodeCache bytecodeCache;
+
+	/**
+	 * The class loading metrics.
+	 */
+	private final ClassLoadingMetrics metrics;
+
+	/**
+	 * The profiler of static initializers, {@code null} if static initializers are not profiled.
+	 */
+	private final ClinitProfiler clinitProfiler;
+
+	/**
+	 * The packages defined by this classloader.
+	 * Note that {@link #getPackage(String)} cannot be used, since it also returns packages of parent classloaders.
+	 */
+	private final Set<String> definedPackages;
+
+	/**
+	 * Create the classloader.
+	 *
+	 * @param parent The parent classloader.
+	 * @param isolated The rules matching isolated classes.
+	 * @param bytecodeCache The bytecode cache.
+	 */
+	IsolatingClassLoader(ClassLoader parent, ClassNameMatcher isolated, BytecodeCache bytecodeCache) {
+		this(parent, isolated, bytecodeCache, false);
+	}
+
+	/**
+	 * Create the classloader.
+	 *
+	 * @param parent The parent classloader.
+	 * @param isolated The rules matching isolated classes.
+	 * @param bytecodeCache The bytecode cache.
+	 * @param profileClinit Flag to profile static initializers of isolated classes (see {@link ClinitProfiler}).
+	 */
+	IsolatingClassLoader(ClassLoader parent, ClassNameMatcher isolated, BytecodeCache bytecodeCache, boolean profileClinit) {
+		super(parent);
+		this.isolated = isolated;
+		this.bytecodeCache = bytecodeCache;
+		this.metrics = new ClassLoadingMetrics();
+		this.clinitProfiler = profileClinit ? new ClinitProfiler(metrics) : null;
+		this.definedPackages = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		if (!isolated.matches(name)) {
+			long start = metrics.start();
+			try {
+				metrics.delegated();
+				Class<?> klass = super.loadClass(name, resolve);
+				metrics.loaded(name);
+				return klass;
+			}
+			finally {
+				metrics.end(start);
+			}
+		}
+
+		if (clinitProfiler != null) {
+			ClinitProfiler.enter();
+		}
+
+		Class<?> klass = null;
+		long start = metrics.start();
+		try {
+			synchronized (getClassLoadingLock(name)) {
+				klass = findLoadedClass(name);
+				if (klass == null) {
+					klass = findClass(name);
+
+					// Initializing the class now could fail if it references a class being defined (e.g a subclass).
+					if (clinitProfiler != null) {
+						clinitProfiler.defer(klass);
+					}
+				}
+
+				if (resolve) {
+					resolveClass(klass);
+				}
+			}
+
+			metrics.loaded(name);
+		}
+		finally {
+			metrics.end(start);
+
+			// Initialize queued classes outside of the class loading lock, and outside of the class loading time.
+			if (clinitProfiler != null) {
+				ClinitProfiler.exit(klass != null);
+			}
+		}
+
+		return klass;
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		BytecodeCache.ClassFile classFile = bytecodeCache.getClassFile(getParent(), name);
+		if (classFile == null) {
+			throw new ClassNotFoundException(name);
+		}
+
+		byte[] bytecode = transform(name, classFile.getBytecode());
+		definePackageIfNeeded(name, classFile);
+		Class<?> klass = defineClass(name, bytecode, 0, bytecode.length, classFile.getCodeSource());
+		metrics.defined(bytecode.length);
+		return klass;
+	}
+
+	/**
+	 * Get the bytecode of an isolated class to define, from the bytecode read from the classpath.
+	 * Note that given array is shared and must not be modified.
+	 *
+	 * @param name The class name (fully qualified name).
+	 * @param bytecode The bytecode read from the classpath.
+	 * @return The bytecode to define.
+	 */
+	byte[] transform(String name, byte[] bytecode) {
+		return bytecode;
+	}
+
+	/**
+	 * Check if given class is defined by this classloader.
+	 *
+	 * @param name The class name (fully qualified name).
+	 * @return {@code true} if the class is isolated, {@code false} otherwise.
+	 */
+	public boolean isIsolated(String name) {
+		return isolated.matches(name);
+	}
+
+	@Override
+	public ClassLoadingMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Get the profiler of static initializers.
+	 *
+	 * @return The profiler, {@code null} if static initializers are not profiled.
+	 */
+	ClinitProfiler getClinitProfiler() {
+		return clinitProfiler;
+	}
+
+	private void definePackageIfNeeded(String className, BytecodeCache.ClassFile classFile) {
+		int index = className.lastIndexOf('.');
+		if (index < 0) {
+			return;
+		}
+
+		String packageName = className.substring(0, index);
+		if (definedPackages.contains(packageName)) {
+			return;
+		}
+
+		synchronized (definedPackages) {
+			if (!definedPackages.contains(packageName)) {
+				try {
+					Manifest manifest = classFile.getManifest();
+					if (manifest == null) {
+						definePackage(packageName, null, null, null, null, null, null, null);
+					}
+					else {
+						definePackage(packageName, manifest, classFile.getCodeSource());
+					}
+				}
+				catch (IllegalArgumentException ex) {
+					// Before Java 9, packages of parent classloaders cannot be defined again, nothing to do.
+				}
+
+				definedPackages.add(packageName);
+			}
+		}
+	}
+
+	// Same as URLClassLoader: attributes of the package entry take precedence over the main attributes.
+	private void definePackage(String packageName, Manifest manifest, CodeSource codeSource) {
+		String path = packageName.replace('.', '/') + '/';
+		String specTitle = attribute(manifest, path, Attributes.Name.SPECIFICATION_TITLE);
+		String specVersion = attribute(manifest, path, Attributes.Name.SPECIFICATION_VERSION);
+		String specVendor = attribute(manifest, path, Attributes.Name.SPECIFICATION_VENDOR);
+		String implTitle = attribute(manifest, path, Attributes.Name.IMPLEMENTATION_TITLE);
+		String implVersion = attribute(manifest, path, Attributes.Name.IMPLEMENTATION_VERSION);
+		String implVendor = attribute(manifest, path, Attributes.Name.IMPLEMENTATION_VENDOR);
+		boolean sealed = "true".equalsIgnoreCase(attribute(manifest, path, Attributes.Name.SEALED));
+		URL sealBase = sealed ? codeSource.getLocation() : null;
+		definePackage(packageName, specTitle, specVersion, specVendor, implTitle, implVersion, implVendor, sealBase);
+	}
+
+	private static String attribute(Manifest manifest, String path, Attributes.Name name) {
+		Attributes attributes = manifest.getAttributes(path);
+		String value = attributes == null ? null : attributes.getValue(name);
+		return value == null ? manifest.getMainAttributes().getValue(name) : value;
+	}
+}
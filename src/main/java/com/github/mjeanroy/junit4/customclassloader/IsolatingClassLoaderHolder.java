@@ -0,0 +1,86 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+/**
+ * Implementation of {@link ClassLoaderHolder} that will load {@link IsolatingClassLoader} instance.
+ *
+ * The isolated classes are given using the same rules as {@link BlackListClassLoader}, so this holder
+ * should be extended to specify the application packages, for example:
+ *
+ * <pre><code>
+ *   public class MyClassLoaderHolder extends IsolatingClassLoaderHolder {
+ *     public MyClassLoaderHolder() {
+ *       super("com.mycompany.myapp.**");
+ *     }
+ *   }
+ * </code></pre>
+ *
+ * Classes defined by an isolating classloader cannot be unloaded, so classloaders are never reused: the
+ * classloader of the next test is created in the background while the current test is running.
+ */
+public class IsolatingClassLoaderHolder extends AbstractClassLoaderHolder implements ClassLoaderHolder {
+	/**
+	 * The rules matching isolated classes.
+	 */
+	private final ClassNameMatcher isolated;
+
+	/**
+	 * Create the holder.
+	 *
+	 * @param rules The rules matching isolated classes.
+	 */
+	protected IsolatingClassLoaderHolder(String... rules) {
+		this(1, rules);
+	}
+
+	/**
+	 * Create the holder.
+	 *
+	 * @param poolSize The number of classloaders created ahead of time, classloaders are created on demand if it is negative or zero.
+	 * @param rules The rules matching isolated classes.
+	 */
+	protected IsolatingClassLoaderHolder(int poolSize, String... rules) {
+		super(poolSize);
+		this.isolated = new ClassNameMatcher();
+		for (String rule : rules) {
+			this.isolated.add(rule);
+		}
+	}
+
+	/**
+	 * Get the rules matching isolated classes.
+	 *
+	 * @return The rules.
+	 */
+	ClassNameMatcher getIsolated() {
+		return isolated;
+	}
+
+	@Override
+	protected ClassLoader createClassLoader() {
+		return new IsolatingClassLoader(getParentClassLoader(), isolated, BytecodeCache.getInstance(), ClinitProfiler.isEnabled());
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation that can be used to fail a unit test method when it allocates more memory than expected.
+ *
+ * Since each unit test method runs in a dedicated thread, the memory allocated by this thread is the memory
+ * allocated by the test (including rules, {@code @Before} and {@code @After} methods, and class loading).
+ * Memory allocated by other threads started by the test is not taken into account.
+ *
+ * The annotation can be added on a unit test method, or on the test class (in this case, it applies to all
+ * unit test methods of the class).
+ *
+ * Note that the allocated memory is measured using {@code com.sun.management.ThreadMXBean}: the limit cannot be
+ * enforced if the JVM does not support it, or with {@link ThreadMode#VIRTUAL_THREAD}, and the test is then reported
+ * as skipped (assumption failure).
+ *
+ * For example:
+ *
+ * <pre><code>
+ *   &#064;Test
+ *   &#064;MaxAllocatedBytes(512 * 1024)
+ *   public void test() {
+ *   }
+ * </code></pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Inherited
+@Documented
+public @interface MaxAllocatedBytes {
+
+	/**
+	 * The maximum number of bytes allocated by the unit test method, 1 MB by default.
+	 *
+	 * @return The maximum number of bytes.
+	 */
+	long value() default 1024 * 1024;
+}
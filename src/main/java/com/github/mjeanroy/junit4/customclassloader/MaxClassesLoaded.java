@@ -0,0 +1,63 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation that can be used to fail a unit test method when it loads more classes than expected, for
+ * example to make sure that a startup path does not pull a large part of the classpath.
+ *
+ * Loaded classes are the distinct classes loaded through the classloader of the test (i.e classes delegated
+ * to the parent classloader, and classes defined by an isolating classloader): a class requested several times
+ * is counted once, and classes loaded directly by the classloader of the test class are not taken into account.
+ *
+ * The JVM does not request again a class already loaded through a classloader, so a test with this budget
+ * always runs with a new classloader, whatever the {@link ClassLoaderScope}.
+ *
+ * The annotation can be added on a unit test method, or on the test class (in this case, it applies to all
+ * unit test methods of the class).
+ * Note that it can only be enforced with instrumented classloaders (see {@link InstrumentedClassLoader}, such as
+ * {@link BlackListClassLoader} and {@link IsolatingClassLoader}): with other classloaders, the test is reported as
+ * skipped (assumption failure).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Inherited
+@Documented
+public @interface MaxClassesLoaded {
+
+	/**
+	 * The maximum number of classes loaded by the unit test method.
+	 *
+	 * @return The maximum number of classes.
+	 */
+	long value();
+}
@@ -0,0 +1,54 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+/**
+ * Implementation of {@link TestExecutor} that starts a new thread for each task.
+ */
+final class NewThreadExecutor implements TestExecutor {
+
+	/**
+	 * The shared instance.
+	 */
+	static final NewThreadExecutor INSTANCE = new NewThreadExecutor();
+
+	private NewThreadExecutor() {
+	}
+
+	@Override
+	public void execute(String name, ClassLoader classLoader, Runnable task) throws InterruptedException {
+		Thread thread = new Thread(task);
+
+		// Set the thread name, can be interesting for debugging.
+		thread.setName(name);
+
+		// Use the custom classloader.
+		thread.setContextClassLoader(classLoader);
+
+		// Now, we can start the thread!
+		thread.start();
+		thread.join();
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * Implementation of {@link RunnerScheduler} running children of a test class concurrently,
+ * using a bounded number of threads.
+ *
+ * Results are still reported through the {@link org.junit.runner.notification.RunNotifier} given to the
+ * runner: this notifier is thread-safe and serializes listeners that are not thread-safe.
+ */
+final class ParallelRunnerScheduler implements RunnerScheduler {
+
+	/**
+	 * The executor running the children.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * The scheduled children.
+	 */
+	private final List<Future<?>> futures;
+
+	/**
+	 * Create the scheduler.
+	 *
+	 * @param parallelism The maximum number of children running at the same time.
+	 */
+	ParallelRunnerScheduler(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be strictly positive");
+		}
+
+		this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new SchedulerThreadFactory());
+		this.futures = new ArrayList<>();
+	}
+
+	@Override
+	public void schedule(Runnable childStatement) {
+		synchronized (futures) {
+			futures.add(executor.submit(childStatement));
+		}
+	}
+
+	@Override
+	public void finished() {
+		executor.shutdown();
+
+		List<Future<?>> scheduled;
+		synchronized (futures) {
+			scheduled = new ArrayList<>(futures);
+		}
+
+		try {
+			for (Future<?> future : scheduled) {
+				future.get();
+			}
+		}
+		catch (InterruptedException ex) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ex);
+		}
+		catch (ExecutionException ex) {
+			// Children report failures to the notifier, so this is an unexpected error (such as a stop requested
+			// by the user): propagate it as is.
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Factory creating the scheduler threads.
+	 */
+	private static final class SchedulerThreadFactory implements ThreadFactory {
+		private static final AtomicInteger COUNTER = new AtomicInteger(0);
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "JUnit-scheduler-" + COUNTER.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
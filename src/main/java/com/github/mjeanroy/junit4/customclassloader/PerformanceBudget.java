@@ -0,0 +1,186 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AssumptionViolatedException;
+import org.junit.runner.Description;
+
+/**
+ * The performance budget of a unit test method, given by the {@link MaxDuration}, {@link MaxAllocatedBytes}
+ * and {@link MaxClassesLoaded} annotations (on the test method, or on the test class).
+ */
+final class PerformanceBudget {
+
+	/**
+	 * An empty budget: nothing is checked.
+	 */
+	static final PerformanceBudget NONE = new PerformanceBudget(-1, -1, -1);
+
+	/**
+	 * Get the budget of a unit test method.
+	 *
+	 * @param description The test description.
+	 * @return The budget.
+	 */
+	static PerformanceBudget of(Description description) {
+		MaxDuration maxDuration = Reflections.findAnnotation(description, MaxDuration.class);
+		MaxAllocatedBytes maxAllocatedBytes = Reflections.findAnnotation(description, MaxAllocatedBytes.class);
+		MaxClassesLoaded maxClassesLoaded = Reflections.findAnnotation(description, MaxClassesLoaded.class);
+
+		if (maxDuration == null && maxAllocatedBytes == null && maxClassesLoaded == null) {
+			return NONE;
+		}
+
+		return new PerformanceBudget(
+				maxDuration == null ? -1 : maxDuration.unit().toNanos(maxDuration.value()),
+				maxAllocatedBytes == null ? -1 : maxAllocatedBytes.value(),
+				maxClassesLoaded == null ? -1 : maxClassesLoaded.value()
+		);
+	}
+
+	/**
+	 * The maximum duration, in nanoseconds, {@code -1} if not checked.
+	 */
+	private final long maxDurationNanos;
+
+	/**
+	 * The maximum allocated memory, in bytes, {@code -1} if not checked.
+	 */
+	private final long maxAllocatedBytes;
+
+	/**
+	 * The maximum number of loaded classes, {@code -1} if not checked.
+	 */
+	private final long maxClassesLoaded;
+
+	/**
+	 * Create the budget.
+	 *
+	 * @param maxDurationNanos The maximum duration, in nanoseconds, {@code -1} if not checked.
+	 * @param maxAllocatedBytes The maximum allocated memory, in bytes, {@code -1} if not checked.
+	 * @param maxClassesLoaded The maximum number of loaded classes, {@code -1} if not checked.
+	 */
+	PerformanceBudget(long maxDurationNanos, long maxAllocatedBytes, long maxClassesLoaded) {
+		this.maxDurationNanos = maxDurationNanos;
+		this.maxAllocatedBytes = maxAllocatedBytes;
+		this.maxClassesLoaded = maxClassesLoaded;
+	}
+
+	/**
+	 * Check if this budget is empty, i.e nothing has to be checked.
+	 *
+	 * @return {@code true} if the budget is empty, {@code false} otherwise.
+	 */
+	boolean isEmpty() {
+		return maxDurationNanos < 0 && maxAllocatedBytes < 0 && maxClassesLoaded < 0;
+	}
+
+	/**
+	 * Check if the number of loaded classes must be checked.
+	 *
+	 * @return {@code true} if the number of loaded classes must be checked, {@code false} otherwise.
+	 */
+	boolean hasMaxClassesLoaded() {
+		return maxClassesLoaded >= 0;
+	}
+
+	/**
+	 * Check measurements of a unit test method against this budget.
+	 * A measurement that is not available (i.e negative values, or {@code null} class loading metrics) cannot be
+	 * checked: if its budget is set, the test is reported as skipped (unless another measurement exceeds its budget).
+	 *
+	 * @param description The test description.
+	 * @param durationNanos The test duration, in nanoseconds.
+	 * @param usage The usage of the test thread.
+	 * @param stats The class loading metrics of the test, may be {@code null}.
+	 * @return The error to report, with the breakdown of all measurements, an {@link AssumptionViolatedException} if the budget
+	 *         cannot be checked, {@code null} if the budget is not exceeded.
+	 */
+	Throwable check(Description description, long durationNanos, ThreadUsage usage, ClassLoadingStats stats) {
+		long classesLoaded = stats == null ? -1 : stats.getLoaded();
+
+		boolean durationExceeded = exceeds(durationNanos, maxDurationNanos);
+		boolean allocationExceeded = exceeds(usage.getAllocatedBytes(), maxAllocatedBytes);
+		boolean classLoadingExceeded = exceeds(classesLoaded, maxClassesLoaded);
+
+		if (!durationExceeded && !allocationExceeded && !classLoadingExceeded) {
+			return unavailable(description, durationNanos, usage.getAllocatedBytes(), classesLoaded);
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("Test ").append(description.getDisplayName()).append(" exceeded its performance budget:");
+		appendLine(sb, "duration", format(durationNanos, "ns"), maxDurationNanos < 0 ? null : format(maxDurationNanos, "ns"), durationExceeded);
+		appendLine(sb, "allocated memory", format(usage.getAllocatedBytes(), "bytes"), maxAllocatedBytes < 0 ? null : format(maxAllocatedBytes, "bytes"), allocationExceeded);
+		appendLine(sb, "loaded classes", format(classesLoaded, "classes"), maxClassesLoaded < 0 ? null : format(maxClassesLoaded, "classes"), classLoadingExceeded);
+		appendLine(sb, "CPU time", format(usage.getCpuTimeNanos(), "ns"), null, false);
+
+		if (stats != null) {
+			appendLine(sb, "class loading", stats.getRequested() + " requested, " + stats.getDelegated() + " delegated, " + stats.getDenied() + " denied, " + stats.getDefined() + " defined (" + stats.getDefinedBytes() + " bytes) in " + TimeUnit.NANOSECONDS.toMillis(stats.getLoadTimeNanos()) + " ms", null, false);
+			if (stats.getInitialized() > 0) {
+				appendLine(sb, "static initializers", stats.getInitialized() + " initialized in " + TimeUnit.NANOSECONDS.toMillis(stats.getInitTimeNanos()) + " ms", null, false);
+			}
+		}
+
+		return new AssertionError(sb.toString());
+	}
+
+	private AssumptionViolatedException unavailable(Description description, long durationNanos, long allocatedBytes, long classesLoaded) {
+		StringBuilder sb = new StringBuilder();
+		if (maxDurationNanos >= 0 && durationNanos < 0) {
+			sb.append("\n  - @MaxDuration: duration is not available");
+		}
+
+		if (maxAllocatedBytes >= 0 && allocatedBytes < 0) {
+			sb.append("\n  - @MaxAllocatedBytes: allocated memory is not available (virtual thread, or JVM that does not measure thread allocations)");
+		}
+
+		if (maxClassesLoaded >= 0 && classesLoaded < 0) {
+			sb.append("\n  - @MaxClassesLoaded: loaded classes are not available (the test classloader is not an instrumented classloader)");
+		}
+
+		return sb.length() == 0 ? null : new AssumptionViolatedException("Performance budget of test " + description.getDisplayName() + " cannot be checked:" + sb);
+	}
+
+	private static boolean exceeds(long value, long max) {
+		return max >= 0 && value >= 0 && value > max;
+	}
+
+	private static String format(long value, String unit) {
+		return value < 0 ? "n/a" : value + " " + unit;
+	}
+
+	private static void appendLine(StringBuilder sb, String name, String value, String max, boolean exceeded) {
+		sb.append("\n  - ").append(name).append(": ").append(value);
+		if (max != null) {
+			sb.append(" (max: ").append(max).append(")");
+		}
+
+		if (exceeded) {
+			sb.append(" <-- EXCEEDED");
+		}
+	}
+}
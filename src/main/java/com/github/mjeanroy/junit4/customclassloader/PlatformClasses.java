@@ -0,0 +1,98 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Static utilities detecting JDK classes, using the platform classloader (the extension classloader
+ * before Java 9).
+ *
+ * Note that a package may be split between the JDK and a jar of the classpath (for example, {@code org.w3c.dom}
+ * is shipped by both the JDK and xml-apis, and {@code javax.annotation} by both Java 8 and jsr305): JDK
+ * membership must be checked for each class, not for each package.
+ *
+ * Results are cached for the JVM lifetime and shared by all classloaders: the JDK does not change while tests are running.
+ */
+final class PlatformClasses {
+
+	/**
+	 * The classloader used to detect JDK classes.
+	 */
+	private static final ClassLoader PLATFORM_CLASS_LOADER = platformClassLoader();
+
+	/**
+	 * The classes already checked: {@code true} if the class is a JDK class, {@code false} otherwise.
+	 */
+	private static final ConcurrentMap<String, Boolean> CACHE = new ConcurrentHashMap<>();
+
+	// Ensure non instantiation.
+	private PlatformClasses() {
+	}
+
+	/**
+	 * Check if given class is a JDK class, i.e can be loaded by the platform classloader.
+	 *
+	 * @param name The class name (fully qualified name).
+	 * @return {@code true} if the class is a JDK class, {@code false} otherwise.
+	 */
+	static boolean contains(String name) {
+		// Only the JDK can define classes in java.* packages.
+		if (name.startsWith("java.")) {
+			return true;
+		}
+
+		Boolean platformClass = CACHE.get(name);
+		if (platformClass == null) {
+			platformClass = load(name);
+			CACHE.put(name, platformClass);
+		}
+
+		return platformClass;
+	}
+
+	private static boolean load(String name) {
+		try {
+			Class.forName(name, false, PLATFORM_CLASS_LOADER);
+			return true;
+		}
+		catch (ClassNotFoundException | LinkageError ex) {
+			return false;
+		}
+	}
+
+	private static ClassLoader platformClassLoader() {
+		try {
+			Method method = ClassLoader.class.getMethod("getPlatformClassLoader");
+			return (ClassLoader) method.invoke(null);
+		}
+		catch (Exception ex) {
+			// Before Java 9: the extension classloader, whose parent is the bootstrap classloader.
+			return ClassLoader.getSystemClassLoader().getParent();
+		}
+	}
+}
@@ -0,0 +1,286 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of {@link TestExecutor} that runs tasks in a pool of reusable worker threads.
+ *
+ * Each task runs with its own thread name and context classloader, restored when the task ends. Thread
+ * locals are also cleared between two tasks: if they cannot be cleared, the worker thread is not reused.
+ */
+final class PooledThreadExecutor implements TestExecutor {
+
+	/**
+	 * The maximum number of tasks running at the same time.
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * The idle worker threads, the most recently used first.
+	 */
+	private final BlockingDeque<Worker> idleWorkers;
+
+	/**
+	 * The number of created worker threads, used to give unique names to workers.
+	 */
+	private final AtomicInteger createdWorkers;
+
+	/**
+	 * The number of worker threads that have not stopped yet (idle or running a task).
+	 */
+	private final AtomicInteger liveWorkers;
+
+	/**
+	 * Create the executor.
+	 *
+	 * @param size The maximum number of worker threads.
+	 */
+	PooledThreadExecutor(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Pool size must be strictly positive");
+		}
+
+		this.permits = new Semaphore(size);
+		this.idleWorkers = new LinkedBlockingDeque<>();
+		this.createdWorkers = new AtomicInteger(0);
+		this.liveWorkers = new AtomicInteger(0);
+	}
+
+	@Override
+	public void execute(String name, ClassLoader classLoader, Runnable task) throws InterruptedException {
+		permits.acquire();
+
+		Task submitted = new Task(name, classLoader, task, permits);
+		Worker worker = null;
+
+		try {
+			worker = idleWorkers.pollFirst();
+			if (worker == null) {
+				worker = new Worker("JUnit-worker-" + createdWorkers.incrementAndGet(), liveWorkers);
+				liveWorkers.incrementAndGet();
+				worker.start();
+			}
+
+			worker.submit(submitted);
+		}
+		catch (InterruptedException | RuntimeException | Error ex) {
+			// The task has not been started: the worker is still idle.
+			if (worker != null) {
+				idleWorkers.offerFirst(worker);
+			}
+
+			permits.release();
+			throw ex;
+		}
+
+		// From now on, the permit is released by the worker thread, once the task is done (even if
+		// the current thread stops waiting for it).
+		if (worker.await(submitted)) {
+			idleWorkers.offerFirst(worker);
+		}
+	}
+
+	/**
+	 * Get the number of idle worker threads.
+	 *
+	 * @return The number of idle worker threads.
+	 */
+	int getIdleWorkers() {
+		return idleWorkers.size();
+	}
+
+	/**
+	 * Get the number of worker threads that have not stopped yet, idle or not.
+	 *
+	 * @return The number of live worker threads.
+	 */
+	int getLiveWorkers() {
+		return liveWorkers.get();
+	}
+
+	/**
+	 * A task submitted to a worker thread.
+	 */
+	private static final class Task {
+		private final String name;
+		private final ClassLoader classLoader;
+		private final Runnable runnable;
+		private final CountDownLatch done;
+
+		// The permit held by this task, released when the task is done.
+		private final Semaphore permits;
+
+		// Written by the worker thread before the latch is released.
+		private volatile boolean reusable;
+
+		// Flag set once the worker is done with the task, guarded by the task lock.
+		private boolean finished;
+
+		// Flag set when the thread submitting the task stops waiting for it, guarded by the task lock:
+		// the worker stops once the task is done.
+		private boolean abandoned;
+
+		private Task(String name, ClassLoader classLoader, Runnable runnable, Semaphore permits) {
+			this.name = name;
+			this.classLoader = classLoader;
+			this.runnable = runnable;
+			this.done = new CountDownLatch(1);
+			this.permits = permits;
+		}
+	}
+
+	/**
+	 * A worker thread, running tasks one after another.
+	 */
+	private static final class Worker extends Thread {
+		/**
+		 * The next task to run.
+		 */
+		private final SynchronousQueue<Task> tasks;
+
+		/**
+		 * The worker name, restored after each task.
+		 */
+		private final String workerName;
+
+		/**
+		 * The worker context classloader, restored after each task.
+		 */
+		private final ClassLoader workerClassLoader;
+
+		/**
+		 * The number of live workers of the executor, decremented when this worker stops.
+		 */
+		private final AtomicInteger liveWorkers;
+
+		private Worker(String name, AtomicInteger liveWorkers) {
+			super(name);
+			this.tasks = new SynchronousQueue<>();
+			this.workerName = name;
+			this.workerClassLoader = getContextClassLoader();
+			this.liveWorkers = liveWorkers;
+			setDaemon(true);
+		}
+
+		/**
+		 * Give a task to this worker.
+		 *
+		 * @param task The task.
+		 * @throws InterruptedException If the current thread is interrupted before the worker takes the task.
+		 */
+		private void submit(Task task) throws InterruptedException {
+			tasks.put(task);
+		}
+
+		/**
+		 * Wait for given task to complete.
+		 *
+		 * If the current thread is interrupted once the task is done, the interruption flag is restored and the
+		 * worker can still be reused: otherwise, the worker is never reused, and stops once the task is done.
+		 *
+		 * @param task The task.
+		 * @return {@code true} if the worker can be reused, {@code false} otherwise.
+		 * @throws InterruptedException If the current thread is interrupted while the task is running.
+		 */
+		private boolean await(Task task) throws InterruptedException {
+			try {
+				task.done.await();
+			}
+			catch (InterruptedException ex) {
+				synchronized (task) {
+					if (!task.finished) {
+						task.abandoned = true;
+						throw ex;
+					}
+				}
+
+				Thread.currentThread().interrupt();
+			}
+
+			return task.reusable;
+		}
+
+		@Override
+		public void run() {
+			try {
+				runTasks();
+			}
+			finally {
+				liveWorkers.decrementAndGet();
+			}
+		}
+
+		private void runTasks() {
+			while (true) {
+				Task task;
+
+				try {
+					task = tasks.take();
+				}
+				catch (InterruptedException ex) {
+					return;
+				}
+
+				boolean failed = false;
+				setName(task.name);
+				setContextClassLoader(task.classLoader);
+
+				try {
+					task.runnable.run();
+				}
+				catch (Throwable ex) {
+					failed = true;
+				}
+				finally {
+					setContextClassLoader(workerClassLoader);
+					setName(workerName);
+
+					// Interruption flag set by the test must not leak to the next one.
+					Thread.interrupted();
+
+					boolean reusable = !failed && ThreadLocals.clear();
+					synchronized (task) {
+						task.finished = true;
+						task.reusable = reusable && !task.abandoned;
+					}
+
+					task.permits.release();
+					task.done.countDown();
+				}
+
+				if (!task.reusable) {
+					return;
+				}
+			}
+		}
+	}
+}
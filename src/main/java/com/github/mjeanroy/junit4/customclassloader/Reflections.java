@@ -32,6 +32,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.junit.runner.Description;
+
 /**
  * Static Reflections Utilities.
  */
@@ -60,6 +62,24 @@ final class Reflections {
 		return annotation;
 	}
 
+	/**
+	 * Find annotation of a unit test: the annotation is searched on the test method first, then on the
+	 * test class (and its superclass hierarchy).
+	 *
+	 * @param description The test description.
+	 * @param annotationClass The annotation class to look for.
+	 * @param <T> Annotation Type.
+	 * @return The annotation instance, {@code null} if neither the method nor the class is annotated.
+	 */
+	static <T extends Annotation> T findAnnotation(Description description, Class<T> annotationClass) {
+		T annotation = description.getAnnotation(annotationClass);
+		if (annotation == null && description.getTestClass() != null) {
+			annotation = findAnnotation(description.getTestClass(), annotationClass);
+		}
+
+		return annotation;
+	}
+
 	/**
 	 * Instantiate class using the default empty constructor (must be public).
 	 *
@@ -103,34 +123,6 @@ final class Reflections {
 		return fields;
 	}
 
-	/**
-	 * Update value of given field on given class instance.
-	 *
-	 * @param target The target instance.
-	 * @param field The field to set value.
-	 * @param value The value to set on given field.
-	 */
-	static void setter(Object target, Field field, Object value) {
-		@SuppressWarnings("deprecation")
-		boolean wasAccessible = field.isAccessible();
-
-		try {
-			if (!wasAccessible) {
-				field.setAccessible(true);
-			}
-
-			field.set(target, value);
-		}
-		catch (IllegalAccessException ex) {
-			throw new RuntimeException(ex);
-		}
-		finally {
-			if (!wasAccessible) {
-				field.setAccessible(false);
-			}
-		}
-	}
-
 	/**
 	 * Find annotation on given class (and go up in the superclass hierarchy if needed).
 	 *
@@ -139,7 +131,7 @@ final class Reflections {
 	 * @param <T> Annotation Type.
 	 * @return The annotation instance, {@code null} if class is not annotated.
 	 */
-	private static <T extends Annotation> T findAnnotation(Class<?> klass, Class<T> annotationClass) {
+	static <T extends Annotation> T findAnnotation(Class<?> klass, Class<T> annotationClass) {
 		Class<?> current = klass;
 		while (current != null) {
 			T annotation = current.getAnnotation(annotationClass);
@@ -0,0 +1,75 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation that can be used to measure the cold-start cost of a unit test method: the method runs several
+ * times, each time with a brand-new classloader (whatever the {@link ClassLoaderScope}), so static initializers
+ * and first uses of classes are measured on each run.
+ *
+ * The min, median and 99th percentile of the duration and of the class loading time of the measured runs are
+ * logged (using {@code java.util.logging}), and added to the report if it is enabled. When static initializers
+ * are profiled (see the {@code junit.customclassloader.clinitProfiling} system property), the class initialization
+ * time is reported as well.
+ *
+ * Note that this is mostly useful with an isolating classloader (see {@link IsolatingClassLoaderHolder}):
+ * classes that are not defined by the test classloader are loaded (and initialized) only once.
+ *
+ * For example:
+ *
+ * <pre><code>
+ *   &#064;Test
+ *   &#064;RepeatInFreshClassLoader(iterations = 20, warmup = 5)
+ *   public void it_should_create_factory() throws Exception {
+ *     Class.forName("com.mycompany.myapp.MyFactory", true, Thread.currentThread().getContextClassLoader());
+ *   }
+ * </code></pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface RepeatInFreshClassLoader {
+
+	/**
+	 * The number of measured runs, must be strictly positive.
+	 *
+	 * @return The number of measured runs.
+	 */
+	int iterations() default 10;
+
+	/**
+	 * The number of runs executed before the measured runs, and that are not measured (for example, to let the
+	 * JIT compile code shared by all classloaders), must be positive or zero.
+	 *
+	 * @return The number of warmup runs.
+	 */
+	int warmup() default 0;
+}
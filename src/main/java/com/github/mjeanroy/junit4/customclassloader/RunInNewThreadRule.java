@@ -24,6 +24,10 @@
 
 package com.github.mjeanroy.junit4.customclassloader;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
 import org.junit.rules.TestRule;
 import org.junit.runner.Description;
 import org.junit.runners.model.Statement;
@@ -34,6 +38,11 @@ import org.junit.runners.model.Statement;
  * new class loader.
  */
 class RunInNewThreadRule implements TestRule {
+	/**
+	 * The logger, used to log cold start statistics and static initializers.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(RunInNewThreadRule.class.getName());
+
 	/**
 	 * The class loader holder that will return the class loader to use
 	 * for each unit test method.
@@ -41,17 +50,57 @@ class RunInNewThreadRule implements TestRule {
 	private final ClassLoaderHolder classLoaderHolder;
 
 	/**
-	 * Create the rule.
+	 * The executor that will run each unit test method in a dedicated thread.
+	 */
+	private final TestExecutor executor;
+
+	/**
+	 * The report where metrics of each test are recorded, may be {@code null}.
+	 */
+	private final TestReport report;
+
+	/**
+	 * The leak detector tracking the classloader of each test, may be {@code null}.
+	 */
+	private final ClassLoaderLeakDetector leakDetector;
+
+	/**
+	 * Create the rule, each test will be executed in a new thread.
 	 *
 	 * @param classLoaderHolder The class loader holder.
 	 */
 	RunInNewThreadRule(ClassLoaderHolder classLoaderHolder) {
+		this(classLoaderHolder, NewThreadExecutor.INSTANCE);
+	}
+
+	/**
+	 * Create the rule.
+	 *
+	 * @param classLoaderHolder The class loader holder.
+	 * @param executor The executor that will run each unit test method.
+	 */
+	RunInNewThreadRule(ClassLoaderHolder classLoaderHolder, TestExecutor executor) {
+		this(classLoaderHolder, executor, null, null);
+	}
+
+	/**
+	 * Create the rule.
+	 *
+	 * @param classLoaderHolder The class loader holder.
+	 * @param executor The executor that will run each unit test method.
+	 * @param report The report where metrics of each test are recorded, {@code null} to disable metrics.
+	 * @param leakDetector The leak detector tracking the classloader of each test, {@code null} to disable leak detection.
+	 */
+	RunInNewThreadRule(ClassLoaderHolder classLoaderHolder, TestExecutor executor, TestReport report, ClassLoaderLeakDetector leakDetector) {
 		this.classLoaderHolder = classLoaderHolder;
+		this.executor = executor;
+		this.report = report;
+		this.leakDetector = leakDetector;
 	}
 
 	@Override
 	public Statement apply(Statement base, Description description) {
-		return new RunInNewThreadStatement(classLoaderHolder, base, description);
+		return new RunInNewThreadStatement(classLoaderHolder, executor, report, leakDetector, base, description);
 	}
 
 	/**
@@ -64,6 +113,21 @@ class RunInNewThreadRule implements TestRule {
 		 */
 		private final ClassLoaderHolder classLoaderHolder;
 
+		/**
+		 * The executor.
+		 */
+		private final TestExecutor executor;
+
+		/**
+		 * The report, may be {@code null}.
+		 */
+		private final TestReport report;
+
+		/**
+		 * The leak detector, may be {@code null}.
+		 */
+		private final ClassLoaderLeakDetector leakDetector;
+
 		/**
 		 * The base statement.
 		 */
@@ -81,41 +145,190 @@ class RunInNewThreadRule implements TestRule {
 		 */
 		private volatile Throwable throwable;
 
-		RunInNewThreadStatement(ClassLoaderHolder classLoaderHolder, Statement statement, Description description) {
+		/**
+		 * The number of static initializers logged for each test.
+		 */
+		private static final int CLINIT_TOP = 5;
+
+		/**
+		 * The duration of the test, measured in the test thread.
+		 */
+		private volatile long durationNanos;
+
+		/**
+		 * The usage of the test thread, unknown if it has not been measured.
+		 */
+		private volatile ThreadUsage usage = ThreadUsage.UNKNOWN;
+
+		RunInNewThreadStatement(ClassLoaderHolder classLoaderHolder, TestExecutor executor, TestReport report, ClassLoaderLeakDetector leakDetector, Statement statement, Description description) {
 			this.classLoaderHolder = classLoaderHolder;
+			this.executor = executor;
+			this.report = report;
+			this.leakDetector = leakDetector;
 			this.statement = statement;
 			this.description = description;
 		}
 
 		@Override
 		public void evaluate() throws Throwable {
-			Thread thread = new Thread(new Runnable() {
+			PerformanceBudget budget = PerformanceBudget.of(description);
+			RepeatInFreshClassLoader repeat = description.getAnnotation(RepeatInFreshClassLoader.class);
+
+			if (repeat == null) {
+				// Classes already loaded through a shared classloader are not requested again by the JVM: the number
+				// of loaded classes is only meaningful with a brand-new classloader.
+				run(budget.hasMaxClassesLoaded() ? newClassLoader() : classLoaderHolder.get(), budget, true);
+			}
+			else {
+				repeat(repeat, budget);
+			}
+
+			rethrow();
+		}
+
+		/**
+		 * Run the test several times, each time with a new classloader, and log statistics of the measured runs.
+		 * The test stops at the first failure.
+		 *
+		 * @param repeat The annotation.
+		 * @param budget The performance budget, checked for each run.
+		 * @throws IllegalArgumentException If the number of iterations is not strictly positive, or if the number of warmup runs is negative.
+		 */
+		private void repeat(RepeatInFreshClassLoader repeat, PerformanceBudget budget) {
+			if (repeat.iterations() <= 0) {
+				throw new IllegalArgumentException("@RepeatInFreshClassLoader iterations must be strictly positive, got: " + repeat.iterations());
+			}
+
+			if (repeat.warmup() < 0) {
+				throw new IllegalArgumentException("@RepeatInFreshClassLoader warmup must be positive or zero, got: " + repeat.warmup());
+			}
+
+			ColdStartStats coldStartStats = new ColdStartStats(repeat.iterations());
+
+			for (int i = 0; i < repeat.warmup() + repeat.iterations(); i++) {
+				// The scope and the pool are bypassed: each run needs a brand-new classloader.
+				ClassLoader classLoader = newClassLoader();
+				ClassLoadingStats stats = run(classLoader, budget, false);
+				if (throwable != null) {
+					return;
+				}
+
+				if (i >= repeat.warmup()) {
+					// Static initializers are only timed when they are profiled.
+					long classInitNanos = stats == null || ClinitProfiler.of(classLoader) == null ? -1 : stats.getInitTimeNanos();
+					coldStartStats.add(durationNanos, stats == null ? -1 : stats.getLoadTimeNanos(), classInitNanos);
+				}
+			}
+
+			LOGGER.info(coldStartStats.format(description));
+			if (report != null) {
+				coldStartStats.record(report, description);
+			}
+		}
+
+		/**
+		 * Get the holder creating a new classloader for each test, whatever the classloader scope.
+		 *
+		 * @return The holder.
+		 */
+		private ClassLoaderHolder unscoped() {
+			return classLoaderHolder instanceof ScopedClassLoaderHolder ? ((ScopedClassLoaderHolder) classLoaderHolder).getDelegate() : classLoaderHolder;
+		}
+
+		/**
+		 * Get a brand-new classloader, whatever the classloader scope, and bypassing the classloader pool:
+		 * a pooled classloader may have been used (and reset) by another test.
+		 *
+		 * @return The classloader.
+		 */
+		private ClassLoader newClassLoader() {
+			ClassLoaderHolder holder = unscoped();
+			return holder instanceof AbstractClassLoaderHolder ? ((AbstractClassLoaderHolder) holder).getNew() : holder.get();
+		}
+
+		/**
+		 * Run the test once, in the test thread, with given classloader.
+		 *
+		 * @param classLoader The classloader.
+		 * @param budget The performance budget, checked if the test succeeds.
+		 * @param record Flag to record measurements in the report (if the report is enabled).
+		 * @return The class loading metrics of the test, {@code null} if not available.
+		 */
+		private ClassLoadingStats run(ClassLoader classLoader, PerformanceBudget budget, boolean record) {
+			final boolean measureUsage = (record && report != null) || !budget.isEmpty();
+
+			Runnable task = new Runnable() {
 				@Override
 				public void run() {
+					// The test runs in this thread only: the usage of this thread is the usage of the test.
+					ThreadUsage before = measureUsage ? ThreadUsage.current() : null;
+					long start = System.nanoTime();
+
 					try {
 						statement.evaluate();
 					} catch (Throwable throwable) {
 						RunInNewThreadStatement.this.throwable = throwable;
 					}
+
+					durationNanos = System.nanoTime() - start;
+					usage = before == null ? ThreadUsage.UNKNOWN : ThreadUsage.current().minus(before);
 				}
-			});
+			};
 
-			// Set the thread name, can be interesting for debugging.
-			thread.setName("JUnit{" + description.getDisplayName() + "}");
+			// The thread name can be interesting for debugging.
+			String name = "JUnit{" + description.getDisplayName() + "}";
 
-			// Use the custom classloader.
-			thread.setContextClassLoader(classLoaderHolder.get());
+			if (leakDetector != null) {
+				leakDetector.track(description, classLoader);
+			}
 
-			// Now, we can start the thread!
-			thread.start();
+			// Metrics are cumulative: keep the values before the test to compute the values of this test only.
+			ClassLoadingMetrics metrics = ClassLoadingMetrics.of(classLoader);
+			ClassLoadingStats before = metrics == null ? null : metrics.snapshot();
+			ClinitProfiler clinitProfiler = ClinitProfiler.of(classLoader);
+			int clinitFrom = clinitProfiler == null ? 0 : clinitProfiler.size();
 
 			try {
-				thread.join();
+				executor.execute(name, classLoader, task);
 			} catch (InterruptedException ex) {
 				throw new RuntimeException(ex);
 			}
 
-			rethrow();
+			ClassLoadingStats stats = metrics == null ? null : metrics.snapshot().minus(before);
+			if (record && report != null) {
+				report.record(description, "durationNanos", durationNanos);
+				report.record(description, usage);
+				if (stats != null) {
+					report.record(description, stats);
+				}
+			}
+
+			if (clinitProfiler != null) {
+				List<ClinitProfiler.Entry> ranking = clinitProfiler.getRanking(clinitFrom);
+				if (!ranking.isEmpty()) {
+					LOGGER.info(formatInitializers(ranking));
+				}
+
+				if (record && report != null) {
+					report.record(description, ranking);
+				}
+			}
+
+			// A test that already failed is not checked.
+			if (throwable == null && !budget.isEmpty()) {
+				throwable = budget.check(description, durationNanos, usage, stats);
+			}
+
+			return stats;
+		}
+
+		private String formatInitializers(List<ClinitProfiler.Entry> ranking) {
+			StringBuilder sb = new StringBuilder("Most expensive static initializers of ").append(description.getDisplayName()).append(":");
+			for (ClinitProfiler.Entry entry : ranking.subList(0, Math.min(CLINIT_TOP, ranking.size()))) {
+				sb.append("\n  ").append(entry.getClassName()).append(": ").append(TimeUnit.NANOSECONDS.toMicros(entry.getNanos())).append(" us");
+			}
+
+			return sb.toString();
 		}
 
 		private void rethrow() throws Throwable {
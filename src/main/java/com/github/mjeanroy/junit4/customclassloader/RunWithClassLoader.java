@@ -39,6 +39,21 @@ import java.lang.annotation.Target;
  *   <li>Create the classloader instance to use.</li>
  *   <li>Implement methods to run custom initialization/cleanup before/after each tests.</li>
  * </ul>
+ *
+ * Each unit test method runs in a dedicated thread: the way these threads are created can be
+ * configured using {@link #threadMode()} (or the {@code junit.customclassloader.threadMode} system
+ * property, that takes precedence over the annotation).
+ *
+ * By default, a new classloader is created for each unit test method: use {@link #scope()} (or the
+ * {@code junit.customclassloader.scope} system property) to share a classloader between several tests.
+ *
+ * Unit test methods of a class run one after another, unless {@link #parallelism()} is
+ * greater than one: in this case, note that the classloader holder may be used by several threads
+ * at the same time.
+ *
+ * Several classloader holders can be given (for example, holders hiding different optional
+ * dependencies): each unit test method then runs once per holder (the holder name is appended to
+ * the test name), and the variants of a test run in parallel.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
@@ -46,10 +61,46 @@ import java.lang.annotation.Target;
 public @interface RunWithClassLoader {
 
 	/**
-	 * The custom classloader holder to use.
-	 * Note that the class specified here must have a public empty default constructor.
+	 * The custom classloader holder to use, or the holders to use if each unit test method must run
+	 * with several classloader configurations.
+	 * Note that the classes specified here must have a public empty default constructor.
+	 *
+	 * @return The classloader holders to use.
+	 */
+	Class<? extends ClassLoaderHolder>[] value();
+
+	/**
+	 * The way the thread running each unit test method is created.
+	 * The {@code junit.customclassloader.threadMode} system property, if set, takes precedence over this value.
+	 *
+	 * @return The thread mode.
+	 */
+	ThreadMode threadMode() default ThreadMode.NEW_THREAD;
+
+	/**
+	 * The maximum number of worker threads, used with {@link ThreadMode#POOLED_THREAD} only.
+	 * A negative or zero value means the number of available processors.
+	 * The {@code junit.customclassloader.poolSize} system property, if set, takes precedence over this value.
+	 *
+	 * @return The pool size.
+	 */
+	int poolSize() default 0;
+
+	/**
+	 * The maximum number of unit test methods of the test class running at the same time.
+	 * If several classloader holders are given and the parallelism is not set, the variants of a test run at the
+	 * same time, but tests still run one after another.
+	 * The {@code junit.customclassloader.parallelism} system property, if set, takes precedence over this value.
+	 *
+	 * @return The parallelism.
+	 */
+	int parallelism() default 1;
+
+	/**
+	 * How often a new classloader is created.
+	 * The {@code junit.customclassloader.scope} system property, if set, takes precedence over this value.
 	 *
-	 * @return The classloader holder to use.
+	 * @return The classloader scope.
 	 */
-	Class<? extends ClassLoaderHolder> value();
+	ClassLoaderScope scope() default ClassLoaderScope.METHOD;
 }
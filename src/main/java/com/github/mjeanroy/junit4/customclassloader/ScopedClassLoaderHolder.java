@@ -0,0 +1,142 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Implementation of {@link ClassLoaderHolder} that decorates another holder, and reuses the
+ * classloader it creates according to a given {@link ClassLoaderScope}.
+ */
+final class ScopedClassLoaderHolder implements ClassLoaderHolder {
+
+	/**
+	 * The holders shared with {@link ClassLoaderScope#SUITE} scope, indexed by holder class.
+	 */
+	private static final ConcurrentMap<Class<? extends ClassLoaderHolder>, ScopedClassLoaderHolder> SUITE_HOLDERS = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the holder to use for given holder class and scope.
+	 *
+	 * With the {@link ClassLoaderScope#SUITE} scope, the same holder (and then the same classloader) is
+	 * returned for the same holder class, otherwise a new holder is created.
+	 *
+	 * @param holderClass The holder class.
+	 * @param scope The scope.
+	 * @return The holder.
+	 */
+	static ScopedClassLoaderHolder of(Class<? extends ClassLoaderHolder> holderClass, ClassLoaderScope scope) {
+		if (scope != ClassLoaderScope.SUITE) {
+			return new ScopedClassLoaderHolder(Reflections.newInstance(holderClass), scope);
+		}
+
+		ScopedClassLoaderHolder holder = SUITE_HOLDERS.get(holderClass);
+		if (holder == null) {
+			ScopedClassLoaderHolder newHolder = new ScopedClassLoaderHolder(Reflections.newInstance(holderClass), scope);
+			holder = SUITE_HOLDERS.putIfAbsent(holderClass, newHolder);
+			if (holder == null) {
+				holder = newHolder;
+			}
+		}
+
+		return holder;
+	}
+
+	/**
+	 * The decorated holder.
+	 */
+	private final ClassLoaderHolder delegate;
+
+	/**
+	 * The scope.
+	 */
+	private final ClassLoaderScope scope;
+
+	/**
+	 * The classloader, created lazily (never used with {@link ClassLoaderScope#METHOD} scope).
+	 */
+	private ClassLoader classLoader;
+
+	/**
+	 * Create the holder.
+	 *
+	 * @param delegate The decorated holder.
+	 * @param scope The scope.
+	 */
+	ScopedClassLoaderHolder(ClassLoaderHolder delegate, ClassLoaderScope scope) {
+		this.delegate = delegate;
+		this.scope = scope;
+	}
+
+	@Override
+	public void beforeTest() {
+		delegate.beforeTest();
+	}
+
+	@Override
+	public void afterTest() {
+		delegate.afterTest();
+	}
+
+	@Override
+	public ClassLoader get() {
+		if (scope == ClassLoaderScope.METHOD) {
+			return delegate.get();
+		}
+
+		// Tests may run in parallel: the classloader must be created only once.
+		synchronized (this) {
+			if (classLoader == null) {
+				classLoader = delegate.get();
+
+				// The classloader is shared: it must not be reset when a test ends.
+				if (delegate instanceof AbstractClassLoaderHolder) {
+					((AbstractClassLoaderHolder) delegate).retain(classLoader);
+				}
+			}
+
+			return classLoader;
+		}
+	}
+
+	/**
+	 * Get the decorated holder.
+	 *
+	 * @return The decorated holder.
+	 */
+	ClassLoaderHolder getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Get the scope.
+	 *
+	 * @return The scope.
+	 */
+	ClassLoaderScope getScope() {
+		return scope;
+	}
+}
@@ -0,0 +1,254 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An index of the service provider configuration files ({@code META-INF/services/*}) visible from a
+ * classloader, used to hide blacklisted service providers from {@link java.util.ServiceLoader}.
+ *
+ * Each configuration file is read and parsed once per JVM (and per parent classloader): resolving the
+ * providers of a service is then a lookup in this index, followed by a blacklist check of each provider,
+ * without reading any file again.
+ *
+ * When some providers of a configuration file are blacklisted, the file is replaced by an in-memory
+ * copy without these providers.
+ */
+final class ServiceIndex {
+
+	/**
+	 * The prefix of service provider configuration files.
+	 */
+	static final String PREFIX = "META-INF/services/";
+
+	/**
+	 * The index of each classloader.
+	 * Classloaders are weakly referenced, so the index never prevents a classloader from being garbage collected: an
+	 * index must not reference its classloader (the value of a {@link WeakHashMap} entry is strongly referenced).
+	 */
+	private static final Map<ClassLoader, ServiceIndex> INSTANCES = new WeakHashMap<>();
+
+	/**
+	 * Get the index of the configuration files visible from given classloader.
+	 *
+	 * @param classLoader The classloader.
+	 * @return The index.
+	 */
+	static ServiceIndex of(ClassLoader classLoader) {
+		synchronized (INSTANCES) {
+			ServiceIndex index = INSTANCES.get(classLoader);
+			if (index == null) {
+				index = new ServiceIndex();
+				INSTANCES.put(classLoader, index);
+			}
+
+			return index;
+		}
+	}
+
+	/**
+	 * The configuration files of each service, indexed by service name.
+	 */
+	private final ConcurrentMap<String, List<ServiceFile>> services;
+
+	// Package private for testing purpose.
+	ServiceIndex() {
+		this.services = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Get the configuration files of a service, without the blacklisted providers.
+	 *
+	 * @param classLoader The classloader of this index, used to find configuration files.
+	 * @param service The service name (fully qualified name of the service interface).
+	 * @param blacklist The blacklist.
+	 * @return The URL of the configuration files.
+	 * @throws IOException If a configuration file cannot be read.
+	 */
+	Enumeration<URL> getResources(ClassLoader classLoader, String service, ClassNameMatcher blacklist) throws IOException {
+		List<ServiceFile> files = getServiceFiles(classLoader, service);
+		List<URL> urls = new ArrayList<>(files.size());
+		for (ServiceFile file : files) {
+			URL url = file.filter(blacklist);
+			if (url != null) {
+				urls.add(url);
+			}
+		}
+
+		return Collections.enumeration(urls);
+	}
+
+	private List<ServiceFile> getServiceFiles(ClassLoader classLoader, String service) throws IOException {
+		List<ServiceFile> files = services.get(service);
+		if (files == null) {
+			files = read(classLoader, service);
+			List<ServiceFile> previous = services.putIfAbsent(service, files);
+			if (previous != null) {
+				files = previous;
+			}
+		}
+
+		return files;
+	}
+
+	private static List<ServiceFile> read(ClassLoader classLoader, String service) throws IOException {
+		List<ServiceFile> files = new ArrayList<>();
+		Enumeration<URL> urls = classLoader.getResources(PREFIX + service);
+		while (urls.hasMoreElements()) {
+			URL url = urls.nextElement();
+			files.add(new ServiceFile(url, readProviders(url)));
+		}
+
+		return unmodifiableList(files);
+	}
+
+	private static List<String> readProviders(URL url) throws IOException {
+		List<String> providers = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int comment = line.indexOf('#');
+				String provider = (comment < 0 ? line : line.substring(0, comment)).trim();
+				if (!provider.isEmpty()) {
+					providers.add(provider);
+				}
+			}
+		}
+
+		return unmodifiableList(providers);
+	}
+
+	/**
+	 * A service provider configuration file.
+	 */
+	private static final class ServiceFile {
+		/**
+		 * The URL of the file.
+		 */
+		private final URL url;
+
+		/**
+		 * The providers declared in the file.
+		 */
+		private final List<String> providers;
+
+		private ServiceFile(URL url, List<String> providers) {
+			this.url = url;
+			this.providers = providers;
+		}
+
+		/**
+		 * Get the URL of this file, without the blacklisted providers.
+		 *
+		 * @param blacklist The blacklist.
+		 * @return The URL of the file if no provider is blacklisted, the URL of an in-memory copy of the file if some
+		 * providers are blacklisted, {@code null} if all providers are blacklisted.
+		 * @throws MalformedURLException If the in-memory URL cannot be created.
+		 */
+		private URL filter(ClassNameMatcher blacklist) throws MalformedURLException {
+			List<String> visible = null;
+			for (int i = 0; i < providers.size(); i++) {
+				String provider = providers.get(i);
+				if (blacklist.matches(provider)) {
+					if (visible == null) {
+						visible = new ArrayList<>(providers.subList(0, i));
+					}
+				}
+				else if (visible != null) {
+					visible.add(provider);
+				}
+			}
+
+			if (visible == null) {
+				return url;
+			}
+
+			if (visible.isEmpty()) {
+				return null;
+			}
+
+			StringBuilder content = new StringBuilder();
+			for (String provider : visible) {
+				content.append(provider).append('\n');
+			}
+
+			return new URL(null, "junit-filtered:" + url, new InMemoryURLStreamHandler(content.toString().getBytes(StandardCharsets.UTF_8)));
+		}
+	}
+
+	/**
+	 * An {@link URLStreamHandler} serving an in-memory content.
+	 */
+	private static final class InMemoryURLStreamHandler extends URLStreamHandler {
+		/**
+		 * The content.
+		 */
+		private final byte[] content;
+
+		private InMemoryURLStreamHandler(byte[] content) {
+			this.content = content;
+		}
+
+		@Override
+		protected URLConnection openConnection(URL url) {
+			return new URLConnection(url) {
+				@Override
+				public void connect() {
+					connected = true;
+				}
+
+				@Override
+				public InputStream getInputStream() {
+					return new ByteArrayInputStream(content);
+				}
+
+				@Override
+				public int getContentLength() {
+					return content.length;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed set of counters, optimized for concurrent updates and rare reads.
+ *
+ * Each counter is split into several cells (one per stripe): a thread always updates the cells of the same
+ * stripe, so threads updating counters at the same time rarely write to the same cache line. Reading a
+ * counter sums all its cells.
+ *
+ * Cells of a stripe are stored next to each other, in a block of {@value #CELLS_PER_STRIPE} longs
+ * (i.e a 64 bytes cache line), so there is at most {@value #CELLS_PER_STRIPE} counters.
+ */
+final class StripedCounters {
+
+	/**
+	 * The number of cells of a stripe, i.e the maximum number of counters.
+	 */
+	static final int CELLS_PER_STRIPE = 8;
+
+	/**
+	 * The number of stripes (a power of two).
+	 */
+	private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * The cells.
+	 */
+	private final AtomicLongArray cells;
+
+	/**
+	 * Create the counters.
+	 *
+	 * @param size The number of counters.
+	 * @throws IllegalArgumentException If {@code size} is greater than {@link #CELLS_PER_STRIPE}.
+	 */
+	StripedCounters(int size) {
+		if (size > CELLS_PER_STRIPE) {
+			throw new IllegalArgumentException("Cannot create more than " + CELLS_PER_STRIPE + " counters");
+		}
+
+		this.cells = new AtomicLongArray(STRIPES * CELLS_PER_STRIPE);
+	}
+
+	/**
+	 * Add given value to a counter.
+	 *
+	 * @param counter The counter index.
+	 * @param value The value to add.
+	 */
+	void add(int counter, long value) {
+		cells.getAndAdd(stripe() + counter, value);
+	}
+
+	/**
+	 * Get the current value of a counter.
+	 * The value is not an atomic snapshot if the counter is updated concurrently.
+	 *
+	 * @param counter The counter index.
+	 * @return The counter value.
+	 */
+	long get(int counter) {
+		long sum = 0;
+		for (int i = counter; i < cells.length(); i += CELLS_PER_STRIPE) {
+			sum += cells.get(i);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Get the index of the first cell of the stripe of the current thread.
+	 *
+	 * @return The cell index.
+	 */
+	private static int stripe() {
+		long id = Thread.currentThread().getId();
+		int hash = (int) (id ^ (id >>> 32));
+		hash ^= (hash >>> 16);
+		return (hash & (STRIPES - 1)) * CELLS_PER_STRIPE;
+	}
+
+	/**
+	 * Compute the number of stripes: the smallest power of two greater than or equal to the number of processors.
+	 *
+	 * @param processors The number of processors.
+	 * @return The number of stripes.
+	 */
+	static int stripes(int processors) {
+		int stripes = 1;
+		while (stripes < processors && stripes < 64) {
+			stripes <<= 1;
+		}
+
+		return stripes;
+	}
+}
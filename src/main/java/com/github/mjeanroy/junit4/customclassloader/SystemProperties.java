@@ -0,0 +1,101 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.Arrays;
+
+/**
+ * Static System Properties Utilities.
+ */
+final class SystemProperties {
+
+	// Ensure non instantiation.
+	private SystemProperties() {
+	}
+
+	/**
+	 * Read an integer system property.
+	 *
+	 * @param name The system property name.
+	 * @param defaultValue The value to return if the system property is not set.
+	 * @return The system property value.
+	 * @throws IllegalStateException If the system property is not a valid integer.
+	 */
+	static int getInt(String name, int defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+
+		try {
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException ex) {
+			throw new IllegalStateException("System property '" + name + "' must be an integer, but was: '" + value + "'.", ex);
+		}
+	}
+
+	/**
+	 * Read a boolean system property: {@code true} if the value is {@code true} (case insensitive) or empty
+	 * (i.e {@code -Dname}), {@code false} otherwise.
+	 *
+	 * @param name The system property name.
+	 * @param defaultValue The value to return if the system property is not set.
+	 * @return The system property value.
+	 */
+	static boolean getBoolean(String name, boolean defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null) {
+			return defaultValue;
+		}
+
+		return value.trim().isEmpty() || Boolean.parseBoolean(value.trim());
+	}
+
+	/**
+	 * Read an enum system property (the value is case insensitive).
+	 *
+	 * @param name The system property name.
+	 * @param enumClass The enum class.
+	 * @param defaultValue The value to return if the system property is not set.
+	 * @param <T> Enum Type.
+	 * @return The system property value.
+	 * @throws IllegalStateException If the system property is not a valid enum value.
+	 */
+	static <T extends Enum<T>> T getEnum(String name, Class<T> enumClass, T defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+
+		for (T constant : enumClass.getEnumConstants()) {
+			if (constant.name().equalsIgnoreCase(value.trim())) {
+				return constant;
+			}
+		}
+
+		throw new IllegalStateException("System property '" + name + "' must be one of " + Arrays.toString(enumClass.getEnumConstants()) + ", but was: '" + value + "'.");
+	}
+}
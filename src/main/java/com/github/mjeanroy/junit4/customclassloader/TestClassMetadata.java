@@ -0,0 +1,99 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The reflective metadata of a test class, resolved once per class.
+ *
+ * Metadata are cached using a {@link ClassValue}: the cache entry is attached to the test class itself,
+ * so test classes loaded by different classloaders never share metadata, and metadata never prevent
+ * a test class (and its classloader) from being garbage collected.
+ */
+final class TestClassMetadata {
+
+	/**
+	 * The metadata cache.
+	 */
+	private static final ClassValue<TestClassMetadata> CACHE = new ClassValue<TestClassMetadata>() {
+		@Override
+		protected TestClassMetadata computeValue(Class<?> type) {
+			return new TestClassMetadata(type);
+		}
+	};
+
+	/**
+	 * Get the metadata of given test class.
+	 *
+	 * @param testClass The test class.
+	 * @return The metadata.
+	 */
+	static TestClassMetadata of(Class<?> testClass) {
+		return CACHE.get(testClass);
+	}
+
+	/**
+	 * The injectors of the fields annotated with {@link TestClassLoader} (in the class hierarchy).
+	 */
+	private final List<FieldInjector> injectors;
+
+	/**
+	 * The {@link RunWithClassLoader} annotation (in the class hierarchy), may be {@code null}.
+	 */
+	private final RunWithClassLoader runWithClassLoader;
+
+	private TestClassMetadata(Class<?> testClass) {
+		List<FieldInjector> injectors = new ArrayList<>();
+		for (Field field : Reflections.findFieldsAnnotatedWith(testClass, TestClassLoader.class)) {
+			injectors.add(FieldInjector.of(field));
+		}
+
+		this.injectors = unmodifiableList(injectors);
+		this.runWithClassLoader = Reflections.findAnnotation(testClass, RunWithClassLoader.class);
+	}
+
+	/**
+	 * Get the injectors of the fields annotated with {@link TestClassLoader}, in the class hierarchy.
+	 *
+	 * @return The field injectors.
+	 */
+	List<FieldInjector> getInjectors() {
+		return injectors;
+	}
+
+	/**
+	 * Get the {@link RunWithClassLoader} annotation, in the class hierarchy.
+	 *
+	 * @return The annotation, {@code null} if the class is not annotated.
+	 */
+	RunWithClassLoader getRunWithClassLoader() {
+		return runWithClassLoader;
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Static Test Executors Factory.
+ */
+final class TestExecutors {
+
+	/**
+	 * The pooled executors, indexed by pool size: worker threads are shared by all test classes.
+	 */
+	private static final ConcurrentMap<Integer, PooledThreadExecutor> POOLS = new ConcurrentHashMap<>();
+
+	// Ensure non instantiation.
+	private TestExecutors() {
+	}
+
+	/**
+	 * Get the executor to use for given thread mode.
+	 *
+	 * @param threadMode The thread mode.
+	 * @param poolSize The pool size, used with {@link ThreadMode#POOLED_THREAD} only (use the number of available processors if negative or zero).
+	 * @return The executor.
+	 */
+	static TestExecutor get(ThreadMode threadMode, int poolSize) {
+		switch (threadMode) {
+			case POOLED_THREAD:
+				return pooled(poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors());
+
+			case VIRTUAL_THREAD:
+				return VirtualThreadExecutor.isSupported() ? VirtualThreadExecutor.INSTANCE : NewThreadExecutor.INSTANCE;
+
+			default:
+				return NewThreadExecutor.INSTANCE;
+		}
+	}
+
+	private static PooledThreadExecutor pooled(int poolSize) {
+		PooledThreadExecutor executor = POOLS.get(poolSize);
+		if (executor == null) {
+			PooledThreadExecutor newExecutor = new PooledThreadExecutor(poolSize);
+			executor = POOLS.putIfAbsent(poolSize, newExecutor);
+			if (executor == null) {
+				executor = newExecutor;
+			}
+		}
+
+		return executor;
+	}
+}
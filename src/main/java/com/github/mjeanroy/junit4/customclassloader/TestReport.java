@@ -0,0 +1,412 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.runner.Description;
+
+/**
+ * The metrics recorded for each unit test method of a test class.
+ *
+ * The report can be written as JSON and CSV files, to find the tests that load the largest part of the
+ * classpath (or that are the most expensive). Each time a report is written, the suite report of the directory
+ * (all test classes whose report has been written to this directory by the JVM) is written again, so that it
+ * is complete once the last test class has been executed.
+ */
+final class TestReport {
+
+	/**
+	 * The name of the suite report files: {@code suite.json} and {@code suite.csv}.
+	 */
+	static final String SUITE = "suite";
+
+	/**
+	 * The reports written by the JVM, indexed by directory.
+	 */
+	private static final Map<File, List<TestReport>> WRITTEN = new HashMap<>();
+
+	/**
+	 * The name of the test class.
+	 */
+	private final String testClassName;
+
+	/**
+	 * The metrics of each test, indexed by test name, in execution order.
+	 */
+	private final Map<String, Map<String, Long>> tests;
+
+	/**
+	 * The static initializers executed by each test, ranked, indexed by test name (only when static
+	 * initializers are profiled).
+	 */
+	private final Map<String, List<ClinitProfiler.Entry>> initializers;
+
+	/**
+	 * Create an empty report.
+	 *
+	 * @param testClassName The name of the test class.
+	 */
+	TestReport(String testClassName) {
+		this.testClassName = testClassName;
+		this.tests = new LinkedHashMap<>();
+		this.initializers = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Record a metric of a unit test method: values recorded several times for the same test are summed.
+	 *
+	 * @param description The test description.
+	 * @param metric The metric name.
+	 * @param value The metric value.
+	 */
+	synchronized void record(Description description, String metric, long value) {
+		String name = name(description);
+
+		Map<String, Long> metrics = tests.get(name);
+		if (metrics == null) {
+			metrics = new LinkedHashMap<>();
+			tests.put(name, metrics);
+		}
+
+		Long previous = metrics.get(metric);
+		metrics.put(metric, previous == null ? value : previous + value);
+	}
+
+	/**
+	 * Record class loading metrics of a unit test method.
+	 *
+	 * @param description The test description.
+	 * @param stats The class loading metrics.
+	 */
+	void record(Description description, ClassLoadingStats stats) {
+		record(description, "requested", stats.getRequested());
+		record(description, "loaded", stats.getLoaded());
+		record(description, "delegated", stats.getDelegated());
+		record(description, "denied", stats.getDenied());
+		record(description, "defined", stats.getDefined());
+		record(description, "definedBytes", stats.getDefinedBytes());
+		record(description, "loadTimeNanos", stats.getLoadTimeNanos());
+
+		if (stats.getInitialized() > 0) {
+			record(description, "initialized", stats.getInitialized());
+			record(description, "initTimeNanos", stats.getInitTimeNanos());
+		}
+	}
+
+	/**
+	 * Record the static initializers executed by a unit test method.
+	 *
+	 * @param description The test description.
+	 * @param ranking The static initializers, from the most expensive to the least expensive.
+	 */
+	synchronized void record(Description description, List<ClinitProfiler.Entry> ranking) {
+		String name = name(description);
+
+		List<ClinitProfiler.Entry> entries = initializers.get(name);
+		if (entries == null) {
+			entries = new ArrayList<>();
+			initializers.put(name, entries);
+		}
+
+		entries.addAll(ranking);
+	}
+
+	/**
+	 * Record CPU time and allocated memory of a unit test method (values that are not supported are not recorded).
+	 *
+	 * @param description The test description.
+	 * @param usage The usage of the test thread.
+	 */
+	void record(Description description, ThreadUsage usage) {
+		if (usage.getCpuTimeNanos() >= 0) {
+			record(description, "cpuTimeNanos", usage.getCpuTimeNanos());
+		}
+
+		if (usage.getAllocatedBytes() >= 0) {
+			record(description, "allocatedBytes", usage.getAllocatedBytes());
+		}
+	}
+
+	/**
+	 * Get the metrics of a unit test method.
+	 *
+	 * @param name The test (method) name.
+	 * @return The metrics, {@code null} if nothing has been recorded for this test.
+	 */
+	synchronized Map<String, Long> get(String name) {
+		Map<String, Long> metrics = tests.get(name);
+		return metrics == null ? null : new LinkedHashMap<>(metrics);
+	}
+
+	/**
+	 * Write the report to {@code <testClassName>.json} and {@code <testClassName>.csv} files (and to
+	 * {@code <testClassName>.clinit.csv} if static initializers have been recorded), and the suite report
+	 * to {@code suite.json} and {@code suite.csv} files.
+	 *
+	 * @param directory The output directory, created if needed.
+	 * @throws IOException If an error occurs while writing files.
+	 */
+	void write(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create directory " + directory);
+		}
+
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, testClassName + ".json")), StandardCharsets.UTF_8)) {
+			writeJson(writer);
+		}
+
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, testClassName + ".csv")), StandardCharsets.UTF_8)) {
+			writeCsv(writer);
+		}
+
+		if (hasInitializers()) {
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, testClassName + ".clinit.csv")), StandardCharsets.UTF_8)) {
+				writeInitializersCsv(writer);
+			}
+		}
+
+		writeSuite(directory, this);
+	}
+
+	private static void writeSuite(File directory, TestReport report) throws IOException {
+		synchronized (WRITTEN) {
+			File key = directory.getAbsoluteFile();
+			List<TestReport> reports = WRITTEN.get(key);
+			if (reports == null) {
+				reports = new ArrayList<>();
+				WRITTEN.put(key, reports);
+			}
+
+			reports.add(report);
+
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, SUITE + ".json")), StandardCharsets.UTF_8)) {
+				writeSuiteJson(writer, reports);
+			}
+
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, SUITE + ".csv")), StandardCharsets.UTF_8)) {
+				writeSuiteCsv(writer, reports);
+			}
+		}
+	}
+
+	/**
+	 * Write the suite report as JSON: the tests of all given reports.
+	 *
+	 * @param writer The writer.
+	 * @param reports The reports.
+	 * @throws IOException If an error occurs while writing.
+	 */
+	static void writeSuiteJson(Writer writer, List<TestReport> reports) throws IOException {
+		writer.write("{\n");
+		writer.write("  \"tests\": [");
+
+		String testSeparator = "\n";
+		for (TestReport report : reports) {
+			for (Map.Entry<String, Map<String, Long>> test : report.getTests().entrySet()) {
+				writer.write(testSeparator);
+				writer.write("    {\"testClass\": " + quote(report.testClassName) + ", \"name\": " + quote(test.getKey()));
+				for (Map.Entry<String, Long> metric : test.getValue().entrySet()) {
+					writer.write(", " + quote(metric.getKey()) + ": " + metric.getValue());
+				}
+
+				writer.write("}");
+				testSeparator = ",\n";
+			}
+		}
+
+		writer.write(testSeparator.equals("\n") ? "]\n" : "\n  ]\n");
+		writer.write("}\n");
+	}
+
+	/**
+	 * Write the suite report as CSV: one line per test of all given reports, one column per metric.
+	 *
+	 * @param writer The writer.
+	 * @param reports The reports.
+	 * @throws IOException If an error occurs while writing.
+	 */
+	static void writeSuiteCsv(Writer writer, List<TestReport> reports) throws IOException {
+		List<Map<String, Map<String, Long>>> tests = new ArrayList<>(reports.size());
+		Set<String> columns = new LinkedHashSet<>();
+		for (TestReport report : reports) {
+			Map<String, Map<String, Long>> reportTests = report.getTests();
+			for (Map<String, Long> metrics : reportTests.values()) {
+				columns.addAll(metrics.keySet());
+			}
+
+			tests.add(reportTests);
+		}
+
+		writer.write("testClass,test");
+		for (String column : columns) {
+			writer.write("," + column);
+		}
+
+		writer.write("\n");
+
+		for (int i = 0; i < reports.size(); i++) {
+			for (Map.Entry<String, Map<String, Long>> test : tests.get(i).entrySet()) {
+				writer.write(csv(reports.get(i).testClassName) + "," + csv(test.getKey()));
+				for (String column : columns) {
+					Long value = test.getValue().get(column);
+					writer.write("," + (value == null ? "" : value.toString()));
+				}
+
+				writer.write("\n");
+			}
+		}
+	}
+
+	/**
+	 * Write the report as JSON.
+	 *
+	 * @param writer The writer.
+	 * @throws IOException If an error occurs while writing.
+	 */
+	synchronized void writeJson(Writer writer) throws IOException {
+		writer.write("{\n");
+		writer.write("  \"testClass\": " + quote(testClassName) + ",\n");
+		writer.write("  \"tests\": [");
+
+		String testSeparator = "\n";
+		for (Map.Entry<String, Map<String, Long>> test : tests.entrySet()) {
+			writer.write(testSeparator);
+			writer.write("    {\"name\": " + quote(test.getKey()));
+			for (Map.Entry<String, Long> metric : test.getValue().entrySet()) {
+				writer.write(", " + quote(metric.getKey()) + ": " + metric.getValue());
+			}
+
+			writer.write("}");
+			testSeparator = ",\n";
+		}
+
+		writer.write(tests.isEmpty() ? "]\n" : "\n  ]\n");
+		writer.write("}\n");
+	}
+
+	/**
+	 * Write the report as CSV: one line per test, one column per metric.
+	 *
+	 * @param writer The writer.
+	 * @throws IOException If an error occurs while writing.
+	 */
+	synchronized void writeCsv(Writer writer) throws IOException {
+		Set<String> columns = new LinkedHashSet<>();
+		for (Map<String, Long> metrics : tests.values()) {
+			columns.addAll(metrics.keySet());
+		}
+
+		writer.write("test");
+		for (String column : columns) {
+			writer.write("," + column);
+		}
+
+		writer.write("\n");
+
+		for (Map.Entry<String, Map<String, Long>> test : tests.entrySet()) {
+			writer.write(csv(test.getKey()));
+			for (String column : columns) {
+				Long value = test.getValue().get(column);
+				writer.write("," + (value == null ? "" : value.toString()));
+			}
+
+			writer.write("\n");
+		}
+	}
+
+	/**
+	 * Write the static initializers executed by each test as CSV: one line per initializer, ranked for each test.
+	 *
+	 * @param writer The writer.
+	 * @throws IOException If an error occurs while writing.
+	 */
+	synchronized void writeInitializersCsv(Writer writer) throws IOException {
+		writer.write("test,rank,class,exclusiveNanos\n");
+
+		for (Map.Entry<String, List<ClinitProfiler.Entry>> test : initializers.entrySet()) {
+			int rank = 1;
+			for (ClinitProfiler.Entry entry : test.getValue()) {
+				writer.write(csv(test.getKey()) + "," + rank + "," + entry.getClassName() + "," + entry.getNanos() + "\n");
+				rank++;
+			}
+		}
+	}
+
+	private synchronized Map<String, Map<String, Long>> getTests() {
+		Map<String, Map<String, Long>> copy = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, Long>> test : tests.entrySet()) {
+			copy.put(test.getKey(), new LinkedHashMap<>(test.getValue()));
+		}
+
+		return copy;
+	}
+
+	private synchronized boolean hasInitializers() {
+		return !initializers.isEmpty();
+	}
+
+	private static String name(Description description) {
+		return description.getMethodName() == null ? description.getDisplayName() : description.getMethodName();
+	}
+
+	private static String quote(String value) {
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				sb.append(c);
+			}
+		}
+
+		return sb.append('"').toString();
+	}
+
+	private static String csv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+}
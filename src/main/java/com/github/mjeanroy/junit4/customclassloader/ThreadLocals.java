@@ -0,0 +1,91 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.lang.reflect.Field;
+
+/**
+ * Static Thread Locals Utilities.
+ */
+final class ThreadLocals {
+
+	/**
+	 * The {@code Thread#threadLocals} field, {@code null} if it cannot be accessed.
+	 */
+	private static final Field THREAD_LOCALS = findField("threadLocals");
+
+	/**
+	 * The {@code Thread#inheritableThreadLocals} field, {@code null} if it cannot be accessed.
+	 */
+	private static final Field INHERITABLE_THREAD_LOCALS = findField("inheritableThreadLocals");
+
+	// Ensure non instantiation.
+	private ThreadLocals() {
+	}
+
+	/**
+	 * Check if thread locals can be cleared on this JVM.
+	 *
+	 * @return {@code true} if thread locals can be cleared, {@code false} otherwise.
+	 */
+	static boolean isSupported() {
+		return THREAD_LOCALS != null && INHERITABLE_THREAD_LOCALS != null;
+	}
+
+	/**
+	 * Remove all thread locals, and inheritable thread locals, of the current thread.
+	 *
+	 * @return {@code true} if thread locals have been cleared, {@code false} otherwise.
+	 */
+	static boolean clear() {
+		if (!isSupported()) {
+			return false;
+		}
+
+		Thread thread = Thread.currentThread();
+
+		try {
+			THREAD_LOCALS.set(thread, null);
+			INHERITABLE_THREAD_LOCALS.set(thread, null);
+			return true;
+		}
+		catch (IllegalAccessException ex) {
+			return false;
+		}
+	}
+
+	private static Field findField(String name) {
+		try {
+			Field field = Thread.class.getDeclaredField(name);
+			field.setAccessible(true);
+			return field;
+		}
+		catch (NoSuchFieldException | RuntimeException ex) {
+			// The field does not exist, or cannot be made accessible (for example, on JDK 16+
+			// if the java.lang package is not opened).
+			return null;
+		}
+	}
+}
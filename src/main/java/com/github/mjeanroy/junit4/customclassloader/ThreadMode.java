@@ -0,0 +1,56 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+/**
+ * The way each unit test method is executed by the {@link CustomClassLoaderRunner}.
+ *
+ * Whatever the mode, each unit test method runs in a dedicated thread, with the custom classloader
+ * as the context classloader.
+ */
+public enum ThreadMode {
+
+	/**
+	 * Each unit test method runs in a new thread, started for this test only.
+	 */
+	NEW_THREAD,
+
+	/**
+	 * Each unit test method runs in a worker thread taken from a pool of reusable threads.
+	 *
+	 * Thread locals (including inheritable thread locals) are cleared when the test ends so nothing leaks
+	 * from one test to another.
+	 * Note that, on JDK 16 and later, this requires the {@code --add-opens java.base/java.lang=ALL-UNNAMED} JVM
+	 * option: if thread locals cannot be cleared, a worker thread is never reused.
+	 */
+	POOLED_THREAD,
+
+	/**
+	 * Each unit test method runs in a new virtual thread.
+	 *
+	 * Virtual threads are available since JDK 21: on older JVM, this mode falls back to {@link #NEW_THREAD}.
+	 */
+	VIRTUAL_THREAD
+}
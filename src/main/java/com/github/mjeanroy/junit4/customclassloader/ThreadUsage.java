@@ -0,0 +1,161 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * The CPU time and the memory allocated by the current thread, as reported by the {@link ThreadMXBean}.
+ *
+ * Values that are not supported by the JVM (or for the current thread, such as a virtual thread) are
+ * equal to {@code -1}.
+ */
+final class ThreadUsage {
+
+	/**
+	 * Unknown values.
+	 */
+	static final ThreadUsage UNKNOWN = new ThreadUsage(-1, -1);
+
+	/**
+	 * The thread MX bean.
+	 */
+	private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+	/**
+	 * The {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} method, {@code null} if not supported.
+	 */
+	private static final Method GET_THREAD_ALLOCATED_BYTES = findGetThreadAllocatedBytes();
+
+	/**
+	 * The CPU time, in nanoseconds.
+	 */
+	private final long cpuTimeNanos;
+
+	/**
+	 * The allocated memory, in bytes.
+	 */
+	private final long allocatedBytes;
+
+	/**
+	 * Create the values.
+	 *
+	 * @param cpuTimeNanos The CPU time, in nanoseconds.
+	 * @param allocatedBytes The allocated memory, in bytes.
+	 */
+	ThreadUsage(long cpuTimeNanos, long allocatedBytes) {
+		this.cpuTimeNanos = cpuTimeNanos;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	/**
+	 * Get the total CPU time and allocated memory of the current thread.
+	 *
+	 * @return The current values.
+	 */
+	static ThreadUsage current() {
+		return new ThreadUsage(currentThreadCpuTime(), currentThreadAllocatedBytes());
+	}
+
+	/**
+	 * Get the CPU time.
+	 *
+	 * @return The CPU time in nanoseconds, {@code -1} if not supported.
+	 */
+	long getCpuTimeNanos() {
+		return cpuTimeNanos;
+	}
+
+	/**
+	 * Get the allocated memory.
+	 *
+	 * @return The allocated memory in bytes, {@code -1} if not supported.
+	 */
+	long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Compute the difference between these values and previous values (of the same thread).
+	 *
+	 * @param previous The previous values.
+	 * @return The difference.
+	 */
+	ThreadUsage minus(ThreadUsage previous) {
+		return new ThreadUsage(
+				minus(cpuTimeNanos, previous.cpuTimeNanos),
+				minus(allocatedBytes, previous.allocatedBytes)
+		);
+	}
+
+	private static long minus(long value, long previous) {
+		return value < 0 || previous < 0 ? -1 : value - previous;
+	}
+
+	private static long currentThreadCpuTime() {
+		try {
+			return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+		}
+		catch (UnsupportedOperationException ex) {
+			return -1;
+		}
+	}
+
+	private static long currentThreadAllocatedBytes() {
+		if (GET_THREAD_ALLOCATED_BYTES == null) {
+			return -1;
+		}
+
+		try {
+			return (Long) GET_THREAD_ALLOCATED_BYTES.invoke(THREAD_MX_BEAN, Thread.currentThread().getId());
+		}
+		catch (Exception ex) {
+			return -1;
+		}
+	}
+
+	private static Method findGetThreadAllocatedBytes() {
+		try {
+			Class<?> klass = Class.forName("com.sun.management.ThreadMXBean");
+			if (!klass.isInstance(THREAD_MX_BEAN)) {
+				return null;
+			}
+
+			Method isSupported = klass.getMethod("isThreadAllocatedMemorySupported");
+			if (!((Boolean) isSupported.invoke(THREAD_MX_BEAN))) {
+				return null;
+			}
+
+			klass.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(THREAD_MX_BEAN, true);
+			return klass.getMethod("getThreadAllocatedBytes", long.class);
+		}
+		catch (Exception ex) {
+			// Not a HotSpot (or compatible) JVM.
+			return null;
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of bytecode transformed by a chain of {@link ClassTransformer} instances, shared by all classloaders
+ * using these instances:
+ * <ul>
+ *   <li>In memory, transformed bytecode is indexed by class name (as with {@link BytecodeCache}, the same
+ *   class name always resolves to the same input bytecode during the JVM lifetime).</li>
+ *   <li>On disk (only if the {@link #DIRECTORY_PROPERTY} system property is set), transformed bytecode is
+ *   stored in a file named after the SHA-256 hash of the input bytecode, in a directory named after the
+ *   SHA-256 hash of the transformer chain (the class name and the {@link ClassTransformer#cacheKey() cache key}
+ *   of each transformer):
+ *   unchanged classes are not transformed again by the next JVM runs, as long as the transformers keep the
+ *   same cache keys. The disk cache is disabled if a transformer has no cache key.</li>
+ * </ul>
+ */
+final class TransformedBytecodeCache {
+	/**
+	 * The system property that can be used to set the directory of the disk cache.
+	 */
+	static final String DIRECTORY_PROPERTY = "junit.customclassloader.transformCache.dir";
+
+	/**
+	 * The value stored when the bytecode of a class is not changed by transformers: stored as an
+	 * empty file on disk.
+	 */
+	private static final byte[] UNCHANGED = new byte[0];
+
+	/**
+	 * The digest used to hash bytecode, one per thread since {@link MessageDigest} is not thread-safe.
+	 */
+	private static final ThreadLocal<MessageDigest> SHA_256 = new ThreadLocal<MessageDigest>() {
+		@Override
+		protected MessageDigest initialValue() {
+			try {
+				return MessageDigest.getInstance("SHA-256");
+			}
+			catch (NoSuchAlgorithmException ex) {
+				// Every JVM must support SHA-256.
+				throw new IllegalStateException(ex);
+			}
+		}
+	};
+
+	/**
+	 * Create the cache of given transformer chain.
+	 *
+	 * @param transformers The transformers, applied in order.
+	 * @return The cache.
+	 */
+	static TransformedBytecodeCache of(List<? extends ClassTransformer> transformers) {
+		String directory = System.getProperty(DIRECTORY_PROPERTY);
+		String chainHash = directory == null || directory.isEmpty() ? null : hash(transformers);
+		return new TransformedBytecodeCache(transformers, chainHash, chainHash == null ? null : new File(directory));
+	}
+
+	/**
+	 * The transformers, applied in order.
+	 */
+	private final List<ClassTransformer> transformers;
+
+	/**
+	 * The transformed bytecode, indexed by class name.
+	 */
+	private final ConcurrentMap<String, byte[]> cache;
+
+	/**
+	 * The directory of the disk cache of this transformer chain, {@code null} if the disk cache is disabled.
+	 */
+	private final File directory;
+
+	/**
+	 * The number of classes transformed by this cache (i.e not found in the cache).
+	 */
+	private final AtomicLong transformed;
+
+	// Package private for testing purpose.
+	TransformedBytecodeCache(List<? extends ClassTransformer> transformers, String chainHash, File directory) {
+		this.transformers = new ArrayList<>(transformers);
+		this.cache = new ConcurrentHashMap<>();
+		this.directory = directory == null ? null : new File(directory, chainHash);
+		this.transformed = new AtomicLong(0);
+	}
+
+	/**
+	 * Get the transformed bytecode of given class.
+	 * Note that the returned array may be shared and must not be modified.
+	 *
+	 * @param className The class name (fully qualified name).
+	 * @param bytecode The bytecode to transform.
+	 * @return The transformed bytecode.
+	 * @throws IllegalStateException If a transformer fails.
+	 */
+	byte[] get(String className, byte[] bytecode) {
+		byte[] result = cache.get(className);
+		if (result == null) {
+			result = load(className, bytecode);
+			byte[] previous = cache.putIfAbsent(className, result);
+			if (previous != null) {
+				result = previous;
+			}
+		}
+
+		return result == UNCHANGED ? bytecode : result;
+	}
+
+	/**
+	 * Get the number of classes transformed by this cache, i.e classes that have been found neither in memory
+	 * nor on disk.
+	 *
+	 * @return The number of transformed classes.
+	 */
+	long getTransformedCount() {
+		return transformed.get();
+	}
+
+	private byte[] load(String className, byte[] bytecode) {
+		if (directory == null) {
+			return transform(className, bytecode);
+		}
+
+		MessageDigest digest = SHA_256.get();
+		digest.reset();
+		File file = new File(directory, toHex(digest.digest(bytecode)) + ".class");
+		if (file.isFile()) {
+			try {
+				byte[] result = Files.readAllBytes(file.toPath());
+				return result.length == 0 ? UNCHANGED : result;
+			}
+			catch (IOException ex) {
+				// The file may be corrupted or being written: transform the class again.
+			}
+		}
+
+		byte[] result = transform(className, bytecode);
+		store(file, result);
+		return result;
+	}
+
+	private byte[] transform(String className, byte[] bytecode) {
+		transformed.incrementAndGet();
+
+		byte[] current = bytecode;
+		for (ClassTransformer transformer : transformers) {
+			try {
+				byte[] result = transformer.transform(className, current);
+				if (result != null) {
+					current = result;
+				}
+			}
+			catch (Exception ex) {
+				throw new IllegalStateException("Cannot transform class " + className + " with " + transformer.getClass().getName(), ex);
+			}
+		}
+
+		return current == bytecode ? UNCHANGED : current;
+	}
+
+	private void store(File file, byte[] result) {
+		// The disk cache is an optimization: failures are ignored, the class will be transformed again by the next run.
+		try {
+			if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+				return;
+			}
+
+			// Write to a temporary file first, so that concurrent JVM never read a partial file.
+			File tmp = File.createTempFile("transformed", ".tmp", directory);
+			try (OutputStream output = new FileOutputStream(tmp)) {
+				output.write(result);
+			}
+
+			if (!tmp.renameTo(file)) {
+				Files.deleteIfExists(tmp.toPath());
+			}
+		}
+		catch (IOException ex) {
+			// Nothing to do.
+		}
+	}
+
+	/**
+	 * Compute the hash identifying given transformer chain on disk: the class name and the cache key
+	 * of each transformer.
+	 *
+	 * @param transformers The transformers, applied in order.
+	 * @return The hash, {@code null} if a transformer has no cache key.
+	 */
+	static String hash(List<? extends ClassTransformer> transformers) {
+		MessageDigest digest = SHA_256.get();
+		digest.reset();
+
+		try {
+			for (ClassTransformer transformer : transformers) {
+				String cacheKey = transformer.cacheKey();
+				if (cacheKey == null) {
+					return null;
+				}
+
+				digest.update(transformer.getClass().getName().getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+				digest.update(cacheKey.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+
+			return toHex(digest.digest());
+		}
+		finally {
+			// The digest is shared by the thread: never leave a partial hash.
+			digest.reset();
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		char[] digits = "0123456789abcdef".toCharArray();
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = digits[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = digits[bytes[i] & 0xF];
+		}
+
+		return new String(chars);
+	}
+}
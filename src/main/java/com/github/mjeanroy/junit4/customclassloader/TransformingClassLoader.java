@@ -0,0 +1,64 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+/**
+ * An {@link IsolatingClassLoader} that runs the bytecode of isolated classes through a chain of
+ * {@link ClassTransformer} before defining them.
+ *
+ * Only isolated classes can be transformed: other classes are loaded by the parent classloader.
+ */
+public class TransformingClassLoader extends IsolatingClassLoader {
+
+	// Classes are defined by this classloader: use per-class locks instead of
+	// locking the whole classloader.
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	/**
+	 * The cache of transformed bytecode.
+	 */
+	private final TransformedBytecodeCache transformedBytecodeCache;
+
+	/**
+	 * Create the classloader.
+	 *
+	 * @param parent The parent classloader.
+	 * @param isolated The rules matching isolated (and transformed) classes.
+	 * @param bytecodeCache The bytecode cache.
+	 * @param profileClinit Flag to profile static initializers of isolated classes (see {@link ClinitProfiler}).
+	 * @param transformedBytecodeCache The cache of transformed bytecode.
+	 */
+	TransformingClassLoader(ClassLoader parent, ClassNameMatcher isolated, BytecodeCache bytecodeCache, boolean profileClinit, TransformedBytecodeCache transformedBytecodeCache) {
+		super(parent, isolated, bytecodeCache, profileClinit);
+		this.transformedBytecodeCache = transformedBytecodeCache;
+	}
+
+	@Override
+	byte[] transform(String name, byte[] bytecode) {
+		return transformedBytecodeCache.get(name, bytecode);
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.List;
+
+/**
+ * Implementation of {@link ClassLoaderHolder} that will load {@link TransformingClassLoader} instance:
+ * isolated classes are transformed by a chain of {@link ClassTransformer} before being defined.
+ *
+ * This holder should be extended to specify the transformers and the application packages, for example:
+ *
+ * <pre><code>
+ *   public class MyClassLoaderHolder extends TransformingClassLoaderHolder {
+ *     public MyClassLoaderHolder() {
+ *       super(Arrays.asList(new FaultInjector(), new Tracer()), "com.mycompany.myapp.**");
+ *     }
+ *   }
+ * </code></pre>
+ *
+ * Transformed bytecode is cached in memory and shared by all classloaders of the holder, so each class is
+ * transformed once per holder. Set the {@code junit.customclassloader.transformCache.dir} system property to
+ * also cache transformed bytecode on disk (keyed by the {@link ClassTransformer#cacheKey() cache key} of the
+ * transformers), so that unchanged classes are not transformed again by other holders and by the next runs.
+ */
+public class TransformingClassLoaderHolder extends IsolatingClassLoaderHolder {
+	/**
+	 * The cache of transformed bytecode.
+	 */
+	private final TransformedBytecodeCache transformedBytecodeCache;
+
+	/**
+	 * Create the holder.
+	 *
+	 * @param transformers The transformers, applied in order.
+	 * @param rules The rules matching isolated (and transformed) classes.
+	 */
+	protected TransformingClassLoaderHolder(List<? extends ClassTransformer> transformers, String... rules) {
+		this(1, transformers, rules);
+	}
+
+	/**
+	 * Create the holder.
+	 *
+	 * @param poolSize The number of classloaders created ahead of time, classloaders are created on demand if it is negative or zero.
+	 * @param transformers The transformers, applied in order.
+	 * @param rules The rules matching isolated (and transformed) classes.
+	 */
+	protected TransformingClassLoaderHolder(int poolSize, List<? extends ClassTransformer> transformers, String... rules) {
+		super(poolSize, rules);
+		this.transformedBytecodeCache = TransformedBytecodeCache.of(transformers);
+	}
+
+	@Override
+	protected ClassLoader createClassLoader() {
+		return new TransformingClassLoader(getParentClassLoader(), getIsolated(), BytecodeCache.getInstance(), ClinitProfiler.isEnabled(), transformedBytecodeCache);
+	}
+}
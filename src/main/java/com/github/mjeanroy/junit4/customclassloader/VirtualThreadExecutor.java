@@ -0,0 +1,124 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Implementation of {@link TestExecutor} that starts a new virtual thread for each task.
+ *
+ * Virtual threads are available since JDK 21: the API is looked up using reflection, so this class can
+ * be loaded on older JVM (use {@link #isSupported()} to check if virtual threads are available).
+ */
+final class VirtualThreadExecutor implements TestExecutor {
+
+	/**
+	 * The {@code Thread#ofVirtual()} method, {@code null} if virtual threads are not supported.
+	 */
+	private static final Method OF_VIRTUAL;
+
+	/**
+	 * The {@code Thread.Builder#name(String)} method, {@code null} if virtual threads are not supported.
+	 */
+	private static final Method NAME;
+
+	/**
+	 * The {@code Thread.Builder#unstarted(Runnable)} method, {@code null} if virtual threads are not supported.
+	 */
+	private static final Method UNSTARTED;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method unstarted = null;
+
+		try {
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			name = builder.getMethod("name", String.class);
+			unstarted = builder.getMethod("unstarted", Runnable.class);
+
+			// On JDK 19 and 20, virtual threads are a preview feature and this call fails
+			// unless preview features are enabled.
+			ofVirtual.invoke(null);
+		}
+		catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException | RuntimeException ex) {
+			ofVirtual = null;
+			name = null;
+			unstarted = null;
+		}
+
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		UNSTARTED = unstarted;
+	}
+
+	/**
+	 * The shared instance.
+	 */
+	static final VirtualThreadExecutor INSTANCE = new VirtualThreadExecutor();
+
+	private VirtualThreadExecutor() {
+	}
+
+	/**
+	 * Check if virtual threads are available on this JVM.
+	 *
+	 * @return {@code true} if virtual threads are available, {@code false} otherwise.
+	 */
+	static boolean isSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	@Override
+	public void execute(String name, ClassLoader classLoader, Runnable task) throws InterruptedException {
+		Thread thread = newVirtualThread(name, task);
+
+		// Use the custom classloader.
+		thread.setContextClassLoader(classLoader);
+
+		thread.start();
+		thread.join();
+	}
+
+	private static Thread newVirtualThread(String name, Runnable task) {
+		if (!isSupported()) {
+			throw new UnsupportedOperationException("Virtual threads are not supported on this JVM");
+		}
+
+		try {
+			Object builder = OF_VIRTUAL.invoke(null);
+			builder = NAME.invoke(builder, name);
+			return (Thread) UNSTARTED.invoke(builder, task);
+		}
+		catch (IllegalAccessException ex) {
+			throw new IllegalStateException(ex);
+		}
+		catch (InvocationTargetException ex) {
+			throw new IllegalStateException(ex.getCause());
+		}
+	}
+}
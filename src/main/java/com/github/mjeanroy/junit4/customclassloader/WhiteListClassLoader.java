@@ -0,0 +1,169 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link ClassLoader} implementation that will explicitly fail when a class that is not whitelisted is loaded:
+ * only JDK classes, and classes of whitelisted packages, can be loaded. This is especially useful to simulate a
+ * minimal classpath.
+ *
+ * Whitelisted packages are given using package rules:
+ * <ul>
+ *   <li>{@code com.mycompany.myapp.*} whitelists all classes of the {@code com.mycompany.myapp} package.</li>
+ *   <li>{@code com.mycompany.**} whitelists all classes of the {@code com.mycompany} package and its sub-packages.</li>
+ *   <li>{@code io.netty.*.epoll.*} whitelists all classes of the {@code epoll} package of any direct sub-package of {@code io.netty}.</li>
+ * </ul>
+ *
+ * Since rules match packages, rules are applied once per package, and the result is cached. Classes of packages
+ * that are not whitelisted are checked once per class (and cached as well) using the platform classloader (the
+ * extension classloader before Java 9): a package may be split between the JDK and a jar of the classpath (for
+ * example, {@code javax.annotation} is shipped by both Java 8 and jsr305), so a JDK class does not make the
+ * other classes of its package JDK classes.
+ *
+ * Note that only classes are filtered: resources are always visible.
+ */
+public class WhiteListClassLoader extends ClassLoader implements InstrumentedClassLoader {
+
+	// Class loading may be triggered by several threads at the same time (for example, when a
+	// test spawns its own worker threads): we do not want to serialize these on the whole loader.
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	/**
+	 * The whitelisted packages: rules are applied to package names.
+	 */
+	private final ClassNameMatcher whitelist;
+
+	/**
+	 * The result of whitelist rules for each package: {@code true} if the package is whitelisted, {@code false} otherwise.
+	 */
+	private final ConcurrentMap<String, Boolean> packages;
+
+	/**
+	 * The parent classloader, everything will be delegated to this classloader, except for classes that are not whitelisted.
+	 */
+	private final ClassLoader parent;
+
+	/**
+	 * The class loading metrics.
+	 */
+	private final ClassLoadingMetrics metrics;
+
+	/**
+	 * Flag to throw exceptions with a full stack trace when a class that is not whitelisted is loaded.
+	 */
+	private final boolean fullStackTraces;
+
+	/**
+	 * Create the classloader.
+	 *
+	 * @param parent The parent classloader.
+	 */
+	WhiteListClassLoader(ClassLoader parent) {
+		this.parent = parent;
+		this.whitelist = new ClassNameMatcher();
+		this.packages = new ConcurrentHashMap<>();
+		this.metrics = new ClassLoadingMetrics();
+		this.fullStackTraces = SystemProperties.getBoolean(BlackListClassLoader.FULL_STACK_TRACES_PROPERTY, false);
+	}
+
+	// No lock is needed here: this classloader never defines any class (everything is delegated
+	// to the parent classloader that is responsible for its own locking).
+	@Override
+	public Class<?> loadClass(String name) throws ClassNotFoundException {
+		long start = metrics.start();
+		try {
+			if (!isAllowed(name)) {
+				metrics.denied();
+				throw fullStackTraces ? new ClassNotFoundException(name) : new BlacklistedClassException(name);
+			}
+
+			metrics.delegated();
+			Class<?> klass = parent.loadClass(name);
+			metrics.loaded(name);
+			return klass;
+		}
+		finally {
+			metrics.end(start);
+		}
+	}
+
+	/**
+	 * Remove all whitelisted packages (JDK classes are still allowed).
+	 */
+	public void clear() {
+		this.whitelist.clear();
+		this.packages.clear();
+	}
+
+	/**
+	 * Add whitelisted packages.
+	 *
+	 * @param rule Package rule: {@code com.mycompany.myapp.*} for a package, {@code com.mycompany.**} for a package and its sub-packages.
+	 * @throws IllegalArgumentException If the rule does not match packages.
+	 */
+	public void add(String rule) {
+		if (rule.endsWith(".**")) {
+			String packageName = rule.substring(0, rule.length() - 3);
+			this.whitelist.add(packageName);
+			this.whitelist.add(rule);
+		}
+		else if (rule.endsWith(".*")) {
+			this.whitelist.add(rule.substring(0, rule.length() - 2));
+		}
+		else {
+			throw new IllegalArgumentException("Whitelist rule must match packages (such as 'com.mycompany.*' or 'com.mycompany.**'): " + rule);
+		}
+
+		// Denied packages may be allowed now.
+		this.packages.clear();
+	}
+
+	@Override
+	public ClassLoadingMetrics getMetrics() {
+		return metrics;
+	}
+
+	private boolean isAllowed(String name) {
+		int dot = name.lastIndexOf('.');
+		String packageName = dot < 0 ? "" : name.substring(0, dot);
+
+		Boolean whitelisted = packages.get(packageName);
+		if (whitelisted == null) {
+			whitelisted = whitelist.matches(packageName);
+			packages.put(packageName, whitelisted);
+		}
+
+		if (whitelisted) {
+			return true;
+		}
+
+		return PlatformClasses.contains(name);
+	}
+}
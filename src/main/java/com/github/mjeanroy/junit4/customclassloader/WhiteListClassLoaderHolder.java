@@ -0,0 +1,82 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+/**
+ * Implementation of {@link ClassLoaderHolder} that will load {@link WhiteListClassLoader} instance.
+ *
+ * Whitelisted packages can be given when the holder is created, for example:
+ *
+ * <pre><code>
+ *   public class MyClassLoaderHolder extends WhiteListClassLoaderHolder {
+ *     public MyClassLoaderHolder() {
+ *       super("com.mycompany.myapp.**", "org.slf4j.**");
+ *     }
+ *   }
+ * </code></pre>
+ *
+ * Classloaders are created ahead of time, but never reused: the JVM records a classloader as the initiating
+ * loader of every class loaded through it, so {@code Class.forName(name, initialize, classLoader)} would still
+ * return the classes loaded by a previous test, whatever the whitelist of the next test.
+ */
+public class WhiteListClassLoaderHolder extends AbstractClassLoaderHolder implements ClassLoaderHolder {
+	/**
+	 * The number of classloaders created ahead of time.
+	 */
+	private static final int POOL_SIZE = 2;
+
+	/**
+	 * The whitelisted packages of each classloader.
+	 */
+	private final String[] rules;
+
+	/**
+	 * Create the holder: only JDK classes are whitelisted.
+	 */
+	public WhiteListClassLoaderHolder() {
+		this(new String[0]);
+	}
+
+	/**
+	 * Create the holder.
+	 *
+	 * @param rules The whitelisted packages, see {@link WhiteListClassLoader#add(String)}.
+	 */
+	protected WhiteListClassLoaderHolder(String... rules) {
+		super(POOL_SIZE);
+		this.rules = rules.clone();
+	}
+
+	@Override
+	protected ClassLoader createClassLoader() {
+		WhiteListClassLoader classLoader = new WhiteListClassLoader(getParentClassLoader());
+		for (String rule : rules) {
+			classLoader.add(rule);
+		}
+
+		return classLoader;
+	}
+
+}
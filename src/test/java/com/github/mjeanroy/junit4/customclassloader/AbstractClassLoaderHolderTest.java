@@ -0,0 +1,73 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class AbstractClassLoaderHolderTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void it_should_create_holder_overriding_get_without_pool() {
+		final ClassLoader classLoader = new BlackListClassLoader(getClass().getClassLoader());
+		AbstractClassLoaderHolder holder = new AbstractClassLoaderHolder() {
+			@Override
+			public ClassLoader get() {
+				return classLoader;
+			}
+		};
+
+		assertThat(holder.get()).isSameAs(classLoader);
+		assertThat(holder.getPool()).isNull();
+	}
+
+	@Test
+	public void it_should_fail_to_create_pooled_holder_without_create_class_loader() {
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("must override createClassLoader() to use a classloader pool");
+
+		new AbstractClassLoaderHolder(2) {
+			@Override
+			public ClassLoader get() {
+				return getParentClassLoader();
+			}
+		};
+	}
+
+	@Test
+	public void it_should_fail_to_create_holder_without_any_classloader_factory() {
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("must override createClassLoader() or get()");
+
+		new AbstractClassLoaderHolder() {
+		};
+	}
+}
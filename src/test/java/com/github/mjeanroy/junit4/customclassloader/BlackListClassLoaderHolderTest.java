@@ -25,6 +25,7 @@
 package com.github.mjeanroy.junit4.customclassloader;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -59,4 +60,36 @@ public class BlackListClassLoaderHolderTest {
 		classLoader.clear();
 		assertThat(classLoader.loadClass(name)).isNotNull();
 	}
+
+	@Test
+	public void it_should_never_reuse_classloader() throws Exception {
+		String name = "java.util.LinkedList";
+		BlackListClassLoader classLoader = (BlackListClassLoader) this.classLoader.get();
+		assertThat(Class.forName(name, false, classLoader)).isNotNull();
+		assertThat(this.classLoader.resetClassLoader(classLoader)).isFalse();
+
+		Thread thread = Thread.currentThread();
+		ClassLoader contextClassLoader = thread.getContextClassLoader();
+		thread.setContextClassLoader(classLoader);
+
+		try {
+			this.classLoader.afterTest();
+		}
+		finally {
+			thread.setContextClassLoader(contextClassLoader);
+		}
+
+		BlackListClassLoader next = (BlackListClassLoader) this.classLoader.get();
+		next.add(name);
+
+		assertThat(next).isNotSameAs(classLoader);
+
+		try {
+			Class.forName(name, false, next);
+			failBecauseExceptionWasNotThrown(ClassNotFoundException.class);
+		}
+		catch (ClassNotFoundException ex) {
+			assertThat(ex.getMessage()).isEqualTo(name);
+		}
+	}
 }
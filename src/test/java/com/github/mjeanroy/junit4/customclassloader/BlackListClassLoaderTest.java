@@ -25,13 +25,40 @@
 package com.github.mjeanroy.junit4.customclassloader;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import com.github.mjeanroy.junit4.customclassloader.BlackListClassLoader;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.ChildClassAnnotated;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.EnglishGreetingService;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.FrenchGreetingService;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.GreetingService;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.ParentClassAnnotated;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class BlackListClassLoaderTest {
 
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
 	private BlackListClassLoader classLoader;
 
 	@Before
@@ -52,6 +79,111 @@ public class BlackListClassLoaderTest {
 		classLoader.loadClass(name);
 	}
 
+	@Test
+	public void it_should_throw_exception_without_stack_trace_for_blacklisted_class() {
+		String name = ChildClassAnnotated.class.getName();
+		classLoader.add(name);
+
+		try {
+			classLoader.loadClass(name);
+			failBecauseExceptionWasNotThrown(ClassNotFoundException.class);
+		}
+		catch (ClassNotFoundException ex) {
+			assertThat(ex).isInstanceOf(BlacklistedClassException.class).hasMessage(name);
+			assertThat(ex.getStackTrace()).isEmpty();
+		}
+	}
+
+	@Test
+	public void it_should_throw_exception_with_full_stack_trace_for_blacklisted_class() {
+		String name = ChildClassAnnotated.class.getName();
+		BlackListClassLoader classLoader = new BlackListClassLoader(currentClassLoader(), true);
+		classLoader.add(name);
+
+		try {
+			classLoader.loadClass(name);
+			failBecauseExceptionWasNotThrown(ClassNotFoundException.class);
+		}
+		catch (ClassNotFoundException ex) {
+			assertThat(ex).isNotInstanceOf(BlacklistedClassException.class).hasMessage(name);
+			assertThat(ex.getStackTrace()).isNotEmpty();
+		}
+	}
+
+	@Test
+	public void it_should_hide_class_file_of_blacklisted_class() throws Exception {
+		String resource = ChildClassAnnotated.class.getName().replace('.', '/') + ".class";
+		assertThat(classLoader.getResource(resource)).isNotNull();
+
+		classLoader.add(ChildClassAnnotated.class.getName());
+
+		assertThat(classLoader.getResource(resource)).isNull();
+		assertThat(classLoader.getResourceAsStream(resource)).isNull();
+		assertThat(classLoader.getResources(resource).hasMoreElements()).isFalse();
+		assertThat(classLoader.getResource(ParentClassAnnotated.class.getName().replace('.', '/') + ".class")).isNotNull();
+	}
+
+	@Test
+	public void it_should_hide_resources_of_blacklisted_package() throws Exception {
+		File root = tmp.newFolder();
+		write(new File(root, "com/test/config/app.properties"), "foo=bar");
+		write(new File(root, "app.properties"), "foo=bar");
+		BlackListClassLoader classLoader = new BlackListClassLoader(new URLClassLoader(new URL[]{root.toURI().toURL()}, null));
+
+		classLoader.add("com.test.**");
+
+		assertThat(classLoader.getResource("com/test/config/app.properties")).isNull();
+		assertThat(classLoader.getResource("app.properties")).isNotNull();
+	}
+
+	@Test
+	public void it_should_hide_blacklisted_service_providers() throws Exception {
+		File root = tmp.newFolder();
+		write(new File(root, "META-INF/services/" + GreetingService.class.getName()), "# Providers\n" + EnglishGreetingService.class.getName() + "\n" + FrenchGreetingService.class.getName() + " # French\n");
+		BlackListClassLoader classLoader = new BlackListClassLoader(new URLClassLoader(new URL[]{root.toURI().toURL()}, currentClassLoader()));
+
+		assertThat(greetings(classLoader)).containsExactly("hello", "bonjour");
+
+		classLoader.add(FrenchGreetingService.class.getName());
+		assertThat(greetings(classLoader)).containsExactly("hello");
+
+		classLoader.add(EnglishGreetingService.class.getName());
+		assertThat(greetings(classLoader)).isEmpty();
+		assertThat(classLoader.getResource("META-INF/services/" + GreetingService.class.getName())).isNull();
+
+		classLoader.clear();
+		assertThat(greetings(classLoader)).containsExactly("hello", "bonjour");
+	}
+
+	@Test
+	public void it_should_hide_blacklisted_service() throws Exception {
+		File root = tmp.newFolder();
+		write(new File(root, "META-INF/services/" + GreetingService.class.getName()), EnglishGreetingService.class.getName());
+		BlackListClassLoader classLoader = new BlackListClassLoader(new URLClassLoader(new URL[]{root.toURI().toURL()}, currentClassLoader()));
+
+		classLoader.add(GreetingService.class.getName());
+
+		assertThat(classLoader.getResources("META-INF/services/" + GreetingService.class.getName()).hasMoreElements()).isFalse();
+	}
+
+	@Test(expected = ClassNotFoundException.class)
+	public void it_should_not_load_class_from_blacklisted_package() throws Exception {
+		classLoader.add("com.github.mjeanroy.junit4.customclassloader.fixtures.*");
+		classLoader.loadClass("com.github.mjeanroy.junit4.customclassloader.fixtures.ChildClassAnnotated");
+	}
+
+	@Test
+	public void it_should_load_class_outside_of_blacklisted_package() throws Exception {
+		classLoader.add("com.github.mjeanroy.junit4.customclassloader.*");
+		assertThat(classLoader.loadClass("com.github.mjeanroy.junit4.customclassloader.fixtures.ChildClassAnnotated")).isNotNull();
+	}
+
+	@Test(expected = ClassNotFoundException.class)
+	public void it_should_not_load_class_from_blacklisted_sub_package() throws Exception {
+		classLoader.add("com.github.mjeanroy.junit4.**");
+		classLoader.loadClass("com.github.mjeanroy.junit4.customclassloader.fixtures.ChildClassAnnotated");
+	}
+
 	@Test
 	public void it_should_clear_blacklist() throws Exception {
 		String name = "com.github.mjeanroy.junit4.customclassloader.fixtures.ChildClassAnnotated";
@@ -60,7 +192,127 @@ public class BlackListClassLoaderTest {
 		assertThat(classLoader.loadClass(name)).isNotNull();
 	}
 
-	private ClassLoader currentClassLoader() {
+	@Test
+	public void it_should_load_classes_from_many_threads() throws Exception {
+		final String blacklisted = ChildClassAnnotated.class.getName();
+		final String allowed = ParentClassAnnotated.class.getName();
+		final int nbThreads = 16;
+		final int nbIterations = 1000;
+		final CountDownLatch start = new CountDownLatch(1);
+
+		classLoader.add(blacklisted);
+
+		ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+		List<Future<Integer>> futures = new ArrayList<>(nbThreads);
+
+		try {
+			for (int i = 0; i < nbThreads; i++) {
+				futures.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						start.await();
+
+						int denied = 0;
+						for (int i = 0; i < nbIterations; i++) {
+							assertThat(classLoader.loadClass(allowed)).isSameAs(ParentClassAnnotated.class);
+
+							try {
+								classLoader.loadClass(blacklisted);
+							}
+							catch (ClassNotFoundException ex) {
+								denied++;
+							}
+						}
+
+						return denied;
+					}
+				}));
+			}
+
+			start.countDown();
+
+			for (Future<Integer> future : futures) {
+				assertThat(future.get(30, TimeUnit.SECONDS)).isEqualTo(nbIterations);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void it_should_not_block_other_threads_while_parent_is_loading_a_class() throws Exception {
+		final CountDownLatch parentEntered = new CountDownLatch(1);
+		final CountDownLatch parentReleased = new CountDownLatch(1);
+		final ClassLoader parent = new ClassLoader() {
+			@Override
+			public Class<?> loadClass(String name) throws ClassNotFoundException {
+				if (name.equals(ChildClassAnnotated.class.getName())) {
+					parentEntered.countDown();
+					await(parentReleased);
+				}
+
+				return currentClassLoader().loadClass(name);
+			}
+		};
+
+		final BlackListClassLoader classLoader = new BlackListClassLoader(parent);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		try {
+			Future<Class<?>> slow = executor.submit(new Callable<Class<?>>() {
+				@Override
+				public Class<?> call() throws Exception {
+					return classLoader.loadClass(ChildClassAnnotated.class.getName());
+				}
+			});
+
+			assertThat(parentEntered.await(30, TimeUnit.SECONDS)).isTrue();
+
+			Future<Class<?>> fast = executor.submit(new Callable<Class<?>>() {
+				@Override
+				public Class<?> call() throws Exception {
+					return classLoader.loadClass(ParentClassAnnotated.class.getName());
+				}
+			});
+
+			// The second lookup must not wait for the first one to complete.
+			assertThat(fast.get(30, TimeUnit.SECONDS)).isSameAs(ParentClassAnnotated.class);
+			assertThat(slow.isDone()).isFalse();
+
+			parentReleased.countDown();
+			assertThat(slow.get(30, TimeUnit.SECONDS)).isSameAs(ChildClassAnnotated.class);
+		}
+		finally {
+			parentReleased.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static List<String> greetings(ClassLoader classLoader) {
+		List<String> greetings = new ArrayList<>();
+		for (GreetingService service : ServiceLoader.load(GreetingService.class, classLoader)) {
+			greetings.add(service.greet());
+		}
+
+		return greetings;
+	}
+
+	private static void write(File file, String content) throws Exception {
+		Files.createDirectories(file.getParentFile().toPath());
+		Files.write(file.toPath(), Collections.singletonList(content), StandardCharsets.UTF_8);
+	}
+
+	private static ClassLoader currentClassLoader() {
 		return Thread.currentThread().getContextClassLoader();
 	}
 }
@@ -0,0 +1,76 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+	@Test
+	public void it_should_contain_all_values() {
+		List<String> values = values("com.test.Value", 10000);
+		BloomFilter filter = new BloomFilter(values);
+
+		for (String value : values) {
+			assertThat(filter.mightContain(value)).isTrue();
+		}
+	}
+
+	@Test
+	public void it_should_have_low_false_positive_rate() {
+		BloomFilter filter = new BloomFilter(values("com.test.Value", 10000));
+
+		int falsePositives = 0;
+		for (String value : values("com.test.Other", 10000)) {
+			if (filter.mightContain(value)) {
+				falsePositives++;
+			}
+		}
+
+		// About 1% expected.
+		assertThat(falsePositives).isLessThan(300);
+	}
+
+	@Test
+	public void it_should_create_empty_filter() {
+		BloomFilter filter = new BloomFilter(Collections.<String>emptyList());
+		assertThat(filter.mightContain("com.test.Value")).isFalse();
+	}
+
+	private static List<String> values(String prefix, int count) {
+		List<String> values = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			values.add(prefix + i);
+		}
+
+		return values;
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.mjeanroy.junit4.customclassloader.fixtures.ParentClassAnnotated;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.StaticCounter;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BytecodeCacheTest {
+
+	private BytecodeCache cache;
+
+	@Before
+	public void setUp() {
+		this.cache = new BytecodeCache(ClasspathIndex.build(Collections.<File>emptyList(), null));
+	}
+
+	@Test
+	public void it_should_read_bytecode_once() {
+		final AtomicInteger reads = new AtomicInteger(0);
+		final ClassLoader classLoader = new ClassLoader(currentClassLoader()) {
+			@Override
+			public URL getResource(String name) {
+				reads.incrementAndGet();
+				return super.getResource(name);
+			}
+		};
+
+		String name = StaticCounter.class.getName();
+		byte[] b1 = cache.get(classLoader, name);
+		byte[] b2 = cache.get(classLoader, name);
+
+		assertThat(b1).isNotEmpty();
+		assertThat(b2).isSameAs(b1);
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(reads.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_return_null_for_unknown_class() {
+		String name = "com.github.mjeanroy.junit4.customclassloader.fixtures.UnknownClass";
+		assertThat(cache.get(currentClassLoader(), name)).isNull();
+		assertThat(cache.get(currentClassLoader(), name)).isNull();
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_read_bytecode_using_classpath_index() {
+		BytecodeCache cache = new BytecodeCache(ClasspathIndex.build(Collections.singletonList(location(StaticCounter.class)), null));
+		BytecodeCache.ClassFile classFile = cache.getClassFile(currentClassLoader(), StaticCounter.class.getName());
+
+		assertThat(classFile.getBytecode()).isNotEmpty();
+		assertThat(classFile.getCodeSource()).isEqualTo(StaticCounter.class.getProtectionDomain().getCodeSource());
+		assertThat(classFile.getManifest()).isNull();
+	}
+
+	@Test
+	public void it_should_read_class_file_of_jar_entry() {
+		BytecodeCache.ClassFile classFile = cache.getClassFile(currentClassLoader(), Test.class.getName());
+
+		assertThat(classFile.getBytecode()).isNotEmpty();
+		assertThat(classFile.getCodeSource().getLocation()).isEqualTo(Test.class.getProtectionDomain().getCodeSource().getLocation());
+		assertThat(classFile.getManifest()).isNotNull();
+	}
+
+	@Test
+	public void it_should_not_read_bytecode_of_class_not_found_by_classloader() {
+		BytecodeCache cache = new BytecodeCache(ClasspathIndex.build(Collections.singletonList(location(StaticCounter.class)), null));
+		ClassLoader classLoader = new ClassLoader(null) { };
+
+		assertThat(cache.get(classLoader, StaticCounter.class.getName())).isNull();
+		assertThat(cache.get(null, StaticCounter.class.getName())).isNull();
+	}
+
+	@Test
+	public void it_should_read_bytecode_found_by_classloader_before_classpath_index() {
+		BytecodeCache cache = new BytecodeCache(ClasspathIndex.build(Collections.singletonList(location(StaticCounter.class)), null));
+		final String otherResource = ParentClassAnnotated.class.getName().replace('.', '/') + ".class";
+		ClassLoader classLoader = new ClassLoader(currentClassLoader()) {
+			@Override
+			public URL getResource(String name) {
+				return super.getResource(otherResource);
+			}
+		};
+
+		byte[] bytecode = cache.get(classLoader, StaticCounter.class.getName());
+		assertThat(bytecode).isEqualTo(cache.get(currentClassLoader(), ParentClassAnnotated.class.getName()));
+	}
+
+	private static File location(Class<?> klass) {
+		return new File(klass.getProtectionDomain().getCodeSource().getLocation().getPath());
+	}
+
+	private static ClassLoader currentClassLoader() {
+		return Thread.currentThread().getContextClassLoader();
+	}
+}
@@ -64,6 +64,19 @@ public class ClassLoaderInjectionRuleTest {
 		assertThat(target.classLoader).isSameAs(Thread.currentThread().getContextClassLoader());
 	}
 
+	@Test
+	public void it_should_inject_and_clean_static_class_loader() {
+		ClassLoaderHolder holder = mock(ClassLoaderHolder.class);
+		CustomStaticClassLoaderInjection target = new CustomStaticClassLoaderInjection();
+		ClassLoaderInjectionRule rule = new ClassLoaderInjectionRule(target, holder);
+
+		rule.before();
+		assertThat(CustomStaticClassLoaderInjection.classLoader).isSameAs(Thread.currentThread().getContextClassLoader());
+
+		rule.after();
+		assertThat(CustomStaticClassLoaderInjection.classLoader).isNull();
+	}
+
 	@Test
 	public void it_should_fail_to_inject_class_with_inappropriate_type() {
 		ClassLoaderHolder holder = mock(ClassLoaderHolder.class);
@@ -140,6 +153,11 @@ public class ClassLoaderInjectionRuleTest {
 		private ClassLoader classLoader;
 	}
 
+	private static class CustomStaticClassLoaderInjection {
+		@TestClassLoader
+		private static ClassLoader classLoader;
+	}
+
 	private static class CustomClassLoaderAndHolderInjection {
 		@TestClassLoader
 		private ClassLoader classLoader;
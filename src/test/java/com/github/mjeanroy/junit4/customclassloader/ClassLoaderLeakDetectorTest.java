@@ -0,0 +1,131 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.runner.Description.createTestDescription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.Description;
+
+public class ClassLoaderLeakDetectorTest {
+
+	private static final List<ClassLoader> LEAKS = new ArrayList<>();
+
+	@After
+	public void tearDown() {
+		LEAKS.clear();
+	}
+
+	@Test
+	public void it_should_not_report_collected_classloader() throws Exception {
+		ClassLoaderLeakDetector detector = new ClassLoaderLeakDetector(5000);
+		detector.track(description("test1"), new BlackListClassLoader(getClass().getClassLoader()));
+
+		List<ClassLoaderLeakDetector.Leak> leaks = detector.check(new BlackListClassLoaderHolder());
+
+		assertThat(leaks).isEmpty();
+		assertThat(detector.getTrackedCount()).isZero();
+	}
+
+	@Test
+	public void it_should_report_classloader_referenced_by_static_field() throws Exception {
+		ClassLoaderLeakDetector detector = new ClassLoaderLeakDetector(100);
+		ClassLoader classLoader = new BlackListClassLoader(getClass().getClassLoader());
+		LEAKS.add(classLoader);
+		detector.track(description("test1"), classLoader);
+		detector.track(description("test2"), new BlackListClassLoader(getClass().getClassLoader()));
+
+		List<ClassLoaderLeakDetector.Leak> leaks = detector.check(new BlackListClassLoaderHolder());
+
+		assertThat(leaks).hasSize(1);
+		assertThat(leaks.get(0).getDescription()).isEqualTo(description("test1"));
+		assertThat(leaks.get(0).getHint()).contains("static field");
+		assertThat(leaks.get(0).toString()).startsWith("Classloader of test test1(" + getClass().getName() + ") has not been garbage collected: ");
+		assertThat(detector.getTrackedCount()).isZero();
+	}
+
+	@Test
+	public void it_should_report_thread_using_classloader() throws Exception {
+		ClassLoaderLeakDetector detector = new ClassLoaderLeakDetector(100);
+		final CountDownLatch latch = new CountDownLatch(1);
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					latch.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, "leaking-thread");
+
+		thread.setContextClassLoader(new BlackListClassLoader(getClass().getClassLoader()));
+		detector.track(description("test1"), thread.getContextClassLoader());
+		thread.start();
+
+		try {
+			List<ClassLoaderLeakDetector.Leak> leaks = detector.check(new BlackListClassLoaderHolder());
+			assertThat(leaks).hasSize(1);
+			assertThat(leaks.get(0).getHint()).isEqualTo("classloader is still used by thread(s) [leaking-thread]");
+		}
+		finally {
+			latch.countDown();
+			thread.join();
+		}
+	}
+
+	@Test
+	public void it_should_not_report_pooled_classloader() throws Exception {
+		BlackListClassLoaderHolder holder = new BlackListClassLoaderHolder();
+		ClassLoaderLeakDetector detector = new ClassLoaderLeakDetector(100);
+		ClassLoader classLoader = holder.get();
+		detector.track(description("test1"), classLoader);
+
+		ClassLoader current = Thread.currentThread().getContextClassLoader();
+		Thread.currentThread().setContextClassLoader(classLoader);
+		try {
+			holder.afterTest();
+		}
+		finally {
+			Thread.currentThread().setContextClassLoader(current);
+		}
+
+		// The classloader may be discarded if the pool is already full.
+		if (holder.isPooled(classLoader)) {
+			assertThat(detector.check(new ScopedClassLoaderHolder(holder, ClassLoaderScope.METHOD))).isEmpty();
+		}
+	}
+
+	private Description description(String name) {
+		return createTestDescription(getClass(), name);
+	}
+}
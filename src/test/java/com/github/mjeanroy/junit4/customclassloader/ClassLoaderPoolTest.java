@@ -0,0 +1,224 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClassLoaderPoolTest {
+
+	private CountingClassLoaderHolder holder;
+
+	@Before
+	public void setUp() {
+		holder = new CountingClassLoaderHolder(2, true);
+	}
+
+	@Test
+	public void it_should_fill_pool_in_background() throws Exception {
+		ClassLoaderPool pool = holder.getPool();
+		ClassLoader classLoader = pool.acquire();
+
+		assertThat(classLoader).isNotNull();
+		awaitIdleCount(pool, 2);
+		assertThat(holder.created.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void it_should_reuse_idle_classloader() throws Exception {
+		ClassLoaderPool pool = holder.getPool();
+		pool.acquire();
+		awaitIdleCount(pool, 2);
+
+		ClassLoader classLoader = pool.acquire();
+
+		assertThat(classLoader).isNotNull();
+		awaitIdleCount(pool, 2);
+		assertThat(holder.created.get()).isEqualTo(4);
+	}
+
+	@Test
+	public void it_should_discard_released_classloader_if_pool_is_full() throws Exception {
+		ClassLoaderPool pool = holder.getPool();
+		ClassLoader classLoader = pool.acquire();
+		awaitIdleCount(pool, 2);
+
+		pool.acquire();
+		awaitIdleCount(pool, 2);
+
+		assertThat(pool.release(classLoader)).isFalse();
+		assertThat(holder.reset.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_ignore_classloader_not_acquired_from_the_pool() {
+		ClassLoaderPool pool = holder.getPool();
+		ClassLoader classLoader = holder.createClassLoader();
+
+		assertThat(pool.release(classLoader)).isFalse();
+		assertThat(holder.reset.get()).isZero();
+	}
+
+	@Test
+	public void it_should_return_released_classloader_to_the_pool() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final Thread testThread = Thread.currentThread();
+		CountingClassLoaderHolder holder = new CountingClassLoaderHolder(1, true) {
+			@Override
+			protected ClassLoader createClassLoader() {
+				// Block background creation until the released classloader is back in the pool.
+				if (Thread.currentThread() != testThread) {
+					await(latch);
+				}
+
+				return super.createClassLoader();
+			}
+		};
+
+		ClassLoaderPool pool = holder.getPool();
+		ClassLoader classLoader = pool.acquire();
+
+		try {
+			assertThat(pool.release(classLoader)).isTrue();
+			assertThat(holder.reset.get()).isEqualTo(1);
+			assertThat(pool.getIdleCount()).isEqualTo(1);
+		}
+		finally {
+			latch.countDown();
+		}
+
+		assertThat(pool.acquire()).isSameAs(classLoader);
+	}
+
+	@Test
+	public void it_should_not_reuse_classloader_that_cannot_be_reset() throws Exception {
+		CountingClassLoaderHolder holder = new CountingClassLoaderHolder(2, false);
+		ClassLoaderPool pool = holder.getPool();
+		ClassLoader classLoader = pool.acquire();
+
+		assertThat(pool.release(classLoader)).isFalse();
+		assertThat(pool.release(classLoader)).isFalse();
+		assertThat(holder.reset.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_create_new_classloader_bypassing_the_pool() {
+		ClassLoaderPool pool = holder.getPool();
+		ClassLoader classLoader = holder.getNew();
+
+		assertThat(classLoader).isNotNull();
+		assertThat(holder.created.get()).isEqualTo(1);
+		assertThat(pool.release(classLoader)).isFalse();
+		assertThat(holder.reset.get()).isZero();
+		assertThat(holder.isPooled(classLoader)).isFalse();
+	}
+
+	@Test
+	public void it_should_not_release_retained_classloader() {
+		ClassLoaderPool pool = holder.getPool();
+		ClassLoader classLoader = pool.acquire();
+		pool.retain(classLoader);
+
+		assertThat(pool.release(classLoader)).isFalse();
+		assertThat(holder.reset.get()).isZero();
+	}
+
+	@Test
+	public void it_should_release_context_classloader_after_test() throws Exception {
+		CountingClassLoaderHolder holder = new CountingClassLoaderHolder(1, true);
+		ClassLoaderPool pool = holder.getPool();
+		awaitFilled(holder, pool);
+
+		ClassLoader classLoader = holder.get();
+		awaitIdleCount(pool, 1);
+
+		ClassLoader current = Thread.currentThread().getContextClassLoader();
+		Thread.currentThread().setContextClassLoader(classLoader);
+		try {
+			holder.afterTest();
+		}
+		finally {
+			Thread.currentThread().setContextClassLoader(current);
+		}
+
+		// The pool is already full: the classloader is reset, but discarded.
+		assertThat(holder.reset.get()).isEqualTo(1);
+		assertThat(pool.getIdleCount()).isEqualTo(1);
+	}
+
+	private static void awaitFilled(CountingClassLoaderHolder holder, ClassLoaderPool pool) throws InterruptedException {
+		holder.get();
+		awaitIdleCount(pool, 1);
+	}
+
+	private static void awaitIdleCount(ClassLoaderPool pool, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (pool.getIdleCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+
+		assertThat(pool.getIdleCount()).isEqualTo(count);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class CountingClassLoaderHolder extends AbstractClassLoaderHolder {
+		private final boolean resettable;
+		private final AtomicInteger created;
+		private final AtomicInteger reset;
+
+		private CountingClassLoaderHolder(int poolSize, boolean resettable) {
+			super(poolSize);
+			this.resettable = resettable;
+			this.created = new AtomicInteger(0);
+			this.reset = new AtomicInteger(0);
+		}
+
+		@Override
+		protected ClassLoader createClassLoader() {
+			created.incrementAndGet();
+			return new ClassLoader(getParentClassLoader()) {
+			};
+		}
+
+		@Override
+		protected boolean resetClassLoader(ClassLoader classLoader) {
+			reset.incrementAndGet();
+			return resettable;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.mjeanroy.junit4.customclassloader.fixtures.ChildClassAnnotated;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.StaticCounter;
+import org.junit.Test;
+
+public class ClassLoadingMetricsTest {
+
+	@Test
+	public void it_should_record_delegated_and_denied_classes() throws Exception {
+		BlackListClassLoader classLoader = new BlackListClassLoader(getClass().getClassLoader());
+		classLoader.add(StaticCounter.class.getName());
+
+		classLoader.loadClass(String.class.getName());
+		classLoader.loadClass(ChildClassAnnotated.class.getName());
+		loadQuietly(classLoader, StaticCounter.class.getName());
+
+		ClassLoadingStats stats = ClassLoadingMetrics.of(classLoader).snapshot();
+		assertThat(stats.getRequested()).isEqualTo(3);
+		assertThat(stats.getLoaded()).isEqualTo(2);
+		assertThat(stats.getDelegated()).isEqualTo(2);
+		assertThat(stats.getDenied()).isEqualTo(1);
+		assertThat(stats.getDefined()).isZero();
+		assertThat(stats.getDefinedBytes()).isZero();
+		assertThat(stats.getLoadTimeNanos()).isPositive();
+	}
+
+	@Test
+	public void it_should_record_defined_classes() throws Exception {
+		ClassNameMatcher isolated = new ClassNameMatcher();
+		isolated.add("com.github.mjeanroy.junit4.customclassloader.fixtures.*");
+		IsolatingClassLoader classLoader = new IsolatingClassLoader(getClass().getClassLoader(), isolated, BytecodeCache.getInstance());
+
+		// Loading the child class also loads its (isolated) parent class.
+		classLoader.loadClass(ChildClassAnnotated.class.getName());
+
+		ClassLoadingStats stats = ClassLoadingMetrics.of(classLoader).snapshot();
+		assertThat(stats.getDefined()).isEqualTo(2);
+		assertThat(stats.getLoaded()).isGreaterThanOrEqualTo(3);
+		assertThat(stats.getDefinedBytes()).isPositive();
+		assertThat(stats.getRequested()).isGreaterThanOrEqualTo(3);
+		assertThat(stats.getDelegated()).isGreaterThanOrEqualTo(1);
+		assertThat(stats.getLoadTimeNanos()).isPositive();
+	}
+
+	@Test
+	public void it_should_count_loaded_classes_once() throws Exception {
+		BlackListClassLoader classLoader = new BlackListClassLoader(getClass().getClassLoader());
+
+		classLoader.loadClass(String.class.getName());
+		classLoader.loadClass(String.class.getName());
+		classLoader.loadClass(Integer.class.getName());
+
+		ClassLoadingStats stats = ClassLoadingMetrics.of(classLoader).snapshot();
+		assertThat(stats.getRequested()).isEqualTo(3);
+		assertThat(stats.getDelegated()).isEqualTo(3);
+		assertThat(stats.getLoaded()).isEqualTo(2);
+	}
+
+	@Test
+	public void it_should_compute_difference() {
+		ClassLoadingMetrics metrics = new ClassLoadingMetrics();
+		metrics.end(metrics.start());
+		metrics.delegated();
+
+		ClassLoadingStats before = metrics.snapshot();
+
+		metrics.end(metrics.start());
+		metrics.defined(100);
+		metrics.end(metrics.start());
+		metrics.denied();
+
+		ClassLoadingStats stats = metrics.snapshot().minus(before);
+		assertThat(stats.getRequested()).isEqualTo(2);
+		assertThat(stats.getDelegated()).isZero();
+		assertThat(stats.getDenied()).isEqualTo(1);
+		assertThat(stats.getDefined()).isEqualTo(1);
+		assertThat(stats.getDefinedBytes()).isEqualTo(100);
+	}
+
+	@Test
+	public void it_should_not_get_metrics_of_other_classloaders() {
+		assertThat(ClassLoadingMetrics.of(getClass().getClassLoader())).isNull();
+	}
+
+	private static void loadQuietly(ClassLoader classLoader, String name) {
+		try {
+			classLoader.loadClass(name);
+		}
+		catch (ClassNotFoundException ex) {
+			// Expected.
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ClassNameMatcherTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private ClassNameMatcher matcher;
+
+	@Before
+	public void setUp() {
+		this.matcher = new ClassNameMatcher();
+	}
+
+	@Test
+	public void it_should_not_match_anything_by_default() {
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.ObjectMapper")).isFalse();
+		assertThat(matcher.matches("")).isFalse();
+	}
+
+	@Test
+	public void it_should_match_exact_class_name() {
+		matcher.add("com.fasterxml.jackson.databind.ObjectMapper");
+
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.ObjectMapper")).isTrue();
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.ObjectMapper$1")).isFalse();
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.ObjectMappe")).isFalse();
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.ObjectReader")).isFalse();
+	}
+
+	@Test
+	public void it_should_match_package() {
+		matcher.add("com.fasterxml.jackson.databind.*");
+
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.ObjectMapper")).isTrue();
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.ObjectMapper$1")).isTrue();
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.node.JsonNodeFactory")).isFalse();
+		assertThat(matcher.matches("com.fasterxml.jackson.core.JsonParser")).isFalse();
+	}
+
+	@Test
+	public void it_should_match_package_and_sub_packages() {
+		matcher.add("com.fasterxml.jackson.**");
+
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.ObjectMapper")).isTrue();
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.node.JsonNodeFactory")).isTrue();
+		assertThat(matcher.matches("com.fasterxml.jackson.Foo")).isTrue();
+		assertThat(matcher.matches("com.fasterxml.jackson")).isFalse();
+		assertThat(matcher.matches("com.fasterxml.jacksonx.Foo")).isFalse();
+		assertThat(matcher.matches("com.fasterxml.Foo")).isFalse();
+	}
+
+	@Test
+	public void it_should_match_glob() {
+		matcher.add("io.netty.*.Epoll*");
+		matcher.add("org.slf4j.impl.Static?oggerBinder");
+		matcher.add("org.**.internal.*");
+
+		assertThat(matcher.matches("io.netty.channel.EpollEventLoop")).isTrue();
+		assertThat(matcher.matches("io.netty.channel.Epoll")).isTrue();
+		assertThat(matcher.matches("io.netty.channel.epoll.EpollEventLoop")).isFalse();
+		assertThat(matcher.matches("io.netty.channel.NioEventLoop")).isFalse();
+
+		assertThat(matcher.matches("org.slf4j.impl.StaticLoggerBinder")).isTrue();
+		assertThat(matcher.matches("org.slf4j.impl.StaticLLoggerBinder")).isFalse();
+
+		assertThat(matcher.matches("org.foo.internal.Bar")).isTrue();
+		assertThat(matcher.matches("org.foo.bar.internal.Baz")).isTrue();
+		assertThat(matcher.matches("org.foo.internal.bar.Baz")).isFalse();
+	}
+
+	@Test
+	public void it_should_match_with_several_rules_sharing_a_prefix() {
+		matcher.add("com.foo.Bar");
+		matcher.add("com.foo.bar.**");
+		matcher.add("com.foo.*Impl");
+
+		assertThat(matcher.matches("com.foo.Bar")).isTrue();
+		assertThat(matcher.matches("com.foo.bar.Baz")).isTrue();
+		assertThat(matcher.matches("com.foo.BarImpl")).isTrue();
+		assertThat(matcher.matches("com.foo.Baz")).isFalse();
+	}
+
+	@Test
+	public void it_should_clear_rules() {
+		matcher.add("com.foo.Bar");
+		matcher.add("com.foo.bar.**");
+
+		matcher.clear();
+
+		assertThat(matcher.matches("com.foo.Bar")).isFalse();
+		assertThat(matcher.matches("com.foo.bar.Baz")).isFalse();
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void it_should_not_add_null_rule() {
+		matcher.add(null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void it_should_not_add_empty_rule() {
+		matcher.add("");
+	}
+
+	@Test
+	public void it_should_add_all_rules() {
+		matcher.addAll(asList("com.fasterxml.jackson.databind.ObjectMapper", "com.google.gson.**", "io.netty.*.Epoll*"));
+
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.ObjectMapper")).isTrue();
+		assertThat(matcher.matches("com.google.gson.Gson")).isTrue();
+		assertThat(matcher.matches("io.netty.channel.EpollEventLoop")).isTrue();
+		assertThat(matcher.matches("io.netty.channel.NioEventLoop")).isFalse();
+	}
+
+	@Test
+	public void it_should_not_add_invalid_rules() {
+		try {
+			matcher.addAll(asList("com.google.gson.**", ""));
+		}
+		catch (IllegalArgumentException ex) {
+			// Expected.
+		}
+
+		assertThat(matcher.matches("com.google.gson.Gson")).isFalse();
+	}
+
+	@Test
+	public void it_should_match_large_frozen_rule_set() {
+		List<String> rules = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			rules.add("com.generated.pkg" + (i % 100) + ".Generated" + i);
+		}
+
+		rules.add("com.google.gson.**");
+		matcher.addAll(rules);
+		matcher.freeze();
+
+		assertThat(matcher.isFrozen()).isTrue();
+		for (String rule : rules.subList(0, 20000)) {
+			assertThat(matcher.matches(rule)).isTrue();
+		}
+
+		assertThat(matcher.matches("com.google.gson.Gson")).isTrue();
+		assertThat(matcher.matches("com.generated.pkg1.Generated20001")).isFalse();
+		assertThat(matcher.matches("com.generated.pkg1.NotGenerated")).isFalse();
+	}
+
+	@Test
+	public void it_should_not_add_rule_to_frozen_matcher() {
+		matcher.add("com.google.gson.**");
+		matcher.freeze();
+
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Cannot add rules to a frozen matcher");
+
+		matcher.add("com.fasterxml.jackson.**");
+	}
+
+	@Test
+	public void it_should_unfreeze_matcher_when_cleared() {
+		matcher.add("com.google.gson.Gson");
+		matcher.freeze();
+
+		matcher.clear();
+		matcher.add("com.fasterxml.jackson.databind.ObjectMapper");
+
+		assertThat(matcher.isFrozen()).isFalse();
+		assertThat(matcher.matches("com.google.gson.Gson")).isFalse();
+		assertThat(matcher.matches("com.fasterxml.jackson.databind.ObjectMapper")).isTrue();
+	}
+}
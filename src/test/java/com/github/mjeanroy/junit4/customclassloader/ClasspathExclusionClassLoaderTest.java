@@ -0,0 +1,91 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static java.util.Collections.list;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class ClasspathExclusionClassLoaderTest {
+
+	private static final String ASSERTJ_RESOURCE = Assertions.class.getName().replace('.', '/') + ".class";
+
+	@Test
+	public void it_should_hide_classes_of_excluded_entries() throws Exception {
+		ClasspathExclusionClassLoader classLoader = new ClasspathExclusionClassLoader(getClass().getClassLoader(), ClasspathExclusion.of("org.assertj:assertj-core"));
+
+		try {
+			classLoader.loadClass(Assertions.class.getName());
+			failBecauseExceptionWasNotThrown(ClassNotFoundException.class);
+		}
+		catch (BlacklistedClassException ex) {
+			assertThat(ex.getMessage()).isEqualTo(Assertions.class.getName());
+			assertThat(ex.getStackTrace()).isEmpty();
+		}
+
+		assertThat(classLoader.loadClass(Test.class.getName())).isSameAs(Test.class);
+		assertThat(classLoader.getMetrics().snapshot().getDenied()).isEqualTo(1);
+		assertThat(classLoader.getMetrics().snapshot().getDelegated()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_hide_resources_of_excluded_entries() throws Exception {
+		ClasspathExclusionClassLoader classLoader = new ClasspathExclusionClassLoader(getClass().getClassLoader(), ClasspathExclusion.of("assertj-core-*.jar"));
+
+		assertThat(classLoader.getResource(ASSERTJ_RESOURCE)).isNull();
+		assertThat(list(classLoader.getResources(ASSERTJ_RESOURCE))).isEmpty();
+		assertThat(classLoader.getResource("org/junit/Test.class")).isNotNull();
+	}
+
+	@Test
+	public void it_should_filter_resources_of_excluded_entries_in_shared_directories() throws Exception {
+		ClassLoader parent = getClass().getClassLoader();
+		ClasspathExclusionClassLoader classLoader = new ClasspathExclusionClassLoader(parent, ClasspathExclusion.of("org.assertj:assertj-core"));
+
+		assertThat(list(classLoader.getResources("META-INF/MANIFEST.MF")))
+				.isNotEmpty()
+				.hasSize(list(parent.getResources("META-INF/MANIFEST.MF")).size() - 1);
+	}
+
+	@Test
+	public void it_should_create_classloader_from_holder() throws Exception {
+		ClasspathExclusionClassLoaderHolder holder = new ClasspathExclusionClassLoaderHolder("org.assertj:assertj-core");
+		ClassLoader classLoader = holder.get();
+
+		assertThat(classLoader).isInstanceOf(ClasspathExclusionClassLoader.class);
+		assertThat(holder.resetClassLoader(classLoader)).isTrue();
+
+		try {
+			classLoader.loadClass(Assertions.class.getName());
+			failBecauseExceptionWasNotThrown(ClassNotFoundException.class);
+		}
+		catch (ClassNotFoundException ex) {
+			// Expected.
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class ClasspathExclusionTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private File guava;
+	private File library;
+	private File directory;
+	private ClasspathIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		File repository = tmp.newFolder("repository", "com", "google", "guava", "guava", "20.0");
+		guava = new File(repository, "guava-20.0.jar");
+		writeJar(guava, "com/google/common/Foo.class", "com/mycompany/split/A.class", "META-INF/services/com.mycompany.Service");
+
+		library = tmp.newFile("library.jar");
+		writeJar(library, "org/library/Library.class", "META-INF/maven/org.library/library/pom.properties");
+
+		directory = tmp.newFolder("classes");
+		writeFile(new File(directory, "com/mycompany/app/App.class"));
+		writeFile(new File(directory, "com/mycompany/split/B.class"));
+
+		index = ClasspathIndex.build(asList(directory, guava, library), null);
+	}
+
+	@Test
+	public void it_should_hide_packages_of_excluded_entries() {
+		ClasspathExclusion exclusion = new ClasspathExclusion(index, singletonList("guava-*.jar"));
+
+		assertThat(exclusion.getExcludedEntries()).containsExactly(guava);
+		assertThat(exclusion.isHiddenClass("com.google.common.Foo")).isTrue();
+		assertThat(exclusion.isHiddenClass("com.google.common.Bar")).isTrue();
+		assertThat(exclusion.isHiddenClass("com.mycompany.app.App")).isFalse();
+		assertThat(exclusion.isHiddenClass("org.library.Library")).isFalse();
+		assertThat(exclusion.isHiddenClass("java.util.List")).isFalse();
+	}
+
+	@Test
+	public void it_should_check_classes_of_split_packages() {
+		ClasspathExclusion exclusion = new ClasspathExclusion(index, singletonList("guava-20.0.jar"));
+
+		assertThat(exclusion.isHiddenClass("com.mycompany.split.A")).isTrue();
+		assertThat(exclusion.isHiddenClass("com.mycompany.split.B")).isFalse();
+	}
+
+	@Test
+	public void it_should_not_hide_jdk_classes_of_excluded_entries() throws Exception {
+		File xmlApis = tmp.newFile("xml-apis-1.4.01.jar");
+		writeJar(xmlApis, "org/w3c/dom/Document.class", "org/w3c/dom/NotInTheJdk.class");
+		ClasspathIndex index = ClasspathIndex.build(asList(directory, xmlApis), null);
+
+		ClasspathExclusion exclusion = new ClasspathExclusion(index, singletonList("xml-apis-*.jar"));
+
+		assertThat(exclusion.isHiddenClass("org.w3c.dom.Document")).isFalse();
+		assertThat(exclusion.isHiddenClass("org.w3c.dom.Document")).isFalse();
+		assertThat(exclusion.isHiddenClass("org.w3c.dom.NotInTheJdk")).isTrue();
+	}
+
+	@Test
+	public void it_should_hide_resources_of_excluded_entries() {
+		ClasspathExclusion exclusion = new ClasspathExclusion(index, singletonList("guava-*.jar"));
+
+		assertThat(exclusion.isHiddenResource("com/google/common/Foo.class")).isTrue();
+		assertThat(exclusion.isHiddenResource("META-INF/services/com.mycompany.Service")).isTrue();
+		assertThat(exclusion.isHiddenResource("com/mycompany/split/A.class")).isTrue();
+		assertThat(exclusion.isHiddenResource("com/mycompany/split/B.class")).isFalse();
+		assertThat(exclusion.isHiddenResource("org/library/Library.class")).isFalse();
+	}
+
+	@Test
+	public void it_should_detect_urls_of_excluded_entries() throws Exception {
+		ClasspathExclusion exclusion = new ClasspathExclusion(index, asList("guava-*.jar", "classes"));
+
+		assertThat(exclusion.isExcluded(new URL("jar:" + guava.toURI().toURL() + "!/com/google/common/Foo.class"))).isTrue();
+		assertThat(exclusion.isExcluded(new File(directory, "com/mycompany/app/App.class").toURI().toURL())).isTrue();
+		assertThat(exclusion.isExcluded(new URL("jar:" + library.toURI().toURL() + "!/org/library/Library.class"))).isFalse();
+	}
+
+	@Test
+	public void it_should_match_maven_coordinates_using_repository_layout() {
+		assertThat(new ClasspathExclusion(index, singletonList("com.google.guava:guava")).getExcludedEntries()).containsExactly(guava);
+		assertThat(new ClasspathExclusion(index, singletonList("com.google.guava:guava:20.0")).getExcludedEntries()).containsExactly(guava);
+	}
+
+	@Test
+	public void it_should_match_maven_coordinates_using_maven_metadata() {
+		ClasspathExclusion exclusion = new ClasspathExclusion(index, singletonList("org.library:library"));
+
+		assertThat(exclusion.getExcludedEntries()).containsExactly(library);
+		assertThat(exclusion.isHiddenClass("org.library.Library")).isTrue();
+	}
+
+	@Test
+	public void it_should_fail_if_version_does_not_match() {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Cannot find classpath entry matching: com.google.guava:guava:21.0");
+		new ClasspathExclusion(index, singletonList("com.google.guava:guava:21.0"));
+	}
+
+	@Test
+	public void it_should_fail_with_unknown_entry() {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Cannot find classpath entry matching: unknown-*.jar");
+		new ClasspathExclusion(index, singletonList("unknown-*.jar"));
+	}
+
+	@Test
+	public void it_should_fail_with_invalid_coordinates() {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Classpath entry must be a file name or Maven coordinates");
+		new ClasspathExclusion(index, singletonList("com.google.guava:guava:20.0:jar:sources"));
+	}
+
+	private static void writeJar(File file, String... entries) throws IOException {
+		try (JarOutputStream output = new JarOutputStream(new FileOutputStream(file))) {
+			for (String entry : entries) {
+				output.putNextEntry(new JarEntry(entry));
+				output.write(entry.getBytes(Charset.forName("UTF-8")));
+				output.closeEntry();
+			}
+		}
+	}
+
+	private static void writeFile(File file) throws IOException {
+		assertThat(file.getParentFile().isDirectory() || file.getParentFile().mkdirs()).isTrue();
+		Files.write(file.toPath(), file.getPath().getBytes(Charset.forName("UTF-8")));
+	}
+}
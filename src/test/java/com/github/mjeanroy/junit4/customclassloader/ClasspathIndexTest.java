@@ -0,0 +1,208 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ClasspathIndexTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private File jar;
+	private File directory;
+	private File indexFile;
+
+	@Before
+	public void setUp() throws Exception {
+		jar = tmp.newFile("library.jar");
+		writeJar(jar, null, "com/mycompany/library/Foo.class", "com/mycompany/library/impl/Bar.class", "META-INF/services/com.mycompany.Service");
+
+		directory = tmp.newFolder("classes");
+		writeFile(new File(directory, "com/mycompany/app/App.class"));
+		writeFile(new File(directory, "app.properties"));
+
+		indexFile = new File(tmp.getRoot(), "target/classpath.idx");
+	}
+
+	@Test
+	public void it_should_index_jar_and_directory() throws Exception {
+		ClasspathIndex index = ClasspathIndex.build(asList(directory, jar), null);
+
+		assertThat(index.getClasspath()).containsExactly(directory, jar);
+		assertThat(index.getEntries("com/mycompany/library")).containsExactly(jar);
+		assertThat(index.getEntries("com/mycompany/library/impl")).containsExactly(jar);
+		assertThat(index.getEntries("META-INF/services")).containsExactly(jar);
+		assertThat(index.getEntries("com/mycompany/app")).containsExactly(directory);
+		assertThat(index.getEntries("")).containsExactly(directory);
+		assertThat(index.getEntries("com/mycompany")).isEmpty();
+	}
+
+	@Test
+	public void it_should_find_resources() throws Exception {
+		ClasspathIndex index = ClasspathIndex.build(asList(directory, jar), null);
+
+		assertThat(index.findEntry("com/mycompany/library/Foo.class")).isEqualTo(jar);
+		assertThat(index.findEntry("com/mycompany/app/App.class")).isEqualTo(directory);
+		assertThat(index.findEntry("app.properties")).isEqualTo(directory);
+		assertThat(index.findEntry("com/mycompany/library/Unknown.class")).isNull();
+		assertThat(index.findEntry("com/unknown/Unknown.class")).isNull();
+
+		assertThat(read(index, "com/mycompany/library/Foo.class")).isEqualTo("com/mycompany/library/Foo.class");
+		assertThat(read(index, "com/mycompany/app/App.class")).isEqualTo(new File(directory, "com/mycompany/app/App.class").getPath());
+		assertThat(index.getResourceAsStream("com/unknown/Unknown.class")).isNull();
+	}
+
+	@Test
+	public void it_should_follow_manifest_classpath() throws Exception {
+		File manifestJar = tmp.newFile("manifest.jar");
+		writeJar(manifestJar, "library.jar classes/");
+
+		ClasspathIndex index = ClasspathIndex.build(singletonList(manifestJar), null);
+
+		assertThat(index.getClasspath()).containsExactly(manifestJar, jar, directory);
+		assertThat(index.findEntry("com/mycompany/library/Foo.class")).isEqualTo(jar);
+		assertThat(index.findEntry("com/mycompany/app/App.class")).isEqualTo(directory);
+	}
+
+	@Test
+	public void it_should_save_index_and_reuse_it() throws Exception {
+		ClasspathIndex i1 = ClasspathIndex.build(asList(directory, jar), indexFile);
+		assertThat(i1.getScannedEntries()).isEqualTo(2);
+		assertThat(indexFile).exists();
+
+		// The jar is read from the index file, the directory is always scanned.
+		ClasspathIndex i2 = ClasspathIndex.build(asList(directory, jar), indexFile);
+		assertThat(i2.getScannedEntries()).isEqualTo(1);
+		assertThat(i2.getEntries("com/mycompany/library")).containsExactly(jar);
+		assertThat(i2.getEntries("com/mycompany/app")).containsExactly(directory);
+	}
+
+	@Test
+	public void it_should_scan_modified_jar_again() throws Exception {
+		ClasspathIndex.build(singletonList(jar), indexFile);
+
+		writeJar(jar, null, "com/mycompany/other/Foo.class");
+		assertThat(jar.setLastModified(jar.lastModified() + 10000)).isTrue();
+
+		ClasspathIndex index = ClasspathIndex.build(singletonList(jar), indexFile);
+		assertThat(index.getScannedEntries()).isEqualTo(1);
+		assertThat(index.getEntries("com/mycompany/other")).containsExactly(jar);
+		assertThat(index.getEntries("com/mycompany/library")).isEmpty();
+	}
+
+	@Test
+	public void it_should_ignore_corrupted_index_file() throws Exception {
+		assertThat(indexFile.getParentFile().mkdirs()).isTrue();
+		Files.write(indexFile.toPath(), "corrupted".getBytes(Charset.forName("UTF-8")));
+
+		ClasspathIndex index = ClasspathIndex.build(singletonList(jar), indexFile);
+		assertThat(index.getScannedEntries()).isEqualTo(1);
+		assertThat(index.getEntries("com/mycompany/library")).containsExactly(jar);
+	}
+
+	@Test
+	public void it_should_ignore_index_file_with_invalid_lengths() throws Exception {
+		assertThat(indexFile.getParentFile().mkdirs()).isTrue();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(0x4A43434C);
+		output.writeInt(1);
+		output.writeInt(1);
+		output.writeInt(Integer.MAX_VALUE);
+		output.flush();
+		Files.write(indexFile.toPath(), bytes.toByteArray());
+
+		ClasspathIndex index = ClasspathIndex.build(singletonList(jar), indexFile);
+		assertThat(index.getScannedEntries()).isEqualTo(1);
+		assertThat(index.getEntries("com/mycompany/library")).containsExactly(jar);
+	}
+
+	@Test
+	public void it_should_open_jar_files_again_once_closed() throws Exception {
+		ClasspathIndex index = ClasspathIndex.build(singletonList(jar), null);
+		assertThat(read(index, "com/mycompany/library/Foo.class")).isEqualTo("com/mycompany/library/Foo.class");
+
+		index.close();
+		assertThat(read(index, "com/mycompany/library/Foo.class")).isEqualTo("com/mycompany/library/Foo.class");
+		index.close();
+	}
+
+	@Test
+	public void it_should_get_directory_of_resource() {
+		assertThat(ClasspathIndex.directoryOf("com/mycompany/Foo.class")).isEqualTo("com/mycompany");
+		assertThat(ClasspathIndex.directoryOf("Foo.class")).isEmpty();
+	}
+
+	private static String read(ClasspathIndex index, String name) throws IOException {
+		try (InputStream stream = index.getResourceAsStream(name)) {
+			byte[] buffer = new byte[1024];
+			int length = stream.read(buffer);
+			return new String(buffer, 0, length, Charset.forName("UTF-8"));
+		}
+	}
+
+	private static void writeJar(File file, String classpath, String... entries) throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		if (classpath != null) {
+			manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classpath);
+		}
+
+		try (JarOutputStream output = new JarOutputStream(new FileOutputStream(file), manifest)) {
+			for (String entry : entries) {
+				output.putNextEntry(new JarEntry(entry));
+				output.write(entry.getBytes(Charset.forName("UTF-8")));
+				output.closeEntry();
+			}
+		}
+	}
+
+	private static void writeFile(File file) throws IOException {
+		assertThat(file.getParentFile().isDirectory() || file.getParentFile().mkdirs()).isTrue();
+		Files.write(file.toPath(), file.getPath().getBytes(Charset.forName("UTF-8")));
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mjeanroy.junit4.customclassloader.fixtures.DefaultInstanceBase;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.DefaultInstanceImpl;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.SlowNestedStaticInitializer;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.SlowStaticInitializer;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.StaticCounter;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClinitProfilerTest {
+
+	private ClassNameMatcher isolated;
+
+	@Before
+	public void setUp() {
+		this.isolated = new ClassNameMatcher();
+		this.isolated.add("com.github.mjeanroy.junit4.customclassloader.fixtures.*");
+	}
+
+	@Test
+	public void it_should_not_profile_by_default() {
+		IsolatingClassLoader classLoader = new IsolatingClassLoader(getClass().getClassLoader(), isolated, BytecodeCache.getInstance());
+		assertThat(ClinitProfiler.of(classLoader)).isNull();
+		assertThat(ClinitProfiler.of(getClass().getClassLoader())).isNull();
+	}
+
+	@Test
+	public void it_should_rank_static_initializers_with_exclusive_time() throws Exception {
+		IsolatingClassLoader classLoader = newClassLoader();
+		ClinitProfiler profiler = ClinitProfiler.of(classLoader);
+
+		classLoader.loadClass(SlowStaticInitializer.class.getName());
+
+		List<ClinitProfiler.Entry> ranking = profiler.getRanking(0);
+		assertThat(ranking).hasSize(2);
+		assertThat(ranking.get(0).getClassName()).isEqualTo(SlowNestedStaticInitializer.class.getName());
+		assertThat(ranking.get(0).getNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(ranking.get(1).getClassName()).isEqualTo(SlowStaticInitializer.class.getName());
+		assertThat(ranking.get(1).getNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50)).isLessThan(ranking.get(0).getNanos());
+
+		ClassLoadingStats stats = classLoader.getMetrics().snapshot();
+		assertThat(stats.getInitialized()).isEqualTo(2);
+		assertThat(stats.getInitTimeNanos()).isEqualTo(ranking.get(0).getNanos() + ranking.get(1).getNanos());
+	}
+
+	@Test
+	public void it_should_initialize_super_class_once_subclass_is_defined() throws Exception {
+		IsolatingClassLoader classLoader = newClassLoader();
+		ClinitProfiler profiler = ClinitProfiler.of(classLoader);
+
+		// The static initializer of the parent class instantiates the subclass: it must not run while the subclass is being defined.
+		Class<?> klass = Class.forName(DefaultInstanceImpl.class.getName(), true, classLoader);
+
+		Object instance = klass.getSuperclass().getField("DEFAULT").get(null);
+		assertThat(instance).isNotNull();
+		assertThat(instance.getClass()).isSameAs(klass);
+
+		List<String> classNames = new ArrayList<>();
+		for (ClinitProfiler.Entry entry : profiler.getRanking(0)) {
+			classNames.add(entry.getClassName());
+		}
+
+		assertThat(classNames).containsOnly(DefaultInstanceBase.class.getName(), DefaultInstanceImpl.class.getName());
+	}
+
+	@Test
+	public void it_should_get_ranking_since_a_given_point() throws Exception {
+		IsolatingClassLoader classLoader = newClassLoader();
+		ClinitProfiler profiler = ClinitProfiler.of(classLoader);
+
+		classLoader.loadClass(SlowStaticInitializer.class.getName());
+		int size = profiler.size();
+		classLoader.loadClass(StaticCounter.class.getName());
+		classLoader.loadClass(StaticCounter.class.getName());
+
+		List<ClinitProfiler.Entry> ranking = profiler.getRanking(size);
+		assertThat(ranking).hasSize(1);
+		assertThat(ranking.get(0).getClassName()).isEqualTo(StaticCounter.class.getName());
+	}
+
+	@Test
+	public void it_should_aggregate_initializers_of_the_suite() throws Exception {
+		newClassLoader().loadClass(StaticCounter.class.getName());
+		newClassLoader().loadClass(StaticCounter.class.getName());
+
+		ClinitProfiler.Total total = null;
+		for (ClinitProfiler.Total t : ClinitProfiler.getSuiteRanking()) {
+			if (t.getClassName().equals(StaticCounter.class.getName())) {
+				total = t;
+			}
+		}
+
+		assertThat(total).isNotNull();
+		assertThat(total.getCount()).isGreaterThanOrEqualTo(2);
+
+		StringWriter writer = new StringWriter();
+		ClinitProfiler.writeSuiteRanking(writer, 1);
+		assertThat(writer.toString()).startsWith("class,count,totalNanos\n");
+		assertThat(writer.toString().split("\n")).hasSize(2);
+	}
+
+	private IsolatingClassLoader newClassLoader() {
+		return new IsolatingClassLoader(getClass().getClassLoader(), isolated, BytecodeCache.getInstance(), true);
+	}
+}
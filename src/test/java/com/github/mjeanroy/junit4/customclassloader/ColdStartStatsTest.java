@@ -0,0 +1,87 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.runner.Description.createTestDescription;
+
+import org.junit.Test;
+import org.junit.runner.Description;
+
+public class ColdStartStatsTest {
+
+	@Test
+	public void it_should_compute_percentiles() {
+		ColdStartStats stats = new ColdStartStats(100);
+		for (int i = 100; i >= 1; i--) {
+			stats.add(i * 1000, i, i * 10);
+		}
+
+		assertThat(stats.size()).isEqualTo(100);
+		assertThat(stats.getDuration(0)).isEqualTo(1000);
+		assertThat(stats.getDuration(50)).isEqualTo(50000);
+		assertThat(stats.getDuration(99)).isEqualTo(99000);
+		assertThat(stats.getClassLoadingTime(0)).isEqualTo(1);
+		assertThat(stats.getClassLoadingTime(50)).isEqualTo(50);
+		assertThat(stats.getClassLoadingTime(99)).isEqualTo(99);
+		assertThat(stats.getClassInitTime(0)).isEqualTo(10);
+		assertThat(stats.getClassInitTime(50)).isEqualTo(500);
+		assertThat(stats.getClassInitTime(99)).isEqualTo(990);
+	}
+
+	@Test
+	public void it_should_compute_percentiles_of_small_samples() {
+		ColdStartStats stats = new ColdStartStats(3);
+		stats.add(3000, -1, -1);
+		stats.add(1000, -1, -1);
+		stats.add(2000, -1, -1);
+
+		assertThat(stats.getDuration(0)).isEqualTo(1000);
+		assertThat(stats.getDuration(50)).isEqualTo(2000);
+		assertThat(stats.getDuration(99)).isEqualTo(3000);
+		assertThat(stats.getClassLoadingTime(50)).isEqualTo(-1);
+		assertThat(stats.getClassInitTime(50)).isEqualTo(-1);
+	}
+
+	@Test
+	public void it_should_format_and_record_statistics() {
+		Description description = createTestDescription(ColdStartStatsTest.class, "test");
+		ColdStartStats stats = new ColdStartStats(2);
+		stats.add(2000, 1000, 5000);
+		stats.add(4000, 3000, 7000);
+
+		assertThat(stats.format(description)).isEqualTo(
+				"Cold start of test(" + ColdStartStatsTest.class.getName() + ") (2 runs): duration min=2 us, median=2 us, p99=4 us / class loading min=1 us, median=1 us, p99=3 us / class init min=5 us, median=5 us, p99=7 us"
+		);
+
+		TestReport report = new TestReport(ColdStartStatsTest.class.getName());
+		stats.record(report, description);
+		assertThat(report.get("test"))
+				.containsEntry("coldStartRuns", 2L)
+				.containsEntry("coldStartDurationMedianNanos", 2000L)
+				.containsEntry("coldStartClassLoadingP99Nanos", 3000L)
+				.containsEntry("coldStartClassInitP99Nanos", 7000L);
+	}
+}
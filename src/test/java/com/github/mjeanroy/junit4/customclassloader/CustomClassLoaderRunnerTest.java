@@ -24,20 +24,54 @@
 
 package com.github.mjeanroy.junit4.customclassloader;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 
+import com.github.mjeanroy.junit4.customclassloader.fixtures.SlowNestedStaticInitializer;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.StaticCounter;
+
+import org.junit.After;
+import org.junit.FixMethodOrder;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.rules.TestRule;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runners.MethodSorters;
 
 public class CustomClassLoaderRunnerTest {
 
 	@Rule
 	public ExpectedException thrown = ExpectedException.none();
 
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@After
+	public void tearDown() {
+		System.clearProperty(CustomClassLoaderRunner.REPORT_DIR_PROPERTY);
+		System.clearProperty(CustomClassLoaderRunner.LEAK_DETECTION_PROPERTY);
+		System.clearProperty(CustomClassLoaderRunner.LEAK_DETECTION_TIMEOUT_PROPERTY);
+		System.clearProperty(ClinitProfiler.PROPERTY);
+		LeakingTestFixture.classLoaders.clear();
+	}
+
 	@Test
 	public void it_should_create_runner_with_appropriate_rules() throws Exception {
 		CustomClassLoaderRunner runner = new CustomClassLoaderRunner(TestFixture.class);
@@ -57,6 +91,189 @@ public class CustomClassLoaderRunnerTest {
 		new CustomClassLoaderRunner(TestFixtureWithoutAnnotation.class);
 	}
 
+	@Test
+	public void it_should_fail_to_instantiate_runner_with_duplicated_holders() throws Exception {
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("@RunWithClassLoader annotation must not specify the same classloader holder twice.");
+		new CustomClassLoaderRunner(DuplicatedMatrixTestFixture.class);
+	}
+
+	@Test
+	public void it_should_run_each_test_with_each_holder_in_parallel() throws Exception {
+		MatrixTestFixture.results.clear();
+		MatrixTestFixture.running.clear();
+
+		CustomClassLoaderRunner runner = new CustomClassLoaderRunner(MatrixTestFixture.class);
+		Result result = new JUnitCore().run(Request.runner(runner));
+
+		assertThat(result.getRunCount()).isEqualTo(4);
+		assertThat(result.getFailures()).isEmpty();
+		assertThat(runner.getDescription().getChildren()).extracting("methodName").containsExactly(
+				"it_should_detect_optional_dependency[WithOptionalDependency]",
+				"it_should_detect_optional_dependency[WithoutOptionalDependency]",
+				"it_should_run_variants_of_this_test_only[WithOptionalDependency]",
+				"it_should_run_variants_of_this_test_only[WithoutOptionalDependency]"
+		);
+
+		assertThat(MatrixTestFixture.results)
+				.containsEntry(MatrixTestFixture.WithOptionalDependency.class.getName(), true)
+				.containsEntry(MatrixTestFixture.WithoutOptionalDependency.class.getName(), false);
+	}
+
+	@Test
+	public void it_should_report_results_of_parallel_tests() throws Exception {
+		Result result = new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(ParallelTestFixture.class)));
+
+		assertThat(result.getRunCount()).isEqualTo(4);
+		assertThat(result.getFailureCount()).isEqualTo(2);
+		assertThat(result.getFailures().get(0).getMessage()).isEqualTo("failure");
+		assertThat(result.getFailures().get(1).getMessage()).isEqualTo("failure");
+	}
+
+	@Test
+	public void it_should_share_classloader_with_class_scope() throws Exception {
+		ClassScopeTestFixture.classLoaders.clear();
+
+		Result result = new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(ClassScopeTestFixture.class)));
+
+		assertThat(result.getRunCount()).isEqualTo(3);
+		assertThat(result.getFailureCount()).isZero();
+		assertThat(ClassScopeTestFixture.classLoaders).hasSize(1);
+	}
+
+	@Test
+	public void it_should_create_classloader_for_each_method_by_default() throws Exception {
+		MethodScopeTestFixture.classLoaders.clear();
+
+		Result result = new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(MethodScopeTestFixture.class)));
+
+		assertThat(result.getRunCount()).isEqualTo(3);
+		assertThat(result.getFailureCount()).isZero();
+		assertThat(MethodScopeTestFixture.classLoaders).hasSize(3);
+	}
+
+	@Test
+	public void it_should_write_report() throws Exception {
+		File directory = tmp.newFolder();
+		System.setProperty(CustomClassLoaderRunner.REPORT_DIR_PROPERTY, directory.getAbsolutePath());
+
+		Result result = new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(TestFixture.class)));
+
+		assertThat(result.getFailureCount()).isZero();
+		assertThat(new File(directory, TestFixture.class.getName() + ".json")).exists();
+		assertThat(new File(directory, TestFixture.class.getName() + ".csv")).exists();
+	}
+
+	@Test
+	public void it_should_not_write_report_by_default() throws Exception {
+		File directory = tmp.newFolder();
+
+		Result result = new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(TestFixture.class)));
+
+		assertThat(result.getFailureCount()).isZero();
+		assertThat(directory.list()).isEmpty();
+	}
+
+	@Test
+	public void it_should_report_classloader_leaks() throws Exception {
+		File directory = tmp.newFolder();
+		System.setProperty(CustomClassLoaderRunner.REPORT_DIR_PROPERTY, directory.getAbsolutePath());
+		System.setProperty(CustomClassLoaderRunner.LEAK_DETECTION_PROPERTY, "true");
+		System.setProperty(CustomClassLoaderRunner.LEAK_DETECTION_TIMEOUT_PROPERTY, "200");
+
+		Result result = new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(LeakingTestFixture.class)));
+
+		assertThat(result.getFailureCount()).isZero();
+
+		File csv = new File(directory, LeakingTestFixture.class.getName() + ".csv");
+		List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+		assertThat(lines).hasSize(2);
+		assertThat(lines.get(0)).endsWith(",leakedClassLoader");
+		assertThat(lines.get(1)).startsWith("it_should_leak,").endsWith(",1");
+	}
+
+	@Test
+	public void it_should_fail_test_allocating_too_much_memory() throws Exception {
+		Result result = new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(AllocatingTestFixture.class)));
+
+		assertThat(result.getRunCount()).isEqualTo(2);
+		if (ThreadUsage.current().getAllocatedBytes() >= 0) {
+			assertThat(result.getFailureCount()).isEqualTo(1);
+			assertThat(result.getFailures().get(0).getDescription().getMethodName()).isEqualTo("it_should_allocate_too_much");
+			assertThat(result.getFailures().get(0).getMessage())
+					.startsWith("Test it_should_allocate_too_much(" + AllocatingTestFixture.class.getName() + ") exceeded its performance budget:")
+					.contains("(max: 1048576 bytes) <-- EXCEEDED");
+		}
+	}
+
+	@Test
+	public void it_should_fail_test_exceeding_duration_and_class_loading_budgets() throws Exception {
+		Result result = new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(BudgetTestFixture.class)));
+
+		assertThat(result.getRunCount()).isEqualTo(3);
+		assertThat(result.getFailureCount()).isEqualTo(2);
+		assertThat(result.getFailures().get(0).getDescription().getMethodName()).isEqualTo("it_should_be_too_slow");
+		assertThat(result.getFailures().get(0).getMessage()).contains("(max: 1000000 ns) <-- EXCEEDED");
+		assertThat(result.getFailures().get(1).getDescription().getMethodName()).isEqualTo("it_should_load_too_many_classes");
+		assertThat(result.getFailures().get(1).getMessage()).contains("loaded classes: 3 classes (max: 2 classes) <-- EXCEEDED");
+	}
+
+	@Test
+	public void it_should_use_new_classloader_for_class_loading_budget() throws Exception {
+		Result result = new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(ScopedBudgetTestFixture.class)));
+
+		assertThat(result.getRunCount()).isEqualTo(2);
+		assertThat(result.getFailures()).isEmpty();
+	}
+
+	@Test
+	public void it_should_write_cold_start_class_init_time_in_report() throws Exception {
+		File directory = tmp.newFolder();
+		System.setProperty(CustomClassLoaderRunner.REPORT_DIR_PROPERTY, directory.getAbsolutePath());
+		System.setProperty(ClinitProfiler.PROPERTY, "true");
+
+		Result result = new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(ColdStartTestFixture.class)));
+		assertThat(result.getFailures()).isEmpty();
+
+		File csv = new File(directory, ColdStartTestFixture.class.getName() + ".csv");
+		List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+		List<String> columns = asList(lines.get(0).split(","));
+		String[] values = lines.get(1).split(",", -1);
+
+		int column = columns.indexOf("coldStartClassInitMedianNanos");
+		assertThat(column).isPositive();
+		assertThat(Long.parseLong(values[column])).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+	}
+
+	@Test
+	public void it_should_write_cpu_time_and_allocated_bytes_in_report() throws Exception {
+		File directory = tmp.newFolder();
+		System.setProperty(CustomClassLoaderRunner.REPORT_DIR_PROPERTY, directory.getAbsolutePath());
+
+		new JUnitCore().run(Request.runner(new CustomClassLoaderRunner(TestFixture.class)));
+
+		File csv = new File(directory, TestFixture.class.getName() + ".csv");
+		List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+		if (ThreadUsage.current().getAllocatedBytes() >= 0) {
+			assertThat(lines.get(0)).contains(",allocatedBytes");
+		}
+	}
+
+	@RunWithClassLoader(ColdStartTestFixture.FixturesClassLoaderHolder.class)
+	public static class ColdStartTestFixture {
+		@Test
+		@RepeatInFreshClassLoader(iterations = 1, warmup = 0)
+		public void test() throws Exception {
+			Class.forName(SlowNestedStaticInitializer.class.getName(), true, Thread.currentThread().getContextClassLoader());
+		}
+
+		public static class FixturesClassLoaderHolder extends IsolatingClassLoaderHolder {
+			public FixturesClassLoaderHolder() {
+				super("com.github.mjeanroy.junit4.customclassloader.fixtures.**");
+			}
+		}
+	}
+
 	@RunWithClassLoader(BlackListClassLoaderHolder.class)
 	public static class TestFixture {
 		@Test
@@ -64,9 +281,221 @@ public class CustomClassLoaderRunnerTest {
 		}
 	}
 
+	@RunWithClassLoader(value = BlackListClassLoaderHolder.class, parallelism = 4)
+	public static class ParallelTestFixture {
+		@Test
+		public void test1() {
+		}
+
+		@Test
+		public void test2() {
+			throw new AssertionError("failure");
+		}
+
+		@Test
+		public void test3() {
+		}
+
+		@Test
+		public void test4() {
+			throw new AssertionError("failure");
+		}
+	}
+
+	@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+	@RunWithClassLoader({MatrixTestFixture.WithOptionalDependency.class, MatrixTestFixture.WithoutOptionalDependency.class})
+	public static class MatrixTestFixture {
+		private static final Map<String, Boolean> results = new ConcurrentHashMap<>();
+
+		// The names of the running tests, one entry per running variant.
+		private static final List<String> running = Collections.synchronizedList(new ArrayList<String>());
+
+		// Both variants must be waiting at the same time.
+		private static final CyclicBarrier barrier = new CyclicBarrier(2);
+
+		@TestClassLoader
+		private ClassLoaderHolder holder;
+
+		@Test
+		public void it_should_detect_optional_dependency() throws Exception {
+			runAlone("it_should_detect_optional_dependency");
+			results.put(holder.getClass().getName(), isAvailable(StaticCounter.class.getName()));
+		}
+
+		@Test
+		public void it_should_run_variants_of_this_test_only() throws Exception {
+			runAlone("it_should_run_variants_of_this_test_only");
+		}
+
+		private void runAlone(String testName) throws Exception {
+			running.add(testName);
+			try {
+				barrier.await(10, TimeUnit.SECONDS);
+
+				// The other variant ends first: the next test must not start before this one ends.
+				if (holder instanceof WithoutOptionalDependency) {
+					Thread.sleep(100);
+				}
+
+				assertThat(running).containsOnly(testName);
+			}
+			finally {
+				running.remove(testName);
+			}
+		}
+
+		private static boolean isAvailable(String className) {
+			try {
+				Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+				return true;
+			} catch (ClassNotFoundException ex) {
+				return false;
+			}
+		}
+
+		public static class WithOptionalDependency extends BlackListClassLoaderHolder {
+		}
+
+		public static class WithoutOptionalDependency extends BlackListClassLoaderHolder {
+			@Override
+			public void beforeTest() {
+				((BlackListClassLoader) Thread.currentThread().getContextClassLoader()).add(StaticCounter.class.getName());
+			}
+		}
+	}
+
+	@RunWithClassLoader({BlackListClassLoaderHolder.class, BlackListClassLoaderHolder.class})
+	public static class DuplicatedMatrixTestFixture {
+		@Test
+		public void test() {
+		}
+	}
+
 	public static class TestFixtureWithoutAnnotation {
 		@Test
 		public void test() {
 		}
 	}
+
+	@RunWithClassLoader(value = BlackListClassLoaderHolder.class, scope = ClassLoaderScope.CLASS)
+	public static class ClassScopeTestFixture {
+		private static final Set<ClassLoader> classLoaders = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<ClassLoader, Boolean>()));
+
+		@Test
+		public void test1() {
+			classLoaders.add(Thread.currentThread().getContextClassLoader());
+		}
+
+		@Test
+		public void test2() {
+			classLoaders.add(Thread.currentThread().getContextClassLoader());
+		}
+
+		@Test
+		public void test3() {
+			classLoaders.add(Thread.currentThread().getContextClassLoader());
+		}
+	}
+
+	@RunWithClassLoader(BlackListClassLoaderHolder.class)
+	public static class MethodScopeTestFixture {
+		private static final Set<ClassLoader> classLoaders = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<ClassLoader, Boolean>()));
+
+		@Test
+		public void test1() {
+			classLoaders.add(Thread.currentThread().getContextClassLoader());
+		}
+
+		@Test
+		public void test2() {
+			classLoaders.add(Thread.currentThread().getContextClassLoader());
+		}
+
+		@Test
+		public void test3() {
+			classLoaders.add(Thread.currentThread().getContextClassLoader());
+		}
+	}
+
+	@RunWithClassLoader(LeakingTestFixture.FixturesClassLoaderHolder.class)
+	public static class LeakingTestFixture {
+		private static final List<ClassLoader> classLoaders = new ArrayList<>();
+
+		@Test
+		public void it_should_leak() {
+			classLoaders.add(Thread.currentThread().getContextClassLoader());
+		}
+
+		public static class FixturesClassLoaderHolder extends IsolatingClassLoaderHolder {
+			public FixturesClassLoaderHolder() {
+				super("com.github.mjeanroy.junit4.customclassloader.fixtures.**");
+			}
+		}
+	}
+
+	@RunWithClassLoader(BlackListClassLoaderHolder.class)
+	@MaxAllocatedBytes
+	public static class AllocatingTestFixture {
+		private static volatile byte[] bytes;
+
+		@Test
+		public void it_should_allocate_too_much() {
+			bytes = new byte[2 * 1024 * 1024];
+		}
+
+		@Test
+		@MaxAllocatedBytes(4 * 1024 * 1024)
+		public void it_should_allocate_less_than_method_budget() {
+			bytes = new byte[2 * 1024 * 1024];
+		}
+	}
+
+	@RunWithClassLoader(value = BlackListClassLoaderHolder.class, scope = ClassLoaderScope.CLASS)
+	@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+	@MaxClassesLoaded(1)
+	public static class ScopedBudgetTestFixture {
+		private static ClassLoader first;
+
+		@Test
+		public void test1() throws Exception {
+			first = Thread.currentThread().getContextClassLoader();
+			first.loadClass(String.class.getName());
+		}
+
+		@Test
+		public void test2() throws Exception {
+			ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+			assertThat(classLoader).isNotSameAs(first);
+			classLoader.loadClass(String.class.getName());
+		}
+	}
+
+	@RunWithClassLoader(BlackListClassLoaderHolder.class)
+	@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+	@MaxClassesLoaded(2)
+	public static class BudgetTestFixture {
+		@Test
+		public void it_should_load_too_many_classes() throws Exception {
+			ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+			classLoader.loadClass(String.class.getName());
+			classLoader.loadClass(Integer.class.getName());
+			classLoader.loadClass(Long.class.getName());
+		}
+
+		@Test
+		public void it_should_load_classes() throws Exception {
+			// Each class is counted once.
+			ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+			classLoader.loadClass(String.class.getName());
+			classLoader.loadClass(String.class.getName());
+			classLoader.loadClass(Integer.class.getName());
+			classLoader.loadClass(Integer.class.getName());
+		}
+
+		@Test
+		@MaxDuration(1)
+		public void it_should_be_too_slow() throws Exception {
+			Thread.sleep(50);
+		}
+	}
 }
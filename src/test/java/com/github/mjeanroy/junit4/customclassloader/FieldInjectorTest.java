@@ -0,0 +1,99 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Field;
+
+import com.github.mjeanroy.junit4.customclassloader.fixtures.ChildClassAnnotated;
+import org.junit.Test;
+
+public class FieldInjectorTest {
+
+	@Test
+	public void it_should_inject_private_field() throws Exception {
+		Field field = ChildClassAnnotated.class.getDeclaredField("field11");
+		FieldInjector injector = FieldInjector.of(field);
+		ChildClassAnnotated target = new ChildClassAnnotated();
+
+		injector.inject(target, "foobar");
+		assertThat(target.getField11()).isEqualTo("foobar");
+
+		injector.inject(target, null);
+		assertThat(target.getField11()).isNull();
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void it_should_not_change_accessible_flag_of_field() throws Exception {
+		Field field = ChildClassAnnotated.class.getDeclaredField("field11");
+		FieldInjector.of(field).inject(new ChildClassAnnotated(), "foobar");
+		assertThat(field.isAccessible()).isFalse();
+	}
+
+	@Test
+	public void it_should_get_field_metadata() throws Exception {
+		Field field = ChildClassAnnotated.class.getDeclaredField("field11");
+		FieldInjector injector = FieldInjector.of(field);
+
+		assertThat(injector.getName()).isEqualTo("field11");
+		assertThat(injector.getType()).isEqualTo(String.class);
+		assertThat(injector.getDeclaringClass()).isEqualTo(ChildClassAnnotated.class);
+	}
+
+	@Test
+	public void it_should_inject_final_field() throws Exception {
+		FinalFieldFixture target = new FinalFieldFixture();
+		FieldInjector.of(FinalFieldFixture.class.getDeclaredField("value")).inject(target, "foobar");
+		assertThat(FinalFieldFixture.class.getDeclaredField("value").get(target)).isEqualTo("foobar");
+	}
+
+	@Test
+	public void it_should_inject_static_field() throws Exception {
+		FieldInjector injector = FieldInjector.of(StaticFieldFixture.class.getDeclaredField("classLoader"));
+		ClassLoader classLoader = getClass().getClassLoader();
+
+		injector.inject(null, classLoader);
+		assertThat(StaticFieldFixture.classLoader).isSameAs(classLoader);
+
+		injector.inject(new StaticFieldFixture(), null);
+		assertThat(StaticFieldFixture.classLoader).isNull();
+	}
+
+	@Test(expected = ClassCastException.class)
+	public void it_should_fail_to_inject_value_with_wrong_type() throws Exception {
+		Field field = ChildClassAnnotated.class.getDeclaredField("field11");
+		FieldInjector.of(field).inject(new ChildClassAnnotated(), 1);
+	}
+
+	private static class StaticFieldFixture {
+		private static ClassLoader classLoader;
+	}
+
+	private static class FinalFieldFixture {
+		final String value = String.valueOf("init");
+	}
+}
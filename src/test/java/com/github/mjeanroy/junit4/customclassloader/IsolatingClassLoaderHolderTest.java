@@ -0,0 +1,60 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.mjeanroy.junit4.customclassloader.fixtures.StaticCounter;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IsolatingClassLoaderHolderTest {
+
+	private IsolatingClassLoaderHolder holder;
+
+	@Before
+	public void setUp() {
+		this.holder = new IsolatingClassLoaderHolder("com.github.mjeanroy.junit4.customclassloader.fixtures.**");
+	}
+
+	@Test
+	public void it_should_create_new_class_loader() {
+		ClassLoader cl1 = holder.get();
+		ClassLoader cl2 = holder.get();
+
+		assertThat(cl1).isExactlyInstanceOf(IsolatingClassLoader.class);
+		assertThat(cl2).isExactlyInstanceOf(IsolatingClassLoader.class);
+		assertThat(cl1).isNotSameAs(cl2);
+		assertThat(cl1.getParent()).isSameAs(holder.getParentClassLoader());
+	}
+
+	@Test
+	public void it_should_isolate_configured_classes() throws Exception {
+		String name = StaticCounter.class.getName();
+		Class<?> k1 = holder.get().loadClass(name);
+		Class<?> k2 = holder.get().loadClass(name);
+		assertThat(k1).isNotSameAs(k2);
+	}
+}
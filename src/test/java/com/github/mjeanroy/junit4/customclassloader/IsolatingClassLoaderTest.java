@@ -0,0 +1,132 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.mjeanroy.junit4.customclassloader.fixtures.ChildClassAnnotated;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.ParentClassAnnotated;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.StaticCounter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.Description;
+
+public class IsolatingClassLoaderTest {
+
+	private ClassNameMatcher isolated;
+
+	@Before
+	public void setUp() {
+		this.isolated = new ClassNameMatcher();
+		this.isolated.add("com.github.mjeanroy.junit4.customclassloader.fixtures.*");
+	}
+
+	@Test
+	public void it_should_define_isolated_class() throws Exception {
+		IsolatingClassLoader classLoader = newClassLoader();
+		Class<?> klass = classLoader.loadClass(StaticCounter.class.getName());
+
+		assertThat(klass).isNotSameAs(StaticCounter.class);
+		assertThat(klass.getName()).isEqualTo(StaticCounter.class.getName());
+		assertThat(klass.getClassLoader()).isSameAs(classLoader);
+		assertThat(klass.getPackage()).isNotNull();
+		assertThat(classLoader.loadClass(StaticCounter.class.getName())).isSameAs(klass);
+	}
+
+	@Test
+	public void it_should_define_isolated_class_with_code_source_of_classpath_entry() throws Exception {
+		Class<?> klass = newClassLoader().loadClass(StaticCounter.class.getName());
+
+		assertThat(klass.getProtectionDomain().getCodeSource()).isNotNull();
+		assertThat(klass.getProtectionDomain().getCodeSource().getLocation()).isEqualTo(StaticCounter.class.getProtectionDomain().getCodeSource().getLocation());
+	}
+
+	@Test
+	public void it_should_define_package_with_manifest_attributes() throws Exception {
+		ClassNameMatcher isolated = new ClassNameMatcher();
+		isolated.add(Description.class.getName());
+
+		IsolatingClassLoader classLoader = new IsolatingClassLoader(Thread.currentThread().getContextClassLoader(), isolated, BytecodeCache.getInstance());
+		Class<?> klass = classLoader.loadClass(Description.class.getName());
+
+		assertThat(klass).isNotSameAs(Description.class);
+		assertThat(klass.getPackage().getImplementationTitle()).isEqualTo(Description.class.getPackage().getImplementationTitle()).isNotNull();
+		assertThat(klass.getPackage().getImplementationVersion()).isEqualTo(Description.class.getPackage().getImplementationVersion()).isNotNull();
+		assertThat(klass.getProtectionDomain().getCodeSource().getLocation()).isEqualTo(Description.class.getProtectionDomain().getCodeSource().getLocation());
+	}
+
+	@Test(expected = ClassNotFoundException.class)
+	public void it_should_not_define_isolated_class_that_parent_cannot_find() throws Exception {
+		ClassLoader parent = new ClassLoader(null) { };
+		new IsolatingClassLoader(parent, isolated, BytecodeCache.getInstance()).loadClass(StaticCounter.class.getName());
+	}
+
+	@Test
+	public void it_should_delegate_other_classes_to_parent() throws Exception {
+		IsolatingClassLoader classLoader = newClassLoader();
+		assertThat(classLoader.loadClass(IsolatingClassLoaderTest.class.getName())).isSameAs(IsolatingClassLoaderTest.class);
+		assertThat(classLoader.loadClass(String.class.getName())).isSameAs(String.class);
+	}
+
+	@Test
+	public void it_should_define_isolated_super_class() throws Exception {
+		IsolatingClassLoader classLoader = newClassLoader();
+		Class<?> klass = classLoader.loadClass(ChildClassAnnotated.class.getName());
+
+		assertThat(klass.getSuperclass()).isNotSameAs(ParentClassAnnotated.class);
+		assertThat(klass.getSuperclass().getClassLoader()).isSameAs(classLoader);
+	}
+
+	@Test
+	public void it_should_not_share_static_state_between_classloaders() throws Exception {
+		assertThat(increment(newClassLoader())).isEqualTo(1);
+		assertThat(increment(newClassLoader())).isEqualTo(1);
+
+		IsolatingClassLoader classLoader = newClassLoader();
+		assertThat(increment(classLoader)).isEqualTo(1);
+		assertThat(increment(classLoader)).isEqualTo(2);
+	}
+
+	@Test(expected = ClassNotFoundException.class)
+	public void it_should_fail_to_load_unknown_isolated_class() throws Exception {
+		newClassLoader().loadClass("com.github.mjeanroy.junit4.customclassloader.fixtures.UnknownClass");
+	}
+
+	@Test
+	public void it_should_check_if_class_is_isolated() {
+		IsolatingClassLoader classLoader = newClassLoader();
+		assertThat(classLoader.isIsolated(StaticCounter.class.getName())).isTrue();
+		assertThat(classLoader.isIsolated(IsolatingClassLoaderTest.class.getName())).isFalse();
+	}
+
+	private IsolatingClassLoader newClassLoader() {
+		return new IsolatingClassLoader(Thread.currentThread().getContextClassLoader(), isolated, BytecodeCache.getInstance());
+	}
+
+	private static int increment(ClassLoader classLoader) throws Exception {
+		Class<?> klass = classLoader.loadClass(StaticCounter.class.getName());
+		return (Integer) klass.getMethod("increment").invoke(null);
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class NewThreadExecutorTest {
+
+	@Test
+	public void it_should_run_task_in_new_thread() throws Exception {
+		final ClassLoader classLoader = new BlackListClassLoader(Thread.currentThread().getContextClassLoader());
+		final AtomicReference<Thread> t1 = new AtomicReference<>();
+		final AtomicReference<Thread> t2 = new AtomicReference<>();
+		final AtomicReference<ClassLoader> contextClassLoader = new AtomicReference<>();
+		final AtomicReference<String> name = new AtomicReference<>();
+
+		NewThreadExecutor.INSTANCE.execute("JUnit{test}", classLoader, new Runnable() {
+			@Override
+			public void run() {
+				t1.set(Thread.currentThread());
+				name.set(Thread.currentThread().getName());
+				contextClassLoader.set(Thread.currentThread().getContextClassLoader());
+			}
+		});
+
+		NewThreadExecutor.INSTANCE.execute("JUnit{test}", classLoader, new Runnable() {
+			@Override
+			public void run() {
+				t2.set(Thread.currentThread());
+			}
+		});
+
+		assertThat(t1.get()).isNotSameAs(Thread.currentThread());
+		assertThat(t1.get()).isNotSameAs(t2.get());
+		assertThat(t1.get().isAlive()).isFalse();
+		assertThat(name.get()).isEqualTo("JUnit{test}");
+		assertThat(contextClassLoader.get()).isSameAs(classLoader);
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ParallelRunnerSchedulerTest {
+
+	@Test
+	public void it_should_run_children_concurrently() throws Exception {
+		final int nbChildren = 4;
+		final CountDownLatch latch = new CountDownLatch(nbChildren);
+		final AtomicInteger completed = new AtomicInteger(0);
+
+		ParallelRunnerScheduler scheduler = new ParallelRunnerScheduler(nbChildren);
+		for (int i = 0; i < nbChildren; i++) {
+			scheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					latch.countDown();
+
+					try {
+						// Only succeed if all children are running at the same time.
+						if (latch.await(30, TimeUnit.SECONDS)) {
+							completed.incrementAndGet();
+						}
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+
+		scheduler.finished();
+
+		assertThat(completed.get()).isEqualTo(nbChildren);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void it_should_propagate_unexpected_error() {
+		ParallelRunnerScheduler scheduler = new ParallelRunnerScheduler(2);
+		scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException();
+			}
+		});
+
+		scheduler.finished();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void it_should_not_create_scheduler_without_threads() {
+		new ParallelRunnerScheduler(0);
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.runner.Description.createTestDescription;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AssumptionViolatedException;
+import org.junit.Test;
+import org.junit.runner.Description;
+
+public class PerformanceBudgetTest {
+
+	@Test
+	public void it_should_create_empty_budget() {
+		Description description = createTestDescription(NoBudget.class, "test");
+		assertThat(PerformanceBudget.of(description)).isSameAs(PerformanceBudget.NONE);
+		assertThat(PerformanceBudget.NONE.isEmpty()).isTrue();
+		assertThat(PerformanceBudget.NONE.hasMaxClassesLoaded()).isFalse();
+	}
+
+	@Test
+	public void it_should_read_method_and_class_annotations() throws Exception {
+		Description description = createTestDescription(WithBudget.class, "test", WithBudget.class.getMethod("test").getAnnotations());
+		PerformanceBudget budget = PerformanceBudget.of(description);
+
+		assertThat(budget.isEmpty()).isFalse();
+		assertThat(budget.hasMaxClassesLoaded()).isTrue();
+
+		// Method annotation: 10 classes, class annotation: 2 seconds.
+		assertThat(budget.check(description, TimeUnit.SECONDS.toNanos(1), new ThreadUsage(-1, 100), stats(10))).isNull();
+		assertThat(budget.check(description, TimeUnit.SECONDS.toNanos(3), new ThreadUsage(-1, 100), stats(10))).isNotNull();
+		assertThat(budget.check(description, TimeUnit.SECONDS.toNanos(1), new ThreadUsage(-1, 100), stats(11))).isNotNull();
+	}
+
+	@Test
+	public void it_should_report_breakdown() {
+		Description description = createTestDescription(NoBudget.class, "test");
+		PerformanceBudget budget = new PerformanceBudget(1000, 100, 5);
+
+		Throwable error = budget.check(description, 500, new ThreadUsage(300, 200), new ClassLoadingStats(8, 5, 3, 1, 2, 1024, 2000000, 2, 3000000));
+
+		assertThat(error).isNotNull();
+		assertThat(error.getMessage()).isEqualTo(
+				"Test test(" + NoBudget.class.getName() + ") exceeded its performance budget:\n" +
+				"  - duration: 500 ns (max: 1000 ns)\n" +
+				"  - allocated memory: 200 bytes (max: 100 bytes) <-- EXCEEDED\n" +
+				"  - loaded classes: 5 classes (max: 5 classes)\n" +
+				"  - CPU time: 300 ns\n" +
+				"  - class loading: 8 requested, 3 delegated, 1 denied, 2 defined (1024 bytes) in 2 ms\n" +
+				"  - static initializers: 2 initialized in 3 ms"
+		);
+	}
+
+	@Test
+	public void it_should_skip_test_if_measurements_are_unavailable() {
+		Description description = createTestDescription(NoBudget.class, "test");
+		PerformanceBudget budget = new PerformanceBudget(-1, 100, 5);
+
+		Throwable error = budget.check(description, 500, ThreadUsage.UNKNOWN, null);
+
+		assertThat(error).isInstanceOf(AssumptionViolatedException.class);
+		assertThat(error.getMessage()).isEqualTo(
+				"Performance budget of test test(" + NoBudget.class.getName() + ") cannot be checked:\n" +
+				"  - @MaxAllocatedBytes: allocated memory is not available (virtual thread, or JVM that does not measure thread allocations)\n" +
+				"  - @MaxClassesLoaded: loaded classes are not available (the test classloader is not an instrumented classloader)"
+		);
+	}
+
+	@Test
+	public void it_should_fail_if_available_measurement_exceeds_budget_whatever_unavailable_measurements() {
+		Description description = createTestDescription(NoBudget.class, "test");
+		PerformanceBudget budget = new PerformanceBudget(100, 100, 5);
+
+		assertThat(budget.check(description, 500, ThreadUsage.UNKNOWN, null)).isExactlyInstanceOf(AssertionError.class);
+	}
+
+	@Test
+	public void it_should_ignore_unavailable_measurements_without_budget() {
+		Description description = createTestDescription(NoBudget.class, "test");
+		PerformanceBudget budget = new PerformanceBudget(1000, -1, -1);
+
+		assertThat(budget.check(description, 500, ThreadUsage.UNKNOWN, null)).isNull();
+	}
+
+	private static ClassLoadingStats stats(long loaded) {
+		return new ClassLoadingStats(loaded * 2, loaded, loaded, 0, 0, 0, 0, 0, 0);
+	}
+
+	private static class NoBudget {
+	}
+
+	@MaxDuration(value = 2, unit = TimeUnit.SECONDS)
+	private static class WithBudget {
+		@MaxClassesLoaded(10)
+		public void test() {
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class PlatformClassesTest {
+
+	@Test
+	public void it_should_detect_jdk_classes() {
+		assertThat(PlatformClasses.contains(String.class.getName())).isTrue();
+		assertThat(PlatformClasses.contains("javax.xml.parsers.DocumentBuilder")).isTrue();
+		assertThat(PlatformClasses.contains("org.w3c.dom.Document")).isTrue();
+	}
+
+	@Test
+	public void it_should_always_detect_java_classes_as_jdk_classes() {
+		assertThat(PlatformClasses.contains("java.lang.UnknownClass")).isTrue();
+	}
+
+	@Test
+	public void it_should_not_detect_classpath_classes() {
+		assertThat(PlatformClasses.contains(PlatformClassesTest.class.getName())).isFalse();
+		assertThat(PlatformClasses.contains(Test.class.getName())).isFalse();
+		assertThat(PlatformClasses.contains("com.github.mjeanroy.junit4.customclassloader.fixtures.UnknownClass")).isFalse();
+		assertThat(PlatformClasses.contains("com.github.mjeanroy.junit4.customclassloader.fixtures.UnknownClass")).isFalse();
+	}
+}
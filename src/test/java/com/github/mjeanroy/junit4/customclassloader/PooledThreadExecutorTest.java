@@ -0,0 +1,326 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PooledThreadExecutorTest {
+
+	private PooledThreadExecutor executor;
+	private ClassLoader classLoader;
+
+	@Before
+	public void setUp() {
+		executor = new PooledThreadExecutor(2);
+		classLoader = new BlackListClassLoader(Thread.currentThread().getContextClassLoader());
+	}
+
+	@Test
+	public void it_should_run_task_with_name_and_class_loader() throws Exception {
+		final Thread testThread = Thread.currentThread();
+		final AtomicReference<Thread> thread = new AtomicReference<>();
+		final AtomicReference<String> name = new AtomicReference<>();
+		final AtomicReference<ClassLoader> contextClassLoader = new AtomicReference<>();
+
+		executor.execute("JUnit{test}", classLoader, new Runnable() {
+			@Override
+			public void run() {
+				thread.set(Thread.currentThread());
+				name.set(Thread.currentThread().getName());
+				contextClassLoader.set(Thread.currentThread().getContextClassLoader());
+			}
+		});
+
+		assertThat(thread.get()).isNotSameAs(testThread);
+		assertThat(name.get()).isEqualTo("JUnit{test}");
+		assertThat(contextClassLoader.get()).isSameAs(classLoader);
+		assertThat(thread.get().getName()).startsWith("JUnit-worker-");
+		assertThat(thread.get().getContextClassLoader()).isNotSameAs(classLoader);
+	}
+
+	@Test
+	public void it_should_reuse_worker_thread() throws Exception {
+		assumeTrue(ThreadLocals.isSupported());
+
+		Thread t1 = currentThreadOf(executor);
+		Thread t2 = currentThreadOf(executor);
+
+		assertThat(t1).isSameAs(t2);
+		assertThat(executor.getIdleWorkers()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_clear_thread_locals_between_tasks() throws Exception {
+		assumeTrue(ThreadLocals.isSupported());
+
+		final ThreadLocal<String> threadLocal = new ThreadLocal<>();
+		final InheritableThreadLocal<String> inheritableThreadLocal = new InheritableThreadLocal<>();
+		final AtomicReference<String> v1 = new AtomicReference<>();
+		final AtomicReference<String> v2 = new AtomicReference<>();
+
+		executor.execute("JUnit{test1}", classLoader, new Runnable() {
+			@Override
+			public void run() {
+				threadLocal.set("foo");
+				inheritableThreadLocal.set("bar");
+			}
+		});
+
+		executor.execute("JUnit{test2}", classLoader, new Runnable() {
+			@Override
+			public void run() {
+				v1.set(threadLocal.get());
+				v2.set(inheritableThreadLocal.get());
+			}
+		});
+
+		assertThat(executor.getIdleWorkers()).isEqualTo(1);
+		assertThat(v1.get()).isNull();
+		assertThat(v2.get()).isNull();
+	}
+
+	@Test
+	public void it_should_not_reuse_worker_after_failure() throws Exception {
+		Thread t1 = currentThreadOf(executor);
+
+		executor.execute("JUnit{test}", classLoader, new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException();
+			}
+		});
+
+		Thread t2 = currentThreadOf(executor);
+
+		assertThat(t1).isNotNull();
+		assertThat(t2).isNotNull();
+		assertThat(executor.getIdleWorkers()).isLessThanOrEqualTo(1);
+	}
+
+	@Test
+	public void it_should_clear_interrupted_flag_between_tasks() throws Exception {
+		executor.execute("JUnit{test1}", classLoader, new Runnable() {
+			@Override
+			public void run() {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		final AtomicReference<Boolean> interrupted = new AtomicReference<>();
+		executor.execute("JUnit{test2}", classLoader, new Runnable() {
+			@Override
+			public void run() {
+				interrupted.set(Thread.currentThread().isInterrupted());
+			}
+		});
+
+		assertThat(interrupted.get()).isFalse();
+	}
+
+	@Test
+	public void it_should_limit_number_of_concurrent_tasks() throws Exception {
+		final AtomicInteger running = new AtomicInteger(0);
+		final AtomicInteger maxRunning = new AtomicInteger(0);
+		final CountDownLatch start = new CountDownLatch(1);
+		final int nbTasks = 8;
+
+		ExecutorService submitters = Executors.newFixedThreadPool(nbTasks);
+
+		try {
+			Future<?>[] futures = new Future<?>[nbTasks];
+			for (int i = 0; i < nbTasks; i++) {
+				futures[i] = submitters.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						start.await();
+						executor.execute("JUnit{test}", classLoader, new Runnable() {
+							@Override
+							public void run() {
+								int current = running.incrementAndGet();
+								maxRunning.set(Math.max(maxRunning.get(), current));
+								sleep(10);
+								running.decrementAndGet();
+							}
+						});
+
+						return null;
+					}
+				});
+			}
+
+			start.countDown();
+
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			submitters.shutdownNow();
+		}
+
+		assertThat(maxRunning.get()).isBetween(1, 2);
+	}
+
+	@Test
+	public void it_should_keep_permit_until_task_of_interrupted_caller_is_done() throws Exception {
+		final PooledThreadExecutor executor = new PooledThreadExecutor(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicBoolean secondRan = new AtomicBoolean(false);
+
+		Thread caller = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					executor.execute("JUnit{test1}", classLoader, new Runnable() {
+						@Override
+						public void run() {
+							started.countDown();
+							await(release);
+						}
+					});
+				}
+				catch (InterruptedException ex) {
+					// Expected.
+				}
+			}
+		});
+
+		caller.start();
+		started.await();
+		caller.interrupt();
+		caller.join();
+
+		ExecutorService submitter = Executors.newSingleThreadExecutor();
+
+		try {
+			Future<?> future = submitter.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					executor.execute("JUnit{test2}", classLoader, new Runnable() {
+						@Override
+						public void run() {
+							secondRan.set(true);
+						}
+					});
+
+					return null;
+				}
+			});
+
+			sleep(100);
+			assertThat(secondRan.get()).isFalse();
+
+			release.countDown();
+			future.get(5, TimeUnit.SECONDS);
+			assertThat(secondRan.get()).isTrue();
+		}
+		finally {
+			release.countDown();
+			submitter.shutdownNow();
+		}
+	}
+
+	@Test
+	public void it_should_not_leak_worker_when_caller_is_interrupted() throws Exception {
+		final PooledThreadExecutor executor = new PooledThreadExecutor(1);
+
+		for (int i = 0; i < 50; i++) {
+			final Thread caller = Thread.currentThread();
+
+			try {
+				// The caller may be interrupted before or after the task is done.
+				executor.execute("JUnit{test" + i + "}", classLoader, new Runnable() {
+					@Override
+					public void run() {
+						caller.interrupt();
+					}
+				});
+			}
+			catch (InterruptedException ex) {
+				// Expected.
+			}
+
+			Thread.interrupted();
+		}
+
+		// Each worker is either back in the pool, or stops once its task is done.
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (executor.getLiveWorkers() != executor.getIdleWorkers() && System.nanoTime() < deadline) {
+			sleep(10);
+		}
+
+		assertThat(executor.getLiveWorkers()).isEqualTo(executor.getIdleWorkers()).isLessThanOrEqualTo(1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void it_should_not_create_empty_pool() {
+		new PooledThreadExecutor(0);
+	}
+
+	private Thread currentThreadOf(PooledThreadExecutor executor) throws Exception {
+		final AtomicReference<Thread> thread = new AtomicReference<>();
+		executor.execute("JUnit{test}", classLoader, new Runnable() {
+			@Override
+			public void run() {
+				thread.set(Thread.currentThread());
+			}
+		});
+
+		return thread.get();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -80,15 +80,4 @@ public class ReflectionsTest {
 		assertThat(fields.get(0).getName()).isEqualTo("field11");
 		assertThat(fields.get(1).getName()).isEqualTo("field01");
 	}
-
-	@Test
-	public void it_should_set_field_value() throws Exception {
-		Field field = ChildClassAnnotated.class.getDeclaredField("field11");
-		String value = "foobar";
-		ChildClassAnnotated target = new ChildClassAnnotated();
-
-		Reflections.setter(target, field, value);
-
-		assertThat(target.getField11()).isEqualTo(value);
-	}
 }
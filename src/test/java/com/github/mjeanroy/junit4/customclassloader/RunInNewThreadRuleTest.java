@@ -9,7 +9,9 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.runner.Description;
 import org.junit.runners.model.Statement;
 import org.mockito.invocation.InvocationOnMock;
@@ -17,6 +19,9 @@ import org.mockito.stubbing.Answer;
 
 public class RunInNewThreadRuleTest {
 
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
 	@Test
 	public void it_should_run_test_in_new_thread() throws Throwable {
 		final Thread testThread = Thread.currentThread();
@@ -46,6 +51,27 @@ public class RunInNewThreadRuleTest {
 		verify(classLoaderHolder).get();
 	}
 
+	@Test
+	public void it_should_record_class_loading_metrics() throws Throwable {
+		final TestReport report = new TestReport(RunInNewThreadRuleTest.class.getName());
+		final RunInNewThreadRule runInNewThreadRule = new RunInNewThreadRule(new BlackListClassLoaderHolder(), NewThreadExecutor.INSTANCE, report, null);
+		final Description description = createTestDescription(RunInNewThreadRuleTest.class, "it_should_record_class_loading_metrics");
+		final Statement statement = new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				Class.forName(String.class.getName(), false, Thread.currentThread().getContextClassLoader());
+			}
+		};
+
+		runInNewThreadRule.apply(statement, description).evaluate();
+
+		assertThat(report.get("it_should_record_class_loading_metrics"))
+				.containsEntry("requested", 1L)
+				.containsEntry("delegated", 1L)
+				.containsEntry("denied", 0L)
+				.containsEntry("defined", 0L);
+	}
+
 	@Test(expected = CustomRuntimeException.class)
 	public void it_should_propagate_exception() throws Throwable {
 		final ClassLoaderHolder classLoaderHolder = spy(new BlackListClassLoaderHolder());
@@ -58,6 +84,77 @@ public class RunInNewThreadRuleTest {
 		result.evaluate();
 	}
 
+	@Test
+	public void it_should_run_test_with_given_executor() throws Throwable {
+		final ClassLoaderHolder classLoaderHolder = spy(new BlackListClassLoaderHolder());
+		final PooledThreadExecutor executor = new PooledThreadExecutor(1);
+		final RunInNewThreadRule runInNewThreadRule = new RunInNewThreadRule(classLoaderHolder, executor);
+		final Description description = createTestDescription(RunInNewThreadRuleTest.class, "it_should_run_test_with_given_executor");
+		final Statement statement = mock(Statement.class);
+
+		final Answer<Object> answer = new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) {
+				assertThat(Thread.currentThread().getName()).isEqualTo("JUnit{" + description.getDisplayName() + "}");
+				assertThat(Thread.currentThread().getContextClassLoader()).isExactlyInstanceOf(BlackListClassLoader.class);
+				return null;
+			}
+		};
+
+		doAnswer(answer).when(statement).evaluate();
+
+		runInNewThreadRule.apply(statement, description).evaluate();
+
+		verify(statement).evaluate();
+		verify(classLoaderHolder).get();
+	}
+
+	@Test
+	public void it_should_fail_with_repeat_without_iterations() throws Throwable {
+		final RunInNewThreadRule runInNewThreadRule = new RunInNewThreadRule(new BlackListClassLoaderHolder());
+		final Description description = createTestDescription(RunInNewThreadRuleTest.class, "withoutIterations", repeat("withoutIterations"));
+		final Statement statement = mock(Statement.class);
+
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("@RepeatInFreshClassLoader iterations must be strictly positive, got: 0");
+
+		try {
+			runInNewThreadRule.apply(statement, description).evaluate();
+		}
+		finally {
+			verifyZeroInteractions(statement);
+		}
+	}
+
+	@Test
+	public void it_should_fail_with_repeat_with_negative_warmup() throws Throwable {
+		final RunInNewThreadRule runInNewThreadRule = new RunInNewThreadRule(new BlackListClassLoaderHolder());
+		final Description description = createTestDescription(RunInNewThreadRuleTest.class, "withNegativeWarmup", repeat("withNegativeWarmup"));
+		final Statement statement = mock(Statement.class);
+
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("@RepeatInFreshClassLoader warmup must be positive or zero, got: -1");
+
+		try {
+			runInNewThreadRule.apply(statement, description).evaluate();
+		}
+		finally {
+			verifyZeroInteractions(statement);
+		}
+	}
+
+	private static RepeatInFreshClassLoader repeat(String methodName) throws Exception {
+		return RunInNewThreadRuleTest.class.getDeclaredMethod(methodName).getAnnotation(RepeatInFreshClassLoader.class);
+	}
+
+	@RepeatInFreshClassLoader(iterations = 0)
+	private static void withoutIterations() {
+	}
+
+	@RepeatInFreshClassLoader(warmup = -1)
+	private static void withNegativeWarmup() {
+	}
+
 	@SuppressWarnings("serial")
 	private static class CustomRuntimeException extends RuntimeException {
 	}
@@ -0,0 +1,90 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+
+public class ScopedClassLoaderHolderTest {
+
+	@Test
+	public void it_should_create_classloader_for_each_method() {
+		ScopedClassLoaderHolder holder = new ScopedClassLoaderHolder(new BlackListClassLoaderHolder(), ClassLoaderScope.METHOD);
+
+		ClassLoader cl1 = holder.get();
+		ClassLoader cl2 = holder.get();
+
+		assertThat(cl1).isExactlyInstanceOf(BlackListClassLoader.class);
+		assertThat(cl2).isExactlyInstanceOf(BlackListClassLoader.class);
+		assertThat(cl1).isNotSameAs(cl2);
+	}
+
+	@Test
+	public void it_should_reuse_classloader_with_class_scope() {
+		ScopedClassLoaderHolder holder = new ScopedClassLoaderHolder(new BlackListClassLoaderHolder(), ClassLoaderScope.CLASS);
+
+		ClassLoader cl1 = holder.get();
+		ClassLoader cl2 = holder.get();
+
+		assertThat(cl1).isExactlyInstanceOf(BlackListClassLoader.class);
+		assertThat(cl1).isSameAs(cl2);
+	}
+
+	@Test
+	public void it_should_create_new_holder_with_class_scope() {
+		ScopedClassLoaderHolder h1 = ScopedClassLoaderHolder.of(BlackListClassLoaderHolder.class, ClassLoaderScope.CLASS);
+		ScopedClassLoaderHolder h2 = ScopedClassLoaderHolder.of(BlackListClassLoaderHolder.class, ClassLoaderScope.CLASS);
+
+		assertThat(h1).isNotSameAs(h2);
+		assertThat(h1.getScope()).isEqualTo(ClassLoaderScope.CLASS);
+		assertThat(h1.getDelegate()).isExactlyInstanceOf(BlackListClassLoaderHolder.class);
+		assertThat(h1.get()).isNotSameAs(h2.get());
+	}
+
+	@Test
+	public void it_should_share_holder_with_suite_scope() {
+		ScopedClassLoaderHolder h1 = ScopedClassLoaderHolder.of(BlackListClassLoaderHolder.class, ClassLoaderScope.SUITE);
+		ScopedClassLoaderHolder h2 = ScopedClassLoaderHolder.of(BlackListClassLoaderHolder.class, ClassLoaderScope.SUITE);
+
+		assertThat(h1).isSameAs(h2);
+		assertThat(h1.getScope()).isEqualTo(ClassLoaderScope.SUITE);
+		assertThat(h1.get()).isSameAs(h2.get());
+	}
+
+	@Test
+	public void it_should_delegate_before_and_after_test() {
+		ClassLoaderHolder delegate = mock(ClassLoaderHolder.class);
+		ScopedClassLoaderHolder holder = new ScopedClassLoaderHolder(delegate, ClassLoaderScope.CLASS);
+
+		holder.beforeTest();
+		verify(delegate).beforeTest();
+
+		holder.afterTest();
+		verify(delegate).afterTest();
+	}
+}
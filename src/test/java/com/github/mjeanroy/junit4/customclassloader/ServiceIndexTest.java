@@ -0,0 +1,117 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static java.util.Collections.list;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ServiceIndexTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void it_should_read_configuration_files_once() throws Exception {
+		File root = tmp.newFolder();
+		File file = write(root, "com.test.Service", "com.test.A\ncom.test.B");
+		ClassLoader classLoader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null);
+		ServiceIndex index = new ServiceIndex();
+		ClassNameMatcher blacklist = new ClassNameMatcher();
+		blacklist.add("com.test.A");
+
+		assertThat(read(index.getResources(classLoader, "com.test.Service", blacklist))).isEqualTo("com.test.B\n");
+
+		Files.delete(file.toPath());
+		assertThat(read(index.getResources(classLoader, "com.test.Service", blacklist))).isEqualTo("com.test.B\n");
+	}
+
+	@Test
+	public void it_should_return_original_file_if_no_provider_is_blacklisted() throws Exception {
+		File root = tmp.newFolder();
+		File file = write(root, "com.test.Service", "com.test.A");
+		ClassLoader classLoader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null);
+		ServiceIndex index = new ServiceIndex();
+
+		List<URL> urls = list(index.getResources(classLoader, "com.test.Service", new ClassNameMatcher()));
+
+		assertThat(urls).containsExactly(file.toURI().toURL());
+	}
+
+	@Test
+	public void it_should_return_nothing_for_unknown_service() throws Exception {
+		ClassLoader classLoader = new URLClassLoader(new URL[]{tmp.newFolder().toURI().toURL()}, null);
+		ServiceIndex index = new ServiceIndex();
+		assertThat(index.getResources(classLoader, "com.test.Service", new ClassNameMatcher()).hasMoreElements()).isFalse();
+	}
+
+	@Test
+	public void it_should_not_prevent_classloader_from_being_garbage_collected() throws Exception {
+		ClassLoader classLoader = new URLClassLoader(new URL[]{tmp.newFolder().toURI().toURL()}, null);
+		ServiceIndex.of(classLoader).getResources(classLoader, "com.test.Service", new ClassNameMatcher());
+
+		WeakReference<ClassLoader> reference = new WeakReference<>(classLoader);
+		classLoader = null;
+
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertThat(reference.get()).isNull();
+	}
+
+	private static File write(File root, String service, String content) throws Exception {
+		File file = new File(root, ServiceIndex.PREFIX + service);
+		Files.createDirectories(file.getParentFile().toPath());
+		Files.write(file.toPath(), singletonList(content), StandardCharsets.UTF_8);
+		return file;
+	}
+
+	private static String read(Enumeration<URL> urls) throws Exception {
+		URL url = urls.nextElement();
+		assertThat(urls.hasMoreElements()).isFalse();
+
+		try (InputStream stream = url.openStream()) {
+			byte[] bytes = new byte[1024];
+			int read = stream.read(bytes);
+			return new String(bytes, 0, read, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StripedCountersTest {
+
+	@Test
+	public void it_should_add_values() {
+		StripedCounters counters = new StripedCounters(2);
+		counters.add(0, 1);
+		counters.add(0, 2);
+		counters.add(1, 10);
+
+		assertThat(counters.get(0)).isEqualTo(3);
+		assertThat(counters.get(1)).isEqualTo(10);
+	}
+
+	@Test
+	public void it_should_sum_values_added_by_several_threads() throws Exception {
+		final StripedCounters counters = new StripedCounters(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			threads.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						counters.add(0, 1);
+					}
+				}
+			}));
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertThat(counters.get(0)).isEqualTo(8000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void it_should_not_create_too_many_counters() {
+		new StripedCounters(StripedCounters.CELLS_PER_STRIPE + 1);
+	}
+
+	@Test
+	public void it_should_compute_number_of_stripes() {
+		assertThat(StripedCounters.stripes(1)).isEqualTo(1);
+		assertThat(StripedCounters.stripes(3)).isEqualTo(4);
+		assertThat(StripedCounters.stripes(8)).isEqualTo(8);
+		assertThat(StripedCounters.stripes(1000)).isEqualTo(64);
+	}
+}
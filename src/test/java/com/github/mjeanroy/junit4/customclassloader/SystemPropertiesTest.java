@@ -0,0 +1,96 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class SystemPropertiesTest {
+
+	private static final String PROPERTY = "junit.customclassloader.test";
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@After
+	public void tearDown() {
+		System.clearProperty(PROPERTY);
+	}
+
+	@Test
+	public void it_should_read_int() {
+		assertThat(SystemProperties.getInt(PROPERTY, 1)).isEqualTo(1);
+
+		System.setProperty(PROPERTY, " 2 ");
+		assertThat(SystemProperties.getInt(PROPERTY, 1)).isEqualTo(2);
+	}
+
+	@Test
+	public void it_should_read_boolean() {
+		assertThat(SystemProperties.getBoolean(PROPERTY, true)).isTrue();
+		assertThat(SystemProperties.getBoolean(PROPERTY, false)).isFalse();
+
+		System.setProperty(PROPERTY, "");
+		assertThat(SystemProperties.getBoolean(PROPERTY, false)).isTrue();
+
+		System.setProperty(PROPERTY, " TRUE ");
+		assertThat(SystemProperties.getBoolean(PROPERTY, false)).isTrue();
+
+		System.setProperty(PROPERTY, "false");
+		assertThat(SystemProperties.getBoolean(PROPERTY, true)).isFalse();
+	}
+
+	@Test
+	public void it_should_fail_to_read_invalid_int() {
+		System.setProperty(PROPERTY, "foo");
+
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("System property 'junit.customclassloader.test' must be an integer, but was: 'foo'.");
+
+		SystemProperties.getInt(PROPERTY, 1);
+	}
+
+	@Test
+	public void it_should_read_enum() {
+		assertThat(SystemProperties.getEnum(PROPERTY, ThreadMode.class, ThreadMode.NEW_THREAD)).isEqualTo(ThreadMode.NEW_THREAD);
+
+		System.setProperty(PROPERTY, "pooled_thread");
+		assertThat(SystemProperties.getEnum(PROPERTY, ThreadMode.class, ThreadMode.NEW_THREAD)).isEqualTo(ThreadMode.POOLED_THREAD);
+	}
+
+	@Test
+	public void it_should_fail_to_read_invalid_enum() {
+		System.setProperty(PROPERTY, "foo");
+
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("System property 'junit.customclassloader.test' must be one of [NEW_THREAD, POOLED_THREAD, VIRTUAL_THREAD], but was: 'foo'.");
+
+		SystemProperties.getEnum(PROPERTY, ThreadMode.class, ThreadMode.NEW_THREAD);
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import com.github.mjeanroy.junit4.customclassloader.fixtures.ClassNotAnnotated;
+import org.junit.Test;
+
+public class TestClassMetadataTest {
+
+	@Test
+	public void it_should_resolve_injectors() {
+		List<FieldInjector> injectors = TestClassMetadata.of(ChildFixture.class).getInjectors();
+		assertThat(injectors).hasSize(2);
+		assertThat(injectors.get(0).getName()).isEqualTo("holder");
+		assertThat(injectors.get(1).getName()).isEqualTo("classLoader");
+	}
+
+	@Test
+	public void it_should_resolve_run_with_class_loader_annotation() {
+		RunWithClassLoader annotation = TestClassMetadata.of(ChildFixture.class).getRunWithClassLoader();
+		assertThat(annotation).isNotNull();
+		assertThat(annotation.value()).containsExactly(BlackListClassLoaderHolder.class);
+	}
+
+	@Test
+	public void it_should_resolve_empty_metadata() {
+		TestClassMetadata metadata = TestClassMetadata.of(ClassNotAnnotated.class);
+		assertThat(metadata.getInjectors()).isEmpty();
+		assertThat(metadata.getRunWithClassLoader()).isNull();
+	}
+
+	@Test
+	public void it_should_resolve_metadata_once() {
+		assertThat(TestClassMetadata.of(ChildFixture.class)).isSameAs(TestClassMetadata.of(ChildFixture.class));
+	}
+
+	@Test
+	public void it_should_not_share_metadata_between_class_loaders() throws Exception {
+		ClassNameMatcher isolated = new ClassNameMatcher();
+		isolated.add(ChildFixture.class.getName());
+
+		ClassLoader classLoader = new IsolatingClassLoader(getClass().getClassLoader(), isolated, BytecodeCache.getInstance());
+		Class<?> isolatedClass = classLoader.loadClass(ChildFixture.class.getName());
+
+		TestClassMetadata m1 = TestClassMetadata.of(ChildFixture.class);
+		TestClassMetadata m2 = TestClassMetadata.of(isolatedClass);
+
+		assertThat(m2).isNotSameAs(m1);
+		assertThat(m2.getInjectors().get(0).getDeclaringClass()).isSameAs(isolatedClass);
+		assertThat(m1.getInjectors().get(0).getDeclaringClass()).isSameAs(ChildFixture.class);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void it_should_not_modify_injectors() {
+		TestClassMetadata.of(ChildFixture.class).getInjectors().clear();
+	}
+
+	@RunWithClassLoader(BlackListClassLoaderHolder.class)
+	public static class ParentFixture {
+		@TestClassLoader
+		private ClassLoader classLoader;
+	}
+
+	public static class ChildFixture extends ParentFixture {
+		@TestClassLoader
+		private ClassLoaderHolder holder;
+
+		@SuppressWarnings("unused")
+		private String notInjected;
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class TestExecutorsTest {
+
+	@Test
+	public void it_should_get_new_thread_executor() {
+		assertThat(TestExecutors.get(ThreadMode.NEW_THREAD, 0)).isSameAs(NewThreadExecutor.INSTANCE);
+	}
+
+	@Test
+	public void it_should_get_shared_pooled_executor() {
+		TestExecutor e1 = TestExecutors.get(ThreadMode.POOLED_THREAD, 2);
+		TestExecutor e2 = TestExecutors.get(ThreadMode.POOLED_THREAD, 2);
+		TestExecutor e3 = TestExecutors.get(ThreadMode.POOLED_THREAD, 3);
+
+		assertThat(e1).isExactlyInstanceOf(PooledThreadExecutor.class);
+		assertThat(e1).isSameAs(e2);
+		assertThat(e1).isNotSameAs(e3);
+	}
+
+	@Test
+	public void it_should_get_virtual_thread_executor_if_supported() {
+		TestExecutor executor = TestExecutors.get(ThreadMode.VIRTUAL_THREAD, 0);
+		if (VirtualThreadExecutor.isSupported()) {
+			assertThat(executor).isSameAs(VirtualThreadExecutor.INSTANCE);
+		}
+		else {
+			assertThat(executor).isSameAs(NewThreadExecutor.INSTANCE);
+		}
+	}
+
+	@Test
+	public void it_should_get_pooled_executor_with_default_size() {
+		TestExecutor e1 = TestExecutors.get(ThreadMode.POOLED_THREAD, 0);
+		TestExecutor e2 = TestExecutors.get(ThreadMode.POOLED_THREAD, Runtime.getRuntime().availableProcessors());
+		assertThat(e1).isSameAs(e2);
+	}
+}
@@ -0,0 +1,210 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+
+public class TestReportTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void it_should_sum_recorded_values() {
+		TestReport report = new TestReport("com.test.MyTest");
+		Description description = Description.createTestDescription("com.test.MyTest", "test1");
+
+		report.record(description, "requested", 1);
+		report.record(description, "requested", 2);
+
+		assertThat(report.get("test1")).containsEntry("requested", 3L);
+		assertThat(report.get("test2")).isNull();
+	}
+
+	@Test
+	public void it_should_record_class_loading_stats() {
+		TestReport report = new TestReport("com.test.MyTest");
+		Description description = Description.createTestDescription("com.test.MyTest", "test1");
+
+		report.record(description, new ClassLoadingStats(1, 9, 2, 3, 4, 5, 6, 0, 0));
+
+		assertThat(report.get("test1"))
+				.containsEntry("requested", 1L)
+				.containsEntry("loaded", 9L)
+				.containsEntry("delegated", 2L)
+				.containsEntry("denied", 3L)
+				.containsEntry("defined", 4L)
+				.containsEntry("definedBytes", 5L)
+				.containsEntry("loadTimeNanos", 6L);
+	}
+
+	@Test
+	public void it_should_record_static_initializers_only_if_profiled() {
+		TestReport report = new TestReport("com.test.MyTest");
+		Description description = Description.createTestDescription("com.test.MyTest", "test1");
+
+		report.record(description, new ClassLoadingStats(1, 9, 2, 3, 4, 5, 6, 0, 0));
+		assertThat(report.get("test1")).doesNotContainKeys("initialized", "initTimeNanos");
+
+		report.record(description, new ClassLoadingStats(1, 9, 2, 3, 4, 5, 6, 7, 8));
+		assertThat(report.get("test1"))
+				.containsEntry("initialized", 7L)
+				.containsEntry("initTimeNanos", 8L);
+	}
+
+	@Test
+	public void it_should_write_json() throws Exception {
+		TestReport report = new TestReport("com.test.MyTest");
+		report.record(Description.createTestDescription("com.test.MyTest", "test1"), "requested", 1);
+		report.record(Description.createTestDescription("com.test.MyTest", "test\"2"), "requested", 2);
+
+		StringWriter writer = new StringWriter();
+		report.writeJson(writer);
+
+		assertThat(writer.toString()).isEqualTo(
+				"{\n" +
+				"  \"testClass\": \"com.test.MyTest\",\n" +
+				"  \"tests\": [\n" +
+				"    {\"name\": \"test1\", \"requested\": 1},\n" +
+				"    {\"name\": \"test\\\"2\", \"requested\": 2}\n" +
+				"  ]\n" +
+				"}\n"
+		);
+	}
+
+	@Test
+	public void it_should_write_empty_json() throws Exception {
+		StringWriter writer = new StringWriter();
+		new TestReport("com.test.MyTest").writeJson(writer);
+		assertThat(writer.toString()).isEqualTo("{\n  \"testClass\": \"com.test.MyTest\",\n  \"tests\": []\n}\n");
+	}
+
+	@Test
+	public void it_should_write_csv() throws Exception {
+		TestReport report = new TestReport("com.test.MyTest");
+		report.record(Description.createTestDescription("com.test.MyTest", "test1"), "requested", 1);
+		report.record(Description.createTestDescription("com.test.MyTest", "test,2"), "defined", 2);
+
+		StringWriter writer = new StringWriter();
+		report.writeCsv(writer);
+
+		assertThat(writer.toString()).isEqualTo(
+				"test,requested,defined\n" +
+				"test1,1,\n" +
+				"\"test,2\",,2\n"
+		);
+	}
+
+	@Test
+	public void it_should_write_files() throws Exception {
+		File directory = new File(tmp.getRoot(), "reports");
+		TestReport report = new TestReport("com.test.MyTest");
+		report.record(Description.createTestDescription("com.test.MyTest", "test1"), "requested", 1);
+
+		report.write(directory);
+
+		File json = new File(directory, "com.test.MyTest.json");
+		File csv = new File(directory, "com.test.MyTest.csv");
+		assertThat(json).exists();
+		assertThat(new String(Files.readAllBytes(csv.toPath()), StandardCharsets.UTF_8)).isEqualTo("test,requested\ntest1,1\n");
+		assertThat(new File(directory, "com.test.MyTest.clinit.csv")).doesNotExist();
+	}
+
+	@Test
+	public void it_should_write_suite_json() throws Exception {
+		TestReport report1 = new TestReport("com.test.MyTest1");
+		report1.record(Description.createTestDescription("com.test.MyTest1", "test1"), "requested", 1);
+		TestReport report2 = new TestReport("com.test.MyTest2");
+		report2.record(Description.createTestDescription("com.test.MyTest2", "test1"), "defined", 2);
+
+		StringWriter writer = new StringWriter();
+		TestReport.writeSuiteJson(writer, asList(report1, report2));
+
+		assertThat(writer.toString()).isEqualTo(
+				"{\n" +
+				"  \"tests\": [\n" +
+				"    {\"testClass\": \"com.test.MyTest1\", \"name\": \"test1\", \"requested\": 1},\n" +
+				"    {\"testClass\": \"com.test.MyTest2\", \"name\": \"test1\", \"defined\": 2}\n" +
+				"  ]\n" +
+				"}\n"
+		);
+	}
+
+	@Test
+	public void it_should_write_empty_suite_json() throws Exception {
+		StringWriter writer = new StringWriter();
+		TestReport.writeSuiteJson(writer, asList(new TestReport("com.test.MyTest")));
+		assertThat(writer.toString()).isEqualTo("{\n  \"tests\": []\n}\n");
+	}
+
+	@Test
+	public void it_should_write_suite_files_of_all_test_classes() throws Exception {
+		File directory = new File(tmp.getRoot(), "reports");
+		TestReport report1 = new TestReport("com.test.MyTest1");
+		report1.record(Description.createTestDescription("com.test.MyTest1", "test1"), "requested", 1);
+		TestReport report2 = new TestReport("com.test.MyTest2");
+		report2.record(Description.createTestDescription("com.test.MyTest2", "test1"), "defined", 2);
+
+		report1.write(directory);
+		report2.write(directory);
+
+		File csv = new File(directory, "suite.csv");
+		assertThat(new File(directory, "suite.json")).exists();
+		assertThat(new String(Files.readAllBytes(csv.toPath()), StandardCharsets.UTF_8)).isEqualTo(
+				"testClass,test,requested,defined\n" +
+				"com.test.MyTest1,test1,1,\n" +
+				"com.test.MyTest2,test1,,2\n"
+		);
+	}
+
+	@Test
+	public void it_should_write_static_initializers() throws Exception {
+		File directory = new File(tmp.getRoot(), "reports");
+		TestReport report = new TestReport("com.test.MyTest");
+		report.record(Description.createTestDescription("com.test.MyTest", "test1"), asList(new ClinitProfiler.Entry("com.test.A", 20), new ClinitProfiler.Entry("com.test.B", 10)));
+		report.record(Description.createTestDescription("com.test.MyTest", "test2"), asList(new ClinitProfiler.Entry("com.test.A", 30)));
+
+		report.write(directory);
+
+		File csv = new File(directory, "com.test.MyTest.clinit.csv");
+		assertThat(new String(Files.readAllBytes(csv.toPath()), StandardCharsets.UTF_8)).isEqualTo(
+				"test,rank,class,exclusiveNanos\n" +
+				"test1,1,com.test.A,20\n" +
+				"test1,2,com.test.B,10\n" +
+				"test2,1,com.test.A,30\n"
+		);
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+public class ThreadUsageTest {
+
+	@Test
+	public void it_should_measure_allocated_bytes() {
+		ThreadUsage before = ThreadUsage.current();
+		byte[] bytes = new byte[1024 * 1024];
+		ThreadUsage usage = ThreadUsage.current().minus(before);
+
+		assertThat(bytes).hasSize(1024 * 1024);
+		if (usage.getAllocatedBytes() >= 0) {
+			assertThat(usage.getAllocatedBytes()).isGreaterThanOrEqualTo(1024 * 1024);
+		}
+	}
+
+	@Test
+	public void it_should_measure_cpu_time() {
+		ThreadUsage usage = ThreadUsage.current();
+		if (ManagementFactory.getThreadMXBean().isCurrentThreadCpuTimeSupported()) {
+			assertThat(usage.getCpuTimeNanos()).isPositive();
+		}
+		else {
+			assertThat(usage.getCpuTimeNanos()).isEqualTo(-1);
+		}
+	}
+
+	@Test
+	public void it_should_compute_difference() {
+		ThreadUsage usage = new ThreadUsage(100, 2000).minus(new ThreadUsage(40, 500));
+		assertThat(usage.getCpuTimeNanos()).isEqualTo(60);
+		assertThat(usage.getAllocatedBytes()).isEqualTo(1500);
+	}
+
+	@Test
+	public void it_should_keep_unsupported_values() {
+		ThreadUsage usage = new ThreadUsage(-1, 2000).minus(new ThreadUsage(-1, -1));
+		assertThat(usage.getCpuTimeNanos()).isEqualTo(-1);
+		assertThat(usage.getAllocatedBytes()).isEqualTo(-1);
+	}
+}
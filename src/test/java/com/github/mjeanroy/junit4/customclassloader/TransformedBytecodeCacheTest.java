@@ -0,0 +1,194 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.mjeanroy.junit4.customclassloader.fixtures.Greeting;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.StaticCounter;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.UpperCaseGreetingTransformer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class TransformedBytecodeCacheTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void it_should_transform_class_once() {
+		TransformedBytecodeCache cache = new TransformedBytecodeCache(transformers(), "chain", null);
+		byte[] bytecode = bytecode(Greeting.class);
+
+		byte[] transformed = cache.get(Greeting.class.getName(), bytecode);
+
+		assertThat(transformed).isNotEqualTo(bytecode).hasSameSizeAs(bytecode);
+		assertThat(cache.get(Greeting.class.getName(), bytecode)).isSameAs(transformed);
+		assertThat(cache.getTransformedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_return_input_of_unchanged_class() {
+		TransformedBytecodeCache cache = new TransformedBytecodeCache(transformers(), "chain", null);
+		byte[] bytecode = bytecode(StaticCounter.class);
+
+		assertThat(cache.get(StaticCounter.class.getName(), bytecode)).isSameAs(bytecode);
+		assertThat(cache.get(StaticCounter.class.getName(), bytecode)).isSameAs(bytecode);
+		assertThat(cache.getTransformedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_reuse_disk_cache() {
+		File directory = tmp.getRoot();
+		byte[] greeting = bytecode(Greeting.class);
+		byte[] counter = bytecode(StaticCounter.class);
+
+		TransformedBytecodeCache cache = new TransformedBytecodeCache(transformers(), "chain", directory);
+		byte[] transformed = cache.get(Greeting.class.getName(), greeting);
+		cache.get(StaticCounter.class.getName(), counter);
+		assertThat(new File(directory, "chain").list()).hasSize(2);
+
+		// Simulate a new JVM run.
+		TransformedBytecodeCache nextRun = new TransformedBytecodeCache(transformers(), "chain", directory);
+		assertThat(nextRun.get(Greeting.class.getName(), greeting)).isEqualTo(transformed);
+		assertThat(nextRun.get(StaticCounter.class.getName(), counter)).isSameAs(counter);
+		assertThat(nextRun.getTransformedCount()).isZero();
+
+		// Another transformer chain does not use the same entries.
+		TransformedBytecodeCache otherChain = new TransformedBytecodeCache(transformers(), "other", directory);
+		otherChain.get(Greeting.class.getName(), greeting);
+		assertThat(otherChain.getTransformedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_not_share_cache_between_transformer_instances() {
+		TransformedBytecodeCache cache = TransformedBytecodeCache.of(transformers());
+		TransformedBytecodeCache other = TransformedBytecodeCache.of(transformers());
+		assertThat(other).isNotSameAs(cache);
+
+		cache.get(Greeting.class.getName(), bytecode(Greeting.class));
+		other.get(Greeting.class.getName(), bytecode(Greeting.class));
+		assertThat(cache.getTransformedCount()).isEqualTo(1);
+		assertThat(other.getTransformedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_identify_chain_on_disk_by_transformer_cache_keys() {
+		String hash = TransformedBytecodeCache.hash(singletonList(new KeyedTransformer("v1")));
+
+		assertThat(hash).isNotNull().hasSize(64);
+		assertThat(TransformedBytecodeCache.hash(singletonList(new KeyedTransformer("v1")))).isEqualTo(hash);
+		assertThat(TransformedBytecodeCache.hash(singletonList(new KeyedTransformer("v2")))).isNotEqualTo(hash);
+		assertThat(TransformedBytecodeCache.hash(Arrays.asList(new KeyedTransformer("v1"), new KeyedTransformer("v1")))).isNotEqualTo(hash);
+		assertThat(TransformedBytecodeCache.hash(transformers())).isNotEqualTo(hash);
+	}
+
+	@Test
+	public void it_should_not_use_disk_cache_without_transformer_cache_key() {
+		System.setProperty(TransformedBytecodeCache.DIRECTORY_PROPERTY, tmp.getRoot().getAbsolutePath());
+		try {
+			TransformedBytecodeCache cache = TransformedBytecodeCache.of(Arrays.asList(new UpperCaseGreetingTransformer(), new KeyedTransformer(null)));
+			cache.get(Greeting.class.getName(), bytecode(Greeting.class));
+
+			assertThat(TransformedBytecodeCache.hash(Arrays.asList(new UpperCaseGreetingTransformer(), new KeyedTransformer(null)))).isNull();
+			assertThat(tmp.getRoot().list()).isEmpty();
+		}
+		finally {
+			System.clearProperty(TransformedBytecodeCache.DIRECTORY_PROPERTY);
+		}
+	}
+
+	@Test
+	public void it_should_name_disk_cache_entries_after_bytecode_hash_whatever_previous_chain_hash() throws Exception {
+		assertThat(TransformedBytecodeCache.hash(Arrays.asList(new KeyedTransformer("v1"), new KeyedTransformer(null)))).isNull();
+
+		File directory = tmp.getRoot();
+		byte[] greeting = bytecode(Greeting.class);
+		new TransformedBytecodeCache(transformers(), "chain", directory).get(Greeting.class.getName(), greeting);
+
+		String expected = String.format("%064x", new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(greeting))) + ".class";
+		assertThat(new File(directory, "chain").list()).containsExactly(expected);
+	}
+
+	@Test
+	public void it_should_fail_if_transformer_fails() {
+		ClassTransformer transformer = new ClassTransformer() {
+			@Override
+			public byte[] transform(String className, byte[] bytecode) throws Exception {
+				throw new Exception("Invalid bytecode");
+			}
+
+			@Override
+			public String cacheKey() {
+				return null;
+			}
+		};
+
+		TransformedBytecodeCache cache = new TransformedBytecodeCache(singletonList(transformer), "chain", null);
+
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Cannot transform class " + Greeting.class.getName());
+
+		cache.get(Greeting.class.getName(), bytecode(Greeting.class));
+	}
+
+	private static class KeyedTransformer implements ClassTransformer {
+		private final String cacheKey;
+
+		private KeyedTransformer(String cacheKey) {
+			this.cacheKey = cacheKey;
+		}
+
+		@Override
+		public byte[] transform(String className, byte[] bytecode) {
+			return null;
+		}
+
+		@Override
+		public String cacheKey() {
+			return cacheKey;
+		}
+	}
+
+	private static List<ClassTransformer> transformers() {
+		return Arrays.<ClassTransformer>asList(new UpperCaseGreetingTransformer());
+	}
+
+	private static byte[] bytecode(Class<?> klass) {
+		return BytecodeCache.getInstance().get(klass.getClassLoader(), klass.getName());
+	}
+}
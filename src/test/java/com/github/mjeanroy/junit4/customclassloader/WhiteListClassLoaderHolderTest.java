@@ -0,0 +1,81 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+import com.github.mjeanroy.junit4.customclassloader.fixtures.StaticCounter;
+import org.junit.Test;
+
+public class WhiteListClassLoaderHolderTest {
+
+	@Test(expected = ClassNotFoundException.class)
+	public void it_should_only_allow_jdk_classes_by_default() throws Exception {
+		WhiteListClassLoaderHolder holder = new WhiteListClassLoaderHolder();
+		ClassLoader classLoader = holder.get();
+
+		assertThat(classLoader.loadClass("java.util.ArrayList")).isNotNull();
+		classLoader.loadClass(StaticCounter.class.getName());
+	}
+
+	@Test
+	public void it_should_load_class_of_whitelisted_package() throws Exception {
+		WhiteListClassLoaderHolder holder = new WhiteListClassLoaderHolder("com.github.mjeanroy.junit4.customclassloader.fixtures.*");
+		assertThat(holder.get().loadClass(StaticCounter.class.getName())).isSameAs(StaticCounter.class);
+	}
+
+	@Test
+	public void it_should_never_reuse_classloader() throws Exception {
+		WhiteListClassLoaderHolder holder = new WhiteListClassLoaderHolder("com.github.mjeanroy.junit4.customclassloader.fixtures.*");
+		WhiteListClassLoader classLoader = (WhiteListClassLoader) holder.get();
+		classLoader.add("org.junit.**");
+		assertThat(Class.forName(Test.class.getName(), false, classLoader)).isSameAs(Test.class);
+		assertThat(holder.resetClassLoader(classLoader)).isFalse();
+
+		Thread thread = Thread.currentThread();
+		ClassLoader contextClassLoader = thread.getContextClassLoader();
+		thread.setContextClassLoader(classLoader);
+
+		try {
+			holder.afterTest();
+		}
+		finally {
+			thread.setContextClassLoader(contextClassLoader);
+		}
+
+		ClassLoader next = holder.get();
+		assertThat(next).isNotSameAs(classLoader);
+		assertThat(next.loadClass(StaticCounter.class.getName())).isSameAs(StaticCounter.class);
+
+		try {
+			Class.forName(Test.class.getName(), false, next);
+			failBecauseExceptionWasNotThrown(ClassNotFoundException.class);
+		}
+		catch (ClassNotFoundException ex) {
+			// Expected.
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.mjeanroy.junit4.customclassloader.fixtures.ChildClassAnnotated;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.StaticCounter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class WhiteListClassLoaderTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private WhiteListClassLoader classLoader;
+
+	@Before
+	public void setUp() {
+		this.classLoader = new WhiteListClassLoader(Thread.currentThread().getContextClassLoader());
+	}
+
+	@Test
+	public void it_should_load_jdk_classes() throws Exception {
+		assertThat(classLoader.loadClass("java.util.ArrayList")).isSameAs(java.util.ArrayList.class);
+		assertThat(classLoader.loadClass("java.util.concurrent.ConcurrentHashMap")).isSameAs(java.util.concurrent.ConcurrentHashMap.class);
+		assertThat(classLoader.loadClass("java.sql.Connection")).isSameAs(java.sql.Connection.class);
+	}
+
+	@Test
+	public void it_should_not_load_class_that_is_not_whitelisted() throws Exception {
+		thrown.expect(BlacklistedClassException.class);
+		thrown.expectMessage(StaticCounter.class.getName());
+
+		classLoader.loadClass(StaticCounter.class.getName());
+	}
+
+	@Test
+	public void it_should_load_class_of_whitelisted_package() throws Exception {
+		classLoader.add("com.github.mjeanroy.junit4.customclassloader.fixtures.*");
+
+		assertThat(classLoader.loadClass(StaticCounter.class.getName())).isSameAs(StaticCounter.class);
+		assertThat(classLoader.loadClass(ChildClassAnnotated.class.getName())).isSameAs(ChildClassAnnotated.class);
+	}
+
+	@Test
+	public void it_should_load_class_of_whitelisted_sub_package() throws Exception {
+		classLoader.add("com.github.mjeanroy.junit4.**");
+
+		assertThat(classLoader.loadClass(StaticCounter.class.getName())).isSameAs(StaticCounter.class);
+		assertThat(classLoader.loadClass(WhiteListClassLoaderTest.class.getName())).isSameAs(WhiteListClassLoaderTest.class);
+	}
+
+	@Test
+	public void it_should_allow_package_once_whitelisted() throws Exception {
+		assertThat(isAvailable(StaticCounter.class.getName())).isFalse();
+
+		classLoader.add("com.github.mjeanroy.junit4.customclassloader.fixtures.*");
+		assertThat(isAvailable(StaticCounter.class.getName())).isTrue();
+
+		classLoader.clear();
+		assertThat(isAvailable(StaticCounter.class.getName())).isFalse();
+		assertThat(isAvailable("java.lang.String")).isTrue();
+	}
+
+	@Test
+	public void it_should_not_deny_jdk_package_after_unknown_class() throws Exception {
+		assertThat(isAvailable("java.util.DoesNotExist")).isFalse();
+		assertThat(isAvailable("java.util.ArrayList")).isTrue();
+	}
+
+	@Test
+	public void it_should_check_each_class_of_package_split_with_the_jdk() throws Exception {
+		// A jar of the classpath may ship classes in a JDK package (such as jsr305 and javax.annotation on Java 8).
+		final String classpathClass = "javax.sql.FromClasspath";
+		ClassLoader parent = new ClassLoader(Thread.currentThread().getContextClassLoader()) {
+			@Override
+			protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+				return name.equals(classpathClass) ? StaticCounter.class : super.loadClass(name, resolve);
+			}
+		};
+
+		classLoader = new WhiteListClassLoader(parent);
+		assertThat(isAvailable(classpathClass)).isFalse();
+		assertThat(isAvailable("javax.sql.DataSource")).isTrue();
+		assertThat(isAvailable(classpathClass)).isFalse();
+
+		classLoader = new WhiteListClassLoader(parent);
+		assertThat(isAvailable("javax.sql.DataSource")).isTrue();
+		assertThat(isAvailable(classpathClass)).isFalse();
+
+		classLoader.add("javax.sql.*");
+		assertThat(isAvailable(classpathClass)).isTrue();
+	}
+
+	@Test
+	public void it_should_record_metrics() throws Exception {
+		classLoader.loadClass("java.util.ArrayList");
+		isAvailable(StaticCounter.class.getName());
+
+		ClassLoadingStats stats = classLoader.getMetrics().snapshot();
+		assertThat(stats.getDelegated()).isEqualTo(1);
+		assertThat(stats.getDenied()).isEqualTo(1);
+	}
+
+	@Test
+	public void it_should_fail_with_class_rule() {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Whitelist rule must match packages");
+
+		classLoader.add(StaticCounter.class.getName());
+	}
+
+	private boolean isAvailable(String className) {
+		try {
+			classLoader.loadClass(className);
+			return true;
+		}
+		catch (ClassNotFoundException ex) {
+			return false;
+		}
+	}
+}
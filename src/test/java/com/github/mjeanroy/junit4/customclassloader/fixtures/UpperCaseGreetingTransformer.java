@@ -0,0 +1,61 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader.fixtures;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.github.mjeanroy.junit4.customclassloader.ClassTransformer;
+
+/**
+ * Replace the {@code "hello"} constant of the {@link Greeting} class, without changing the size of
+ * the constant pool entry.
+ */
+public class UpperCaseGreetingTransformer implements ClassTransformer {
+
+	private static final byte[] FROM = "hello".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] TO = "HELLO".getBytes(StandardCharsets.UTF_8);
+
+	@Override
+	public byte[] transform(String className, byte[] bytecode) {
+		if (!className.equals(Greeting.class.getName())) {
+			return null;
+		}
+
+		byte[] result = Arrays.copyOf(bytecode, bytecode.length);
+		for (int i = 0; i + FROM.length <= result.length; i++) {
+			if (Arrays.equals(Arrays.copyOfRange(result, i, i + FROM.length), FROM)) {
+				System.arraycopy(TO, 0, result, i, TO.length);
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public String cacheKey() {
+		return "1";
+	}
+}
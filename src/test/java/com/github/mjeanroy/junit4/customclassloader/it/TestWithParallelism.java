@@ -0,0 +1,66 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mjeanroy.junit4.customclassloader.BlackListClassLoader;
+import com.github.mjeanroy.junit4.customclassloader.BlackListClassLoaderHolder;
+import com.github.mjeanroy.junit4.customclassloader.CustomClassLoaderRunner;
+import com.github.mjeanroy.junit4.customclassloader.RunWithClassLoader;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(CustomClassLoaderRunner.class)
+@RunWithClassLoader(value = BlackListClassLoaderHolder.class, parallelism = 3)
+public class TestWithParallelism {
+
+	private static final CountDownLatch LATCH = new CountDownLatch(3);
+
+	@Test
+	public void it_should_run_concurrently_1() throws Exception {
+		awaitOtherTests();
+	}
+
+	@Test
+	public void it_should_run_concurrently_2() throws Exception {
+		awaitOtherTests();
+	}
+
+	@Test
+	public void it_should_run_concurrently_3() throws Exception {
+		awaitOtherTests();
+	}
+
+	private static void awaitOtherTests() throws Exception {
+		assertThat(Thread.currentThread().getContextClassLoader()).isExactlyInstanceOf(BlackListClassLoader.class);
+
+		LATCH.countDown();
+		assertThat(LATCH.await(30, TimeUnit.SECONDS)).isTrue();
+	}
+}
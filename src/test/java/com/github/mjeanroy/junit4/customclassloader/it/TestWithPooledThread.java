@@ -0,0 +1,71 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.mjeanroy.junit4.customclassloader.BlackListClassLoader;
+import com.github.mjeanroy.junit4.customclassloader.BlackListClassLoaderHolder;
+import com.github.mjeanroy.junit4.customclassloader.CustomClassLoaderRunner;
+import com.github.mjeanroy.junit4.customclassloader.RunWithClassLoader;
+import com.github.mjeanroy.junit4.customclassloader.ThreadMode;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.ChildClassAnnotated;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(CustomClassLoaderRunner.class)
+@RunWithClassLoader(value = BlackListClassLoaderHolder.class, threadMode = ThreadMode.POOLED_THREAD, poolSize = 1)
+public class TestWithPooledThread {
+
+	private static final ThreadLocal<String> THREAD_LOCAL = new ThreadLocal<>();
+
+	@Test(expected = ClassNotFoundException.class)
+	public void it_should_fail_if_class_is_blacklisted() throws Exception {
+		String name = ChildClassAnnotated.class.getName();
+		getClassLoader().add(name);
+		Class.forName(name, false, Thread.currentThread().getContextClassLoader());
+	}
+
+	@Test
+	public void it_should_run_in_worker_thread_1() {
+		checkThreadLocal();
+	}
+
+	@Test
+	public void it_should_run_in_worker_thread_2() {
+		checkThreadLocal();
+	}
+
+	private static void checkThreadLocal() {
+		assertThat(Thread.currentThread().getName()).startsWith("JUnit{");
+		assertThat(Thread.currentThread().getContextClassLoader()).isExactlyInstanceOf(BlackListClassLoader.class);
+		assertThat(THREAD_LOCAL.get()).isNull();
+		THREAD_LOCAL.set("foo");
+	}
+
+	private static BlackListClassLoader getClassLoader() {
+		return (BlackListClassLoader) Thread.currentThread().getContextClassLoader();
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.mjeanroy.junit4.customclassloader.ClassLoaderScope;
+import com.github.mjeanroy.junit4.customclassloader.CustomClassLoaderRunner;
+import com.github.mjeanroy.junit4.customclassloader.IsolatingClassLoaderHolder;
+import com.github.mjeanroy.junit4.customclassloader.RepeatInFreshClassLoader;
+import com.github.mjeanroy.junit4.customclassloader.RunWithClassLoader;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.StaticCounter;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(CustomClassLoaderRunner.class)
+@RunWithClassLoader(value = TestWithRepeatInFreshClassLoader.FixturesClassLoaderHolder.class, scope = ClassLoaderScope.CLASS)
+public class TestWithRepeatInFreshClassLoader {
+
+	private static final AtomicInteger RUNS = new AtomicInteger(0);
+
+	@AfterClass
+	public static void afterClass() {
+		assertThat(RUNS.get()).isEqualTo(5);
+	}
+
+	@Test
+	@RepeatInFreshClassLoader(iterations = 3, warmup = 2)
+	public void it_should_run_with_fresh_static_state_on_each_run() throws Exception {
+		RUNS.incrementAndGet();
+		assertThat(increment()).isEqualTo(1);
+	}
+
+	private static int increment() throws Exception {
+		Class<?> klass = Class.forName(StaticCounter.class.getName(), true, Thread.currentThread().getContextClassLoader());
+		return (Integer) klass.getMethod("increment").invoke(null);
+	}
+
+	public static class FixturesClassLoaderHolder extends IsolatingClassLoaderHolder {
+		public FixturesClassLoaderHolder() {
+			super("com.github.mjeanroy.junit4.customclassloader.fixtures.**");
+		}
+	}
+}
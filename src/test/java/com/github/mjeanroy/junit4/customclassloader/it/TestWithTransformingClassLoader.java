@@ -0,0 +1,54 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Mickael Jeanroy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.mjeanroy.junit4.customclassloader.it;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.mjeanroy.junit4.customclassloader.CustomClassLoaderRunner;
+import com.github.mjeanroy.junit4.customclassloader.RunWithClassLoader;
+import com.github.mjeanroy.junit4.customclassloader.TransformingClassLoaderHolder;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.Greeting;
+import com.github.mjeanroy.junit4.customclassloader.fixtures.UpperCaseGreetingTransformer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(CustomClassLoaderRunner.class)
+@RunWithClassLoader(TestWithTransformingClassLoader.FixturesClassLoaderHolder.class)
+public class TestWithTransformingClassLoader {
+
+	@Test
+	public void it_should_run_with_transformed_classes() throws Exception {
+		Class<?> klass = Class.forName(Greeting.class.getName(), true, Thread.currentThread().getContextClassLoader());
+		assertThat(klass.getMethod("message").invoke(null)).isEqualTo("HELLO");
+		assertThat(Greeting.message()).isEqualTo("hello");
+	}
+
+	public static class FixturesClassLoaderHolder extends TransformingClassLoaderHolder {
+		public FixturesClassLoaderHolder() {
+			super(singletonList(new UpperCaseGreetingTransformer()), "com.github.mjeanroy.junit4.customclassloader.fixtures.Greeting");
+		}
+	}
+}